@@ -1,6 +1,9 @@
+import net.ltgt.gradle.errorprone.errorprone
+
 plugins {
   val indraVersion = "3.1.3"
   id("com.diffplug.spotless") version "6.21.0"
+  id("me.champeau.jmh") version "0.7.1"
   id("net.kyori.indra") version indraVersion
   id("net.kyori.indra.checkstyle") version indraVersion
   id("net.kyori.indra.publishing") version indraVersion
@@ -50,6 +53,19 @@ spotless {
   }
 }
 
+jmh {
+  jmhVersion.set("1.37")
+  // Results are written as JSON, so that runs from different commits can be compared.
+  resultFormat.set("JSON")
+  resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+  providers.gradleProperty("jmhIncludes").orNull?.let { includes.add(it) }
+}
+
+tasks.named<JavaCompile>("jmhCompileGeneratedClasses") {
+  // The sources generated by JMH are not ours to lint.
+  options.errorprone.isEnabled.set(false)
+}
+
 tasks.named<Jar>(JavaPlugin.JAR_TASK_NAME) {
   indraGit.applyVcsInformationToManifest(manifest)
 }
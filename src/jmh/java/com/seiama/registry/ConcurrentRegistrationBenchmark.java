@@ -0,0 +1,113 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks many threads filling a registry which is safe for use by multiple threads at once, as when several
+ * data packs are loaded in parallel.
+ *
+ * <p>Each thread requests and then registers {@link #size} keys of its own, so every invocation adds keys and scores
+ * are per batch rather than per key. A registry whose writes scale keeps its score flat as threads are added - one
+ * behind a single lock sees its score grow with them.</p>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@Fork(1)
+@Measurement(iterations = 20)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 10)
+public class ConcurrentRegistrationBenchmark {
+  private static final Object VALUE = new Object();
+
+  @Param({"100000"})
+  public int size;
+  @Param({"STRING", "KEY"})
+  public KeyType keyType;
+  @Param({"CONCURRENT", "SHARDED", "SYNCHRONIZED"})
+  public Implementation implementation;
+
+  private Registry<Object, Object> registry;
+
+  @Setup(Level.Iteration)
+  public void setup() {
+    this.registry = this.implementation.create();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void register1Thread(final Keys keys) {
+    this.register(keys);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void register4Threads(final Keys keys) {
+    this.register(keys);
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public void registerMaxThreads(final Keys keys) {
+    this.register(keys);
+  }
+
+  private void register(final Keys keys) {
+    for (final Object key : keys.keys) {
+      this.registry.getOrCreateHolder(key);
+      this.registry.register(key, VALUE);
+    }
+  }
+
+  /**
+   * The keys of a single thread, distinct from those of every other thread.
+   */
+  @State(Scope.Thread)
+  public static class Keys {
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    private Object[] keys;
+
+    @Setup
+    public void setup(final ConcurrentRegistrationBenchmark benchmark) {
+      final int thread = THREADS.getAndIncrement();
+      this.keys = benchmark.keyType.shuffled(thread * benchmark.size, benchmark.size);
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks registries which are safe for use by multiple threads, under contention.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class ConcurrentRegistryBenchmark {
+  @Param({"1000", "1000000"})
+  public int size;
+  @Param
+  public KeyType keyType;
+  @Param({"CONCURRENT", "SHARDED", "SYNCHRONIZED"})
+  public Implementation implementation;
+
+  private Registry<Object, Object> registry;
+  private Object[] hits;
+  private Object[] misses;
+  private Object[] values;
+
+  @Setup
+  public void setup() {
+    this.registry = this.implementation.populate(this.keyType.create(0, this.size));
+    this.hits = this.keyType.shuffled(0, this.size);
+    this.misses = this.keyType.shuffled(this.size, this.size);
+    this.values = new Object[this.size];
+    for (int i = 0; i < this.size; i++) {
+      this.values[i] = new Object();
+    }
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public Holder<Object, Object> getHolderHit(final Cursor cursor) {
+    return this.registry.getHolder(cursor.next(this.hits));
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public Holder<Object, Object> getOrCreateHolderHit(final Cursor cursor) {
+    return this.registry.getOrCreateHolder(cursor.next(this.hits));
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(3)
+  public Holder<Object, Object> mixedGetHolder(final Cursor cursor) {
+    return this.registry.getHolder(cursor.next(this.hits));
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(1)
+  public Holder<Object, Object> mixedRegister(final Cursor cursor) {
+    // Registers new keys until they run out, after which registration takes the already-bound path.
+    final Object key = cursor.next(this.misses);
+    return this.registry.register(key, this.values[(key.hashCode() & Integer.MAX_VALUE) % this.values.length]);
+  }
+}
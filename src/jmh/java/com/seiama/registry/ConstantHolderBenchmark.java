@@ -0,0 +1,96 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares reading a value through a holder kept in a {@code static final} field against reading a {@code static
+ * final} field holding the value itself.
+ *
+ * <p>Each benchmark reads a field of the value, so that a read the JIT compiler can fold costs nothing at all. A holder
+ * of a {@linkplain Registry#seal() sealed} registry should match the field; those of mutable or {@linkplain
+ * Registry#freeze() frozen} registries cannot, as their fields are not trusted to be final.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class ConstantHolderBenchmark {
+  private static final Value VALUE = new Value(42);
+  private static final Registry<String, Value> REGISTRY = Registry.create();
+
+  static {
+    REGISTRY.register("immediate", VALUE);
+    REGISTRY.getOrCreateHolder("lazy");
+    REGISTRY.register("lazy", VALUE);
+  }
+
+  private static final Holder<String, Value> IMMEDIATE = REGISTRY.getHolder("immediate");
+  private static final Holder<String, Value> LAZY = REGISTRY.getHolder("lazy");
+  private static final Holder<String, Value> SEALED_IMMEDIATE = REGISTRY.seal().getHolder("immediate");
+  private static final Holder<String, Value> SEALED_LAZY = REGISTRY.seal().getHolder("lazy");
+
+  @Benchmark
+  public int staticFinal() {
+    return VALUE.weight();
+  }
+
+  @Benchmark
+  public int immediate() {
+    return IMMEDIATE.value().weight();
+  }
+
+  @Benchmark
+  public int lazy() {
+    return LAZY.value().weight();
+  }
+
+  @Benchmark
+  public int sealedImmediate() {
+    return SEALED_IMMEDIATE.value().weight();
+  }
+
+  @Benchmark
+  public int sealedLazy() {
+    return SEALED_LAZY.value().weight();
+  }
+
+  /**
+   * A value whose own field is trusted to be final, so that only the holder stands in the way of folding.
+   */
+  record Value(int weight) {
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks computing {@linkplain Registry#registerDeferred(Object, java.util.function.Supplier) deferred} values
+ * which are expensive to build - one after another on a single thread, against {@linkplain
+ * Registry#initializeAll(java.util.concurrent.Executor) all at once} on the common fork-join pool.
+ *
+ * <p>Each value depends on the value {@link #stride} before it, so the values form {@link #stride} independent chains
+ * which can be computed in parallel. Each invocation computes an entire registry of {@link #size} values, so scores are
+ * per batch rather than per value.</p>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@Fork(1)
+@Measurement(iterations = 20)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 10)
+public class DeferredInitializationBenchmark {
+  private static final long WORK = 10_000;
+
+  @Param({"10000"})
+  public int size;
+  @Param({"1", "16", "1000"})
+  public int stride;
+
+  private Registry<Object, Object> registry;
+
+  @Setup(Level.Invocation)
+  public void setup() {
+    this.registry = Registry.createConcurrent();
+    for (int i = 0; i < this.size; i++) {
+      final Holder<Object, Object> dependency = i >= this.stride ? this.registry.getOrCreateHolder(i - this.stride) : null;
+      this.registry.registerDeferred(i, () -> {
+        Blackhole.consumeCPU(WORK);
+        return dependency != null ? dependency.value() : new Object();
+      });
+    }
+  }
+
+  @Benchmark
+  public void sequential(final Blackhole blackhole) {
+    for (final Holder<Object, Object> holder : this.registry.holders()) {
+      blackhole.consume(holder.value());
+    }
+  }
+
+  @Benchmark
+  public void initializeAll() {
+    this.registry.initializeAll(ForkJoinPool.commonPool());
+  }
+}
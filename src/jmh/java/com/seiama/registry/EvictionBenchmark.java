@@ -0,0 +1,129 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks a registry of runtime-generated keys, each looked up and registered on a miss - as a registry of
+ * per-session entries would be - with and without eviction.
+ *
+ * <p>Keys are drawn from a skewed distribution, so that a few are used far more often than the rest. The
+ * {@link Outcome} counters report the hit rate, the number of keys held and the number evicted over each iteration.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class EvictionBenchmark {
+  private static final int DISTINCT_KEYS = 1_000_000;
+  private static final int SAMPLES = 1 << 20;
+
+  @Param
+  public Eviction eviction;
+
+  private Object[] keys;
+  private RegistryMetrics metrics;
+  private Registry<Object, Object> registry;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    // Cubing a uniform sample skews it towards zero - the lower a key's index, the more often it is drawn.
+    final Random random = new Random(42);
+    this.keys = new Object[SAMPLES];
+    for (int i = 0; i < SAMPLES; i++) {
+      final double sample = random.nextDouble();
+      this.keys[i] = "session/" + (int) (sample * sample * sample * DISTINCT_KEYS);
+    }
+    this.metrics = RegistryMetrics.create();
+    final Registry.Builder<Object, Object> builder = Registry.builder().metrics(this.metrics);
+    this.registry = switch (this.eviction) {
+      case UNBOUNDED -> builder.build();
+      case BOUNDED_10K, BOUNDED_100K -> builder.maximumSize(this.eviction.maximumSize).build();
+      case WEAK -> builder.references(Registry.Builder.References.WEAK).build();
+    };
+  }
+
+  @Benchmark
+  public Holder<Object, Object> getOrRegister(final Cursor cursor, final Outcome outcome) {
+    final Object key = cursor.next(this.keys);
+    final Holder<Object, Object> holder = this.registry.getHolder(key);
+    return holder != null ? holder : this.registry.register(key, key);
+  }
+
+  public enum Eviction {
+    UNBOUNDED(0),
+    BOUNDED_10K(10_000),
+    BOUNDED_100K(100_000),
+    WEAK(0);
+
+    // Only bounded registries have a maximum size, so it is part of the eviction rather than a parameter of its own.
+    final int maximumSize;
+
+    Eviction(final int maximumSize) {
+      this.maximumSize = maximumSize;
+    }
+  }
+
+  /**
+   * How the registry fared over an iteration, read from its metrics as the iteration ends. The benchmark takes this
+   * only so that it is reported.
+   */
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Outcome {
+    public double hitRate;
+    public long size;
+    public long evictions;
+
+    @Setup(Level.Iteration)
+    public void reset(final EvictionBenchmark benchmark) {
+      benchmark.metrics.reset();
+    }
+
+    @TearDown(Level.Iteration)
+    public void record(final EvictionBenchmark benchmark) {
+      this.hitRate = benchmark.metrics.hitRate();
+      this.size = benchmark.registry.keys().size();
+      this.evictions = benchmark.metrics.evictions();
+    }
+  }
+}
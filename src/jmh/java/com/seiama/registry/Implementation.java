@@ -0,0 +1,80 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+/**
+ * The registry implementations benchmarks are run against.
+ */
+public enum Implementation {
+  DEFAULT,
+  CONCURRENT,
+  FROZEN,
+  /**
+   * The default implementation, recording {@link RegistryMetrics metrics} - to measure what they cost.
+   */
+  INSTRUMENTED,
+  /**
+   * The versioned implementation, which copies a path of its trie on every key added - to measure what that costs.
+   */
+  VERSIONED,
+  /**
+   * The sharded implementation, with two shards for every processor.
+   */
+  SHARDED,
+  /**
+   * The default implementation behind a single lock - the baseline for the implementations safe for use by multiple threads.
+   */
+  SYNCHRONIZED;
+
+  /**
+   * Creates a registry, registering a value for each of {@code keys}.
+   *
+   * <p>Every other key is requested through {@link Registry#getOrCreateHolder(Object)} before its value is
+   * registered, so that both immediate and lazy holders are present.</p>
+   */
+  Registry<Object, Object> populate(final Object[] keys) {
+    final Registry<Object, Object> registry = this.create();
+    for (int i = 0; i < keys.length; i++) {
+      if ((i & 1) != 0) {
+        registry.getOrCreateHolder(keys[i]);
+      }
+      registry.register(keys[i], new Object());
+    }
+    return this == FROZEN ? registry.freeze() : registry;
+  }
+
+  /**
+   * Creates an empty, mutable registry.
+   */
+  Registry<Object, Object> create() {
+    return switch (this) {
+      case DEFAULT, FROZEN -> Registry.create();
+      case CONCURRENT -> Registry.createConcurrent();
+      case INSTRUMENTED -> Registry.builder().metrics(RegistryMetrics.create()).build();
+      case VERSIONED -> Registry.createVersioned();
+      case SHARDED -> Registry.builder().shards(Runtime.getRuntime().availableProcessors() * 2).build();
+      case SYNCHRONIZED -> new SynchronizedRegistry<>(Registry.create());
+    };
+  }
+}
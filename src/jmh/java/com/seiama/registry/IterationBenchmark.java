@@ -0,0 +1,96 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks walking every entry of a populated registry - by looking each key up, against reading the holders
+ * directly, sequentially and in parallel.
+ *
+ * <p>Each invocation walks the entire registry, so scores are per walk rather than per entry. Taking a {@linkplain
+ * Registry#snapshot() snapshot} to walk is measured too.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class IterationBenchmark {
+  @Param({"1000", "100000", "1000000"})
+  public int size;
+  @Param({"STRING", "KEY"})
+  public KeyType keyType;
+  @Param
+  public Implementation implementation;
+
+  private Registry<Object, Object> registry;
+
+  @Setup
+  public void setup() {
+    this.registry = this.implementation.populate(this.keyType.create(0, this.size));
+  }
+
+  @Benchmark
+  public void keysThenGetHolder(final Blackhole blackhole) {
+    for (final Object key : this.registry.keys()) {
+      blackhole.consume(this.registry.getHolder(key).value());
+    }
+  }
+
+  @Benchmark
+  public void holders(final Blackhole blackhole) {
+    for (final Holder<Object, Object> holder : this.registry.holders()) {
+      blackhole.consume(holder.value());
+    }
+  }
+
+  @Benchmark
+  public void forEach(final Blackhole blackhole) {
+    this.registry.forEach((key, value) -> blackhole.consume(value));
+  }
+
+  @Benchmark
+  public long parallelStream() {
+    return this.registry.stream().parallel().filter(Holder::bound).count();
+  }
+
+  @Benchmark
+  public Registry<Object, Object> snapshot() {
+    return this.registry.snapshot();
+  }
+}
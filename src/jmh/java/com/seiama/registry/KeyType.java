@@ -0,0 +1,90 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.Random;
+
+/**
+ * The kinds of key benchmarks are run against.
+ */
+public enum KeyType {
+  STRING {
+    @Override
+    Object create(final int index) {
+      return "namespace:path/" + index;
+    }
+  },
+  RECORD {
+    @Override
+    Object create(final int index) {
+      return new RecordKey("namespace", index);
+    }
+  },
+  INTEGER {
+    @Override
+    Object create(final int index) {
+      return index;
+    }
+  },
+  KEY {
+    @Override
+    Object create(final int index) {
+      return Key.key("namespace", "path/" + index);
+    }
+  };
+
+  abstract Object create(final int index);
+
+  /**
+   * Creates {@code count} distinct keys, starting at {@code offset}.
+   *
+   * <p>Each call creates new key instances, so that lookups exercise {@link Object#equals(Object)} rather than
+   * only hitting the identity fast path - except for {@link #KEY}, which is interned.</p>
+   */
+  Object[] create(final int offset, final int count) {
+    final Object[] keys = new Object[count];
+    for (int i = 0; i < count; i++) {
+      keys[i] = this.create(offset + i);
+    }
+    return keys;
+  }
+
+  /**
+   * Creates {@code count} distinct keys, starting at {@code offset}, in a random (but reproducible) order.
+   */
+  Object[] shuffled(final int offset, final int count) {
+    final Object[] keys = this.create(offset, count);
+    final Random random = new Random(42);
+    for (int i = keys.length - 1; i > 0; i--) {
+      final int j = random.nextInt(i + 1);
+      final Object key = keys[i];
+      keys[i] = keys[j];
+      keys[j] = key;
+    }
+    return keys;
+  }
+
+  record RecordKey(String namespace, int index) {
+  }
+}
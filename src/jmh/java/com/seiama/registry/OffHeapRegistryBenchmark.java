@@ -0,0 +1,151 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares a registry of millions of string keys kept on the heap against one {@linkplain
+ * StringRegistry#createOffHeap(int) keeping them off it}.
+ *
+ * <p>{@link #fullGc()} times a full collection with the registry live, which is dominated by marking it. The
+ * {@link Footprint} counters report the bytes the registry holds on and off the heap, measured after a full collection
+ * on either side of building it. Keys are created as the registry is built and then dropped, so that the only strings
+ * left are those the registry keeps.</p>
+ */
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+public class OffHeapRegistryBenchmark {
+  private static final Object VALUE = new Object();
+  private static final int SAMPLE = 1024;
+
+  @Param({"1000000", "4000000"})
+  public int size;
+  @Param
+  public Storage storage;
+
+  private Registry<String, Object> registry;
+  private Object[] hits;
+  private StringBuilder[] builders;
+  private long heapBytes;
+  private long offHeapBytes;
+
+  @Setup
+  public void setup() {
+    final long heap = heapUsed();
+    final long offHeap = directUsed();
+    this.registry = this.storage.create(this.size);
+    for (int i = 0; i < this.size; i++) {
+      this.registry.register((String) KeyType.STRING.create(i), VALUE);
+    }
+    this.heapBytes = heapUsed() - heap;
+    this.offHeapBytes = directUsed() - offHeap;
+    this.hits = KeyType.STRING.shuffled(0, SAMPLE);
+    this.builders = new StringBuilder[SAMPLE];
+    for (int i = 0; i < SAMPLE; i++) {
+      this.builders[i] = new StringBuilder((String) this.hits[i]);
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public void fullGc(final Footprint footprint) {
+    System.gc();
+    footprint.heapBytes = this.heapBytes;
+    footprint.offHeapBytes = this.offHeapBytes;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public Holder<String, Object> getHolderHit(final Cursor cursor) {
+    return this.registry.getHolder((String) cursor.next(this.hits));
+  }
+
+  /**
+   * Looks up keys held in builders, as a parser would - the heap registry must create a string for each.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public Holder<String, Object> getHolderCharSequence(final Cursor cursor) {
+    final StringBuilder key = (StringBuilder) cursor.next(this.builders);
+    return this.registry instanceof final StringRegistry<Object> strings ? strings.getHolder(key) : this.registry.getHolder(key.toString());
+  }
+
+  private static long heapUsed() {
+    System.gc();
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+  private static long directUsed() {
+    long used = 0;
+    for (final BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+      if (pool.getName().equals("direct")) {
+        used += pool.getMemoryUsed();
+      }
+    }
+    return used;
+  }
+
+  public enum Storage {
+    HEAP,
+    OFF_HEAP;
+
+    Registry<String, Object> create(final int expectedSize) {
+      return switch (this) {
+        case HEAP -> Registry.create(expectedSize);
+        case OFF_HEAP -> StringRegistry.createOffHeap(expectedSize);
+      };
+    }
+  }
+
+  /**
+   * The bytes held by the registry, reported alongside the time taken to collect it.
+   */
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Footprint {
+    public long heapBytes;
+    public long offHeapBytes;
+  }
+}
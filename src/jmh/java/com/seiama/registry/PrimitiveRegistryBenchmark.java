@@ -0,0 +1,87 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link IntRegistry} against a {@link Registry} keyed by boxed integers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class PrimitiveRegistryBenchmark {
+  @Param({"10", "1000", "100000", "1000000"})
+  public int size;
+
+  private IntRegistry<Object> primitive;
+  private Registry<Integer, Object> boxed;
+  private int[] keys;
+  private int index;
+
+  @Setup
+  public void setup() {
+    this.primitive = IntRegistry.create();
+    this.boxed = Registry.create();
+    this.keys = new int[this.size];
+    for (int i = 0; i < this.size; i++) {
+      // Multiplying by an odd constant scatters the keys without ever producing a duplicate.
+      final int key = i * 0x2545F491;
+      final Object value = new Object();
+      this.primitive.register(key, value);
+      this.boxed.register(key, value);
+      this.keys[i] = key;
+    }
+  }
+
+  private int next() {
+    final int index = this.index;
+    this.index = index + 1 == this.keys.length ? 0 : index + 1;
+    return this.keys[index];
+  }
+
+  @Benchmark
+  public Holder<Integer, Object> intRegistryGetHolder() {
+    return this.primitive.getHolder(this.next());
+  }
+
+  @Benchmark
+  public Holder<Integer, Object> boxedRegistryGetHolder() {
+    return this.boxed.getHolder(this.next());
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the write paths of a registry.
+ *
+ * <p>Each invocation populates an entire registry of {@link #size} entries, so scores are per batch rather than per
+ * entry.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class RegistrationBenchmark {
+  @Param({"10", "1000", "100000", "1000000"})
+  public int size;
+  @Param
+  public KeyType keyType;
+  @Param({"DEFAULT", "CONCURRENT", "INSTRUMENTED", "VERSIONED"})
+  public Implementation implementation;
+
+  private Object[] keys;
+  private Object[] values;
+  private Map<Object, Object> entries;
+  private Registry<Object, Object> empty;
+  private Registry<Object, Object> lazy;
+
+  @Setup
+  public void setup() {
+    this.keys = this.keyType.shuffled(0, this.size);
+    this.values = new Object[this.size];
+    for (int i = 0; i < this.size; i++) {
+      this.values[i] = new Object();
+    }
+    this.entries = new LinkedHashMap<>();
+    for (int i = 0; i < this.size; i++) {
+      this.entries.put(this.keys[i], this.values[i]);
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void setupInvocation() {
+    this.empty = this.implementation.create();
+    this.lazy = this.implementation.create();
+    for (final Object key : this.keys) {
+      this.lazy.getOrCreateHolder(key);
+    }
+  }
+
+  @Benchmark
+  public void registerImmediate(final Blackhole blackhole) {
+    final Registry<Object, Object> registry = this.empty;
+    for (int i = 0; i < this.keys.length; i++) {
+      blackhole.consume(registry.register(this.keys[i], this.values[i]));
+    }
+  }
+
+  @Benchmark
+  public void registerLazy(final Blackhole blackhole) {
+    final Registry<Object, Object> registry = this.lazy;
+    for (int i = 0; i < this.keys.length; i++) {
+      blackhole.consume(registry.register(this.keys[i], this.values[i]));
+    }
+  }
+
+  @Benchmark
+  public void registerAllImmediate() {
+    this.empty.registerAll(this.entries);
+  }
+
+  @Benchmark
+  public void registerAllLazy() {
+    this.lazy.registerAll(this.entries);
+  }
+
+  @Benchmark
+  public void getOrCreateHolderMiss(final Blackhole blackhole) {
+    final Registry<Object, Object> registry = this.empty;
+    for (final Object key : this.keys) {
+      blackhole.consume(registry.getOrCreateHolder(key));
+    }
+  }
+}
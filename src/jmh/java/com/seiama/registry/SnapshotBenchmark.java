@@ -0,0 +1,107 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks starting up with a populated registry - rebuilding it from scratch, against loading its keys from a
+ * {@linkplain Registry#loadSnapshot(Path, KeyCodec, long) snapshot} and binding values to them.
+ *
+ * <p>Each invocation populates an entire registry of {@link #size} entries, so scores are per batch rather than per
+ * entry.</p>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@Fork(1)
+@Measurement(iterations = 20)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 10)
+public class SnapshotBenchmark {
+  private static final long FINGERPRINT = 1;
+
+  @Param({"1000", "100000", "1000000"})
+  public int size;
+
+  private Key[] keys;
+  private Object[] values;
+  private Path path;
+
+  @Setup
+  public void setup() throws IOException {
+    this.keys = new Key[this.size];
+    this.values = new Object[this.size];
+    final Registry<Key, Object> registry = Registry.create(this.size);
+    for (int i = 0; i < this.size; i++) {
+      this.keys[i] = Key.key("namespace", "path/" + i);
+      this.values[i] = new Object();
+      registry.register(this.keys[i], this.values[i]);
+    }
+    this.path = Files.createTempFile("registry", ".snapshot");
+    registry.writeSnapshot(this.path, KeyCodec.key(), FINGERPRINT);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(this.path);
+  }
+
+  @Benchmark
+  public Registry<Key, Object> rebuild() {
+    final Registry<Key, Object> registry = Registry.create();
+    for (int i = 0; i < this.size; i++) {
+      registry.register(this.keys[i], this.values[i]);
+    }
+    return registry;
+  }
+
+  @Benchmark
+  public Registry<Key, Object> load() throws IOException {
+    final Registry<Key, Object> registry = Registry.loadSnapshot(this.path, KeyCodec.key(), FINGERPRINT);
+    for (int i = 0; i < this.size; i++) {
+      registry.register(this.keys[i], this.values[i]);
+    }
+    return registry;
+  }
+
+  @Benchmark
+  public Registry<Key, Object> loadOnly() throws IOException {
+    return Registry.loadSnapshot(this.path, KeyCodec.key(), FINGERPRINT);
+  }
+}
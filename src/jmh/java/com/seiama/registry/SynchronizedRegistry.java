@@ -0,0 +1,84 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.Set;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A registry which makes another safe for use by multiple threads by holding a single lock around every operation,
+ * in the manner of {@link java.util.Collections#synchronizedMap(java.util.Map)} - the baseline the concurrent
+ * implementations are measured against.
+ *
+ * <p>As with a synchronized map, iterating {@link #keys()} is not safe while other threads write.</p>
+ */
+@NullMarked
+final class SynchronizedRegistry<K, V> implements Registry<K, V> {
+  private final Registry<K, V> delegate;
+
+  SynchronizedRegistry(final Registry<K, V> delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public synchronized @Nullable Holder<K, V> getHolder(final K key) {
+    return this.delegate.getHolder(key);
+  }
+
+  @Override
+  public synchronized @Nullable Holder<K, V> getHolderByValue(final V value) {
+    return this.delegate.getHolderByValue(value);
+  }
+
+  @Override
+  public synchronized Holder<K, V> getOrCreateHolder(final K key) {
+    return this.delegate.getOrCreateHolder(key);
+  }
+
+  @Override
+  public synchronized Holder<K, V> register(final K key, final V value) {
+    return this.delegate.register(key, value);
+  }
+
+  @Override
+  public synchronized @Nullable Holder<K, V> byId(final int id) {
+    return this.delegate.byId(id);
+  }
+
+  @Override
+  public Set<K> keys() {
+    return this.delegate.keys();
+  }
+
+  @Override
+  public Tags<K, V> tags() {
+    return this.delegate.tags();
+  }
+
+  @Override
+  public Set<K> unbound() {
+    return this.delegate.unbound();
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A lock-free, growable table of holders indexed by id.
+ *
+ * <p>The table is made of chunks which double in length, so growing never copies or moves existing holders, and
+ * readers never observe a partially-copied table.</p>
+ */
+@NullMarked
+final class ConcurrentIdTable<K, V> {
+  private static final int FIRST_CHUNK_BITS = 4;
+  private static final int FIRST_CHUNK_LENGTH = 1 << FIRST_CHUNK_BITS;
+  private static final int CHUNKS = Integer.SIZE - FIRST_CHUNK_BITS;
+
+  private final AtomicReferenceArray<@Nullable AtomicReferenceArray<@Nullable Holder<K, V>>> chunks = new AtomicReferenceArray<>(CHUNKS);
+  private final AtomicInteger next = new AtomicInteger();
+  private final AtomicInteger published = new AtomicInteger();
+
+  /**
+   * Reserves the next id.
+   *
+   * @return the id
+   */
+  int reserve() {
+    return this.next.getAndIncrement();
+  }
+
+  /**
+   * Publishes a holder under its {@link Holder#id() id}, which must have been {@link #reserve() reserved}.
+   *
+   * <p>Callers must publish every id they reserve, and nothing which may throw should come between the two - the
+   * {@link #size() size} never passes an id which has not been published.</p>
+   *
+   * @param holder the holder
+   */
+  void set(final Holder<K, V> holder) {
+    final int id = holder.id();
+    final int chunk = chunk(id);
+    @Nullable AtomicReferenceArray<@Nullable Holder<K, V>> array = this.chunks.get(chunk);
+    if (array == null) {
+      final AtomicReferenceArray<@Nullable Holder<K, V>> created = new AtomicReferenceArray<>(FIRST_CHUNK_LENGTH << chunk);
+      array = this.chunks.compareAndExchange(chunk, null, created);
+      if (array == null) {
+        array = created;
+      }
+    }
+    array.set(offset(id, chunk), holder);
+    // Holders may be published out of order, so whichever thread publishes the last one missing carries the size past
+    // those after it. Every access is volatile, so of two threads publishing neighbouring ids, one sees the other's.
+    for (int published = this.published.get(); this.stored(published); published = this.published.get()) {
+      this.published.compareAndSet(published, published + 1);
+    }
+  }
+
+  private boolean stored(final int id) {
+    final int chunk = chunk(id);
+    final @Nullable AtomicReferenceArray<@Nullable Holder<K, V>> array = this.chunks.get(chunk);
+    return array != null && array.get(offset(id, chunk)) != null;
+  }
+
+  /**
+   * Gets a holder by its id.
+   *
+   * @param id the id
+   * @return the holder, or {@code null}
+   */
+  @Nullable Holder<K, V> get(final int id) {
+    if (id < 0 || id >= this.next.get()) {
+      return null;
+    }
+    final int chunk = chunk(id);
+    final @Nullable AtomicReferenceArray<@Nullable Holder<K, V>> array = this.chunks.get(chunk);
+    return array != null ? array.get(offset(id, chunk)) : null;
+  }
+
+  /**
+   * Gets the number of holders published so far, all of whose ids are below it - an id which has been reserved, but
+   * whose holder has not been published yet, is not counted, nor are any after it.
+   *
+   * @return the number of holders
+   */
+  int size() {
+    return this.published.get();
+  }
+
+  private static int chunk(final int id) {
+    // Chunk n holds ids [FIRST_CHUNK_LENGTH * (2^n - 1), FIRST_CHUNK_LENGTH * (2^(n + 1) - 1)).
+    return (Integer.SIZE - 1) - Integer.numberOfLeadingZeros((id >>> FIRST_CHUNK_BITS) + 1);
+  }
+
+  private static int offset(final int id, final int chunk) {
+    return id - ((FIRST_CHUNK_LENGTH << chunk) - FIRST_CHUNK_LENGTH);
+  }
+}
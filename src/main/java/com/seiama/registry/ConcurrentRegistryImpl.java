@@ -0,0 +1,143 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+@NullMarked
+final class ConcurrentRegistryImpl<K, V> implements Registry<K, V> {
+  private final ConcurrentMap<K, Holder<K, V>> keyToHolder;
+  private final ConcurrentIdTable<K, V> idToHolder = new ConcurrentIdTable<>();
+  private final Set<K> keys;
+  private final Collection<Holder<K, V>> holders = new HolderCollection<>(this, () -> HolderSpliterator.of(this.idToHolder, this.idToHolder.size()));
+  private final UnboundKeys<K, V> unbound = UnboundKeys.concurrent();
+  private final @Nullable ValueIndex<K, V> valueToHolder;
+  private final Tags<K, V> tags = new TagsImpl<>(this);
+
+  ConcurrentRegistryImpl() {
+    this(0, false);
+  }
+
+  ConcurrentRegistryImpl(final int expectedSize, final boolean reverseLookup) {
+    this.keyToHolder = new ConcurrentHashMap<>(expectedSize);
+    this.keys = Collections.unmodifiableSet(this.keyToHolder.keySet());
+    this.valueToHolder = reverseLookup ? new ValueIndex<>(true) : null;
+  }
+
+  @Override
+  public @Nullable Holder<K, V> getHolder(final K key) {
+    requireNonNull(key, "key");
+    return this.keyToHolder.get(key);
+  }
+
+  @Override
+  public @Nullable Holder<K, V> getHolderByValue(final V value) {
+    requireNonNull(value, "value");
+    return RegistryImpl.reverseLookup(this.valueToHolder).get(value);
+  }
+
+  @Override
+  public Holder<K, V> getOrCreateHolder(final K key) {
+    requireNonNull(key, "key");
+
+    @Nullable Holder<K, V> holder = this.keyToHolder.get(key);
+
+    if (holder == null) {
+      // Creation is funnelled through computeIfAbsent so that racing threads agree on a single
+      // holder, and no ids are handed out to holders which are then discarded.
+      holder = this.keyToHolder.computeIfAbsent(key, k -> {
+        final Holder<K, V> created = this.add(new Holders.Lazy<>(k, k.hashCode(), this.idToHolder.reserve()));
+        this.unbound.add(created);
+        return created;
+      });
+    }
+
+    return holder;
+  }
+
+  @Override
+  public Holder<K, V> register(final K key, final V value) {
+    requireNonNull(key, "key");
+    requireNonNull(value, "value");
+
+    @Nullable Holder<K, V> holder = this.keyToHolder.get(key);
+
+    if (holder == null) {
+      holder = this.keyToHolder.computeIfAbsent(key, k -> this.add(new Holders.Immediate<>(k, k.hashCode(), value, this.idToHolder.reserve())));
+    }
+
+    // Binding is atomic, so only one of any racing registrations can succeed - this is
+    // a no-op if the holder was created above, as it is already bound to our value.
+    RegistryImpl.bind(holder, value);
+
+    return holder;
+  }
+
+  private Holder<K, V> add(final Holder<K, V> holder) {
+    // Published before anything which may throw - the hash is computed before the id is reserved, too.
+    this.idToHolder.set(holder);
+    if (this.valueToHolder != null) {
+      this.valueToHolder.add(holder);
+    }
+    return holder;
+  }
+
+  @Override
+  public @Nullable Holder<K, V> byId(final int id) {
+    return this.idToHolder.get(id);
+  }
+
+  @Override
+  public Set<K> keys() {
+    return this.keys;
+  }
+
+  @Override
+  public int version() {
+    return this.idToHolder.size();
+  }
+
+  @Override
+  public Collection<Holder<K, V>> holders() {
+    return this.holders;
+  }
+
+  @Override
+  public Tags<K, V> tags() {
+    return this.tags;
+  }
+
+  @Override
+  public Set<K> unbound() {
+    return this.unbound;
+  }
+}
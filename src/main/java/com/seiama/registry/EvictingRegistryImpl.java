@@ -0,0 +1,489 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A registry which drops holders, either to stay within a maximum size or as the garbage collector clears them.
+ *
+ * <p>Holders are evicted by an approximation of W-TinyLFU: new holders enter a small LRU window, and a holder leaving
+ * the window is only admitted to the main LRU region - in place of its least recently used holder - if it has been
+ * used more often recently, according to a {@link FrequencySketch}. This keeps holders which are used often from being
+ * flushed out by a burst of holders which are used once.</p>
+ *
+ * <p>Dropping a holder only drops the registry's own reference to it. An evicted lazy holder with no value bound is
+ * remembered weakly, and is taken back - under its old id - should its key be looked up through {@link
+ * #getOrCreateHolder(Object)} or {@link #register(Object, Object)} while anything still references it, so that a lazy
+ * holder handed out before it was evicted is still bound by a later registration. A holder with a value bound keeps it,
+ * but a later registration creates a new holder. Ids are never reused.</p>
+ */
+@NullMarked
+final class EvictingRegistryImpl<K, V> implements Registry<K, V> {
+  static final int UNBOUNDED = Integer.MAX_VALUE;
+
+  private final Registry.Builder.References references;
+  private final boolean identityKeys;
+  private final @Nullable RegistryMetrics metrics;
+  private final Map<K, Node<K, V>> nodes;
+  private final TreeMap<Integer, Node<K, V>> idToNode = new TreeMap<>();
+  private final Map<K, Reference<Holder<K, V>>> evicted;
+  private final ReferenceQueue<Holder<K, V>> queue = new ReferenceQueue<>();
+  private final @Nullable FrequencySketch sketch;
+  private final AccessOrder<K, V> window = new AccessOrder<>();
+  private final AccessOrder<K, V> main = new AccessOrder<>();
+  private final int windowMaximum;
+  private final int mainMaximum;
+  private final Set<K> keys;
+  private final Set<K> unbound;
+  private final Set<Holder<K, V>> holders;
+  private @Nullable TagsImpl<K, V> tags;
+  private int nextId;
+
+  EvictingRegistryImpl(final int maximumSize, final Registry.Builder.References references, final boolean identityKeys, final @Nullable RegistryMetrics metrics) {
+    this.references = references;
+    this.identityKeys = identityKeys;
+    this.metrics = metrics;
+    this.nodes = identityKeys ? new IdentityHashMap<>() : new HashMap<>();
+    this.evicted = identityKeys ? new IdentityHashMap<>() : new HashMap<>();
+    if (maximumSize == UNBOUNDED) {
+      this.sketch = null;
+      this.windowMaximum = 0;
+      this.mainMaximum = 0;
+    } else {
+      this.sketch = new FrequencySketch(maximumSize);
+      this.windowMaximum = Math.max(1, maximumSize / 100);
+      this.mainMaximum = maximumSize - this.windowMaximum;
+    }
+    this.keys = new View<>(this.nodes.values(), holder -> true, Holder::key, key -> this.peek(key) != null);
+    this.unbound = new View<>(this.nodes.values(), Holders::unbound, Holder::key, key -> {
+      final @Nullable Holder<K, V> holder = this.peek(key);
+      return holder != null && Holders.unbound(holder);
+    });
+    this.holders = new View<>(this.idToNode.values(), holder -> true, Function.identity(), o -> {
+      if (o instanceof final Holder<?, ?> holder) {
+        final @Nullable Node<K, V> node = this.idToNode.get(holder.id());
+        return node != null && node.holder() == holder;
+      }
+      return false;
+    });
+  }
+
+  @Override
+  public @Nullable Holder<K, V> getHolder(final K key) {
+    requireNonNull(key, "key");
+    return this.access(this.nodes.get(key));
+  }
+
+  @Override
+  public @Nullable Holder<K, V> getHolderByValue(final V value) {
+    requireNonNull(value, "value");
+    throw new UnsupportedOperationException("Evicting registries do not support reverse lookup");
+  }
+
+  @Override
+  public Holder<K, V> getOrCreateHolder(final K key) {
+    requireNonNull(key, "key");
+    this.drain();
+    @Nullable Holder<K, V> holder = this.getHolder(key);
+    if (holder == null) {
+      holder = this.reclaim(key);
+      if (holder == null) {
+        holder = new Holders.Lazy<>(key, this.hash(key), this.nextId++);
+      }
+      this.add(holder);
+    }
+    return holder;
+  }
+
+  @Override
+  public Holder<K, V> register(final K key, final V value) {
+    requireNonNull(key, "key");
+    requireNonNull(value, "value");
+    this.drain();
+    @Nullable Holder<K, V> holder = this.getHolder(key);
+    if (holder == null) {
+      holder = this.reclaim(key);
+      if (holder == null) {
+        holder = new Holders.Immediate<>(key, this.hash(key), value, this.nextId++);
+        this.add(holder);
+        return holder;
+      }
+      this.add(holder);
+    }
+    RegistryImpl.bind(holder, value);
+    return holder;
+  }
+
+  private int hash(final K key) {
+    return this.identityKeys ? System.identityHashCode(key) : key.hashCode();
+  }
+
+  private @Nullable Holder<K, V> access(final @Nullable Node<K, V> node) {
+    if (node == null) {
+      return null;
+    }
+    final @Nullable Holder<K, V> holder = node.holder();
+    if (holder != null && this.sketch != null) {
+      this.sketch.increment(node.hash);
+      (node.main ? this.main : this.window).moveToTail(node);
+    }
+    return holder;
+  }
+
+  private @Nullable Holder<K, V> peek(final Object key) {
+    final @Nullable Node<K, V> node = this.nodes.get(key);
+    return node != null ? node.holder() : null;
+  }
+
+  private @Nullable Holder<K, V> reclaim(final K key) {
+    final @Nullable Reference<Holder<K, V>> reference = this.evicted.remove(key);
+    final @Nullable Holder<K, V> holder = reference != null ? reference.get() : null;
+    // Bound through another registry sharing it, such as a frozen one - it is no longer waiting for us.
+    return holder != null && !holder.bound() ? holder : null;
+  }
+
+  private void add(final Holder<K, V> holder) {
+    final Node<K, V> node = new Node<>(holder, this.hash(holder.key()), this.references, this.queue);
+    final @Nullable Node<K, V> cleared = this.nodes.put(node.key, node);
+    if (cleared != null) { // its holder was cleared, but has not been drained yet
+      this.detach(cleared);
+    }
+    this.idToNode.put(node.id, node);
+    if (this.sketch != null) {
+      this.sketch.increment(node.hash);
+      this.window.append(node);
+      this.evict();
+    }
+  }
+
+  private void evict() {
+    final FrequencySketch sketch = requireNonNull(this.sketch, "sketch");
+    while (this.window.size > this.windowMaximum) {
+      final Node<K, V> candidate = requireNonNull(this.window.head, "candidate");
+      if (this.main.size < this.mainMaximum) {
+        this.promote(candidate);
+        continue;
+      }
+      final @Nullable Node<K, V> victim = this.main.head;
+      if (victim != null && sketch.frequency(candidate.hash) > sketch.frequency(victim.hash)) {
+        this.evict(victim);
+        this.promote(candidate);
+      } else {
+        this.evict(candidate);
+      }
+    }
+  }
+
+  private void promote(final Node<K, V> node) {
+    this.window.unlink(node);
+    node.main = true;
+    this.main.append(node);
+  }
+
+  private void evict(final Node<K, V> node) {
+    this.nodes.remove(node.key);
+    this.detach(node);
+    final @Nullable Holder<K, V> holder = node.holder();
+    if (holder != null && !holder.bound()) {
+      this.evicted.put(node.key, new WeakHolder<>(node.key, holder, this.queue));
+    }
+    if (this.metrics != null) {
+      this.metrics.recordEviction();
+    }
+  }
+
+  private void detach(final Node<K, V> node) {
+    if (this.sketch != null) {
+      (node.main ? this.main : this.window).unlink(node);
+    }
+    this.idToNode.remove(node.id, node);
+    if (this.tags != null) {
+      this.tags.removeAll(node.id);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void drain() {
+    @Nullable Reference<? extends Holder<K, V>> reference;
+    while ((reference = this.queue.poll()) != null) {
+      final K key = ((KeyedReference<K>) reference).key();
+      if (!this.evicted.remove(key, reference)) {
+        final @Nullable Node<K, V> node = this.nodes.get(key);
+        if (node != null && node.reference == reference) {
+          this.nodes.remove(key);
+          this.detach(node);
+        }
+      }
+    }
+  }
+
+  @Override
+  public @Nullable Holder<K, V> byId(final int id) {
+    return this.access(this.idToNode.get(id));
+  }
+
+  @Override
+  public Set<K> keys() {
+    return this.keys;
+  }
+
+  @Override
+  public Collection<Holder<K, V>> holders() {
+    return this.holders;
+  }
+
+  @Override
+  public Tags<K, V> tags() {
+    if (this.tags == null) {
+      this.tags = new TagsImpl<>(this);
+    }
+    return this.tags;
+  }
+
+  @Override
+  public Set<K> unbound() {
+    return this.unbound;
+  }
+
+  @Override
+  public int version() {
+    return this.nextId;
+  }
+
+  @Override
+  public ByteBuffer writeDelta(final int since, final KeyCodec<K> codec) {
+    throw unsupported("deltas");
+  }
+
+  @Override
+  public void applyDelta(final ByteBuffer delta, final KeyCodec<K> codec) {
+    throw unsupported("deltas");
+  }
+
+  @Override
+  public long contentHash(final KeyCodec<K> codec) {
+    throw unsupported("content hashes");
+  }
+
+  @Override
+  public void writeSnapshot(final Path path, final KeyCodec<K> codec, final long fingerprint) throws IOException {
+    throw unsupported("snapshots");
+  }
+
+  private static UnsupportedOperationException unsupported(final String what) {
+    return new UnsupportedOperationException("Evicting registries leave gaps in their ids, and do not support " + what);
+  }
+
+  private interface KeyedReference<K> {
+    K key();
+  }
+
+  private static final class WeakHolder<K, V> extends WeakReference<Holder<K, V>> implements KeyedReference<K> {
+    private final K key;
+
+    WeakHolder(final K key, final Holder<K, V> holder, final ReferenceQueue<Holder<K, V>> queue) {
+      super(holder, queue);
+      this.key = key;
+    }
+
+    @Override
+    public K key() {
+      return this.key;
+    }
+  }
+
+  private static final class SoftHolder<K, V> extends SoftReference<Holder<K, V>> implements KeyedReference<K> {
+    private final K key;
+
+    SoftHolder(final K key, final Holder<K, V> holder, final ReferenceQueue<Holder<K, V>> queue) {
+      super(holder, queue);
+      this.key = key;
+    }
+
+    @Override
+    public K key() {
+      return this.key;
+    }
+  }
+
+  private static final class Node<K, V> {
+    final K key;
+    final int id;
+    final int hash;
+    private final @Nullable Holder<K, V> holder;
+    final @Nullable Reference<Holder<K, V>> reference;
+    @Nullable Node<K, V> previous;
+    @Nullable Node<K, V> next;
+    boolean main;
+
+    Node(final Holder<K, V> holder, final int hash, final Registry.Builder.References references, final ReferenceQueue<Holder<K, V>> queue) {
+      this.key = holder.key();
+      this.id = holder.id();
+      this.hash = hash;
+      this.holder = references == Registry.Builder.References.STRONG ? holder : null;
+      this.reference = switch (references) {
+        case STRONG -> null;
+        case SOFT -> new SoftHolder<>(this.key, holder, queue);
+        case WEAK -> new WeakHolder<>(this.key, holder, queue);
+      };
+    }
+
+    @Nullable Holder<K, V> holder() {
+      return this.reference != null ? this.reference.get() : this.holder;
+    }
+  }
+
+  /**
+   * A doubly-linked list of nodes, from least to most recently used.
+   */
+  private static final class AccessOrder<K, V> {
+    @Nullable Node<K, V> head;
+    @Nullable Node<K, V> tail;
+    int size;
+
+    void append(final Node<K, V> node) {
+      node.previous = this.tail;
+      node.next = null;
+      if (this.tail == null) {
+        this.head = node;
+      } else {
+        this.tail.next = node;
+      }
+      this.tail = node;
+      this.size++;
+    }
+
+    void unlink(final Node<K, V> node) {
+      if (node.previous == null) {
+        this.head = node.next;
+      } else {
+        node.previous.next = node.next;
+      }
+      if (node.next == null) {
+        this.tail = node.previous;
+      } else {
+        node.next.previous = node.previous;
+      }
+      node.previous = null;
+      node.next = null;
+      this.size--;
+    }
+
+    void moveToTail(final Node<K, V> node) {
+      if (this.tail != node) {
+        this.unlink(node);
+        this.append(node);
+      }
+    }
+  }
+
+  /**
+   * A view of the holders of some nodes which have not been cleared, mapped to elements.
+   */
+  private static final class View<K, V, E> extends AbstractSet<E> {
+    private final Collection<Node<K, V>> nodes;
+    private final Predicate<Holder<K, V>> filter;
+    private final Function<Holder<K, V>, E> mapper;
+    private final Predicate<Object> contains;
+
+    View(final Collection<Node<K, V>> nodes, final Predicate<Holder<K, V>> filter, final Function<Holder<K, V>, E> mapper, final Predicate<Object> contains) {
+      this.nodes = nodes;
+      this.filter = filter;
+      this.mapper = mapper;
+      this.contains = contains;
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+      return this.contains.test(o);
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+      final Iterator<Node<K, V>> it = this.nodes.iterator();
+      return new Iterator<>() {
+        private @Nullable E next = this.advance();
+
+        private @Nullable E advance() {
+          while (it.hasNext()) {
+            final @Nullable Holder<K, V> holder = it.next().holder();
+            if (holder != null && View.this.filter.test(holder)) {
+              return View.this.mapper.apply(holder);
+            }
+          }
+          return null;
+        }
+
+        @Override
+        public boolean hasNext() {
+          return this.next != null;
+        }
+
+        @Override
+        public E next() {
+          final @Nullable E next = this.next;
+          if (next == null) {
+            throw new NoSuchElementException();
+          }
+          this.next = this.advance();
+          return next;
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      int size = 0;
+      for (final Node<K, V> node : this.nodes) {
+        final @Nullable Holder<K, V> holder = node.holder();
+        if (holder != null && this.filter.test(holder)) {
+          size++;
+        }
+      }
+      return size;
+    }
+  }
+}
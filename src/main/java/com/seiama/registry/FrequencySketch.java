@@ -0,0 +1,118 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * An approximate count of how often each hash has been seen recently, used to decide which of two holders is more
+ * worth keeping.
+ *
+ * <p>This is a count-min sketch of four-bit counters, sixteen to a {@code long}: each hash is counted in four of them,
+ * and its frequency is the smallest of the four, so collisions can only overestimate it. Counters saturate at 15, and
+ * once ten times as many increments as the sketch is sized for have been made, every counter is halved - so that
+ * frequencies follow recent use rather than all use.</p>
+ */
+@NullMarked
+final class FrequencySketch {
+  private static final long[] SEEDS = {0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L};
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final long ONE_MASK = 0x1111111111111111L;
+
+  private final long[] table;
+  private final int sampleSize;
+  private int size;
+
+  FrequencySketch(final int expectedSize) {
+    final int capacity = Math.max(8, Integer.highestOneBit(Math.max(1, Math.min(expectedSize, 1 << 26)) - 1) << 1);
+    this.table = new long[capacity];
+    this.sampleSize = 10 * Math.min(expectedSize, Integer.MAX_VALUE / 10);
+  }
+
+  /**
+   * Gets the estimated number of times {@code hash} has been seen recently, up to 15.
+   *
+   * @param hash the hash
+   * @return the estimated frequency
+   */
+  int frequency(final int hash) {
+    final int spread = spread(hash);
+    final int start = (spread & 3) << 2;
+    int frequency = 15;
+    for (int i = 0; i < 4; i++) {
+      final int count = (int) (this.table[this.index(spread, i)] >>> ((start + i) << 2)) & 0xF;
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  /**
+   * Counts {@code hash} as seen once more.
+   *
+   * @param hash the hash
+   */
+  void increment(final int hash) {
+    final int spread = spread(hash);
+    final int start = (spread & 3) << 2;
+    boolean added = false;
+    for (int i = 0; i < 4; i++) {
+      added |= this.increment(this.index(spread, i), start + i);
+    }
+    if (added && ++this.size == this.sampleSize) {
+      this.reset();
+    }
+  }
+
+  private boolean increment(final int index, final int counter) {
+    final int offset = counter << 2;
+    final long mask = 0xFL << offset;
+    if ((this.table[index] & mask) != mask) {
+      this.table[index] += 1L << offset;
+      return true;
+    }
+    return false;
+  }
+
+  private void reset() {
+    // Halving a counter loses its low bit - keep track of how many are lost, so that the size stays accurate.
+    int odd = 0;
+    for (int i = 0; i < this.table.length; i++) {
+      odd += Long.bitCount(this.table[i] & ONE_MASK);
+      this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+    }
+    this.size = (this.size >>> 1) - (odd >>> 2);
+  }
+
+  private int index(final int spread, final int row) {
+    long hash = (spread + SEEDS[row]) * SEEDS[row];
+    hash += hash >>> 32;
+    return (int) hash & (this.table.length - 1);
+  }
+
+  private static int spread(int hash) {
+    hash = ((hash >>> 16) ^ hash) * 0x45D9F3B;
+    hash = ((hash >>> 16) ^ hash) * 0x45D9F3B;
+    return (hash >>> 16) ^ hash;
+  }
+}
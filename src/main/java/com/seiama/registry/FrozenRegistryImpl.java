@@ -0,0 +1,317 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A read-only registry backed by an open-addressed table which is built once, at freeze time.
+ *
+ * <p>Keys, their cached hashes and their holders live in parallel flat arrays, probed linearly. A lookup
+ * only calls {@link Object#equals(Object)} on keys whose cached hash matches.</p>
+ *
+ * <p>A {@linkplain Registry#seal() sealed} registry replaces each bound holder with a {@link Holders.Constant}. As
+ * those are records, which cannot cache anything, it keeps their optionals in another parallel array.</p>
+ */
+@NullMarked
+final class FrozenRegistryImpl<K, V> implements Registry<K, V> {
+  private static final int MIN_CAPACITY = 2;
+
+  private final @Nullable Object[] keys;
+  private final int[] hashes;
+  private final @Nullable Holder<K, V>[] holders;
+  private final @Nullable Optional<Holder<K, V>> @Nullable [] optionals;
+  private final @Nullable Holder<K, V>[] idToHolder;
+  private final @Nullable Holder<K, V>[] ordered;
+  private final int shift;
+  private final int size;
+  private final UnboundKeys<K, V> unbound = UnboundKeys.ordered();
+  private volatile @Nullable ValueIndex<K, V> valueToHolder;
+  private final TagsImpl<K, V> tags = new TagsImpl<>(this);
+  private @Nullable Set<K> keySet;
+  private final Collection<Holder<K, V>> holderView;
+
+  @SuppressWarnings("unchecked")
+  private FrozenRegistryImpl(final List<Holder<K, V>> holders, final int ids, final boolean sealed) {
+    final int size = holders.size();
+    // Keep the load factor at or below 0.5, so that probe sequences stay short.
+    final int capacity = Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, size) - 1) << 2);
+    this.keys = new Object[capacity];
+    this.hashes = new int[capacity];
+    this.holders = (Holder<K, V>[]) new Holder<?, ?>[capacity];
+    this.optionals = sealed ? (Optional<Holder<K, V>>[]) new Optional<?>[capacity] : null;
+    this.idToHolder = (Holder<K, V>[]) new Holder<?, ?>[ids];
+    this.shift = Integer.numberOfLeadingZeros(capacity) + 1;
+    this.size = size;
+    for (final Holder<K, V> holder : holders) {
+      this.insert(holder);
+    }
+    if (size == ids) {
+      this.ordered = this.idToHolder;
+    } else {
+      // Holders created in the source registry while it was being frozen leave gaps in the ids - skip over them.
+      this.ordered = (Holder<K, V>[]) new Holder<?, ?>[size];
+      int index = 0;
+      for (final @Nullable Holder<K, V> holder : this.idToHolder) {
+        if (holder != null) {
+          this.ordered[index++] = holder;
+        }
+      }
+    }
+    final @Nullable Holder<K, V>[] ordered = this.ordered;
+    this.holderView = new HolderCollection<>(this, () -> HolderSpliterator.of(ordered, ordered.length));
+  }
+
+  static <K, V> Registry<K, V> freeze(final Registry<K, V> registry) {
+    if (registry instanceof FrozenRegistryImpl<K, V>) {
+      return registry;
+    }
+    return copy(registry, false);
+  }
+
+  static <K, V> Registry<K, V> seal(final Registry<K, V> registry) {
+    if (registry instanceof final FrozenRegistryImpl<K, V> frozen && frozen.optionals != null) {
+      return registry;
+    }
+    return copy(registry, true);
+  }
+
+  private static <K, V> Registry<K, V> copy(final Registry<K, V> registry, final boolean sealed) {
+    // Collect the holders up front, so that the table can be sized exactly.
+    final List<Holder<K, V>> holders = new ArrayList<>(registry.keys().size());
+    int ids = 0;
+    for (final K key : registry.keys()) {
+      final @Nullable Holder<K, V> holder = registry.getHolder(key);
+      if (holder != null) { // may have been evicted since the keys were read
+        holders.add(sealed ? seal(holder) : holder);
+        ids = Math.max(ids, holder.id() + 1);
+      }
+    }
+    final FrozenRegistryImpl<K, V> frozen = new FrozenRegistryImpl<>(holders, ids, sealed);
+    for (final K key : registry.unbound()) {
+      final @Nullable Holder<K, V> holder = frozen.getHolder(key);
+      if (holder != null) { // may have been created after the holders were collected
+        frozen.unbound.add(holder);
+      }
+    }
+    frozen.tags.share(registry.tags());
+    return frozen;
+  }
+
+  private static <K, V> Holder<K, V> seal(final Holder<K, V> holder) {
+    // Deferred values are left to be computed on first use, as they would have been.
+    final @Nullable V value = Holders.deferred(holder) ? null : holder.value();
+    return value != null ? new Holders.Constant<>(holder, value) : holder;
+  }
+
+  private void insert(final Holder<K, V> holder) {
+    final K key = holder.key();
+    final int hash = key.hashCode();
+    final int mask = this.keys.length - 1;
+    int index = this.index(hash);
+    while (this.keys[index] != null) {
+      index = (index + 1) & mask;
+    }
+    this.keys[index] = key;
+    this.hashes[index] = hash;
+    this.holders[index] = holder;
+    if (this.optionals != null) {
+      this.optionals[index] = Holders.optional(holder);
+    }
+    this.idToHolder[holder.id()] = holder;
+  }
+
+  private int index(final int hash) {
+    // Fibonacci hashing spreads poor hash codes (such as those of small integers) across the whole table.
+    return (hash * 0x9E3779B9) >>> this.shift;
+  }
+
+  private int find(final K key) {
+    requireNonNull(key, "key");
+    final int hash = key.hashCode();
+    final int mask = this.keys.length - 1;
+    int index = this.index(hash);
+    @Nullable Object candidate;
+    while ((candidate = this.keys[index]) != null) {
+      if (this.hashes[index] == hash && (candidate == key || candidate.equals(key))) {
+        return index;
+      }
+      index = (index + 1) & mask;
+    }
+    return -1;
+  }
+
+  @Override
+  public @Nullable Holder<K, V> getHolder(final K key) {
+    final int index = this.find(key);
+    return index != -1 ? this.holders[index] : null;
+  }
+
+  @Override
+  @SuppressWarnings("checkstyle:MethodName")
+  public Optional<Holder<K, V>> getHolderOptionally(final K key) {
+    final int index = this.find(key);
+    if (index == -1) {
+      return Optional.empty();
+    }
+    return this.optionals != null ? this.optionals[index] : Holders.optional(this.holders[index]);
+  }
+
+  @Override
+  public @Nullable Holder<K, V> byId(final int id) {
+    return id >= 0 && id < this.idToHolder.length ? this.idToHolder[id] : null;
+  }
+
+  @Override
+  public @Nullable Holder<K, V> getHolderByValue(final V value) {
+    requireNonNull(value, "value");
+    @Nullable ValueIndex<K, V> index = this.valueToHolder;
+    if (index == null) {
+      synchronized (this) {
+        index = this.valueToHolder;
+        if (index == null) {
+          // Built on first use, so that frozen registries which are never searched by value do not pay for an index.
+          index = new ValueIndex<>(true);
+          for (final @Nullable Holder<K, V> holder : this.idToHolder) {
+            if (holder != null) {
+              index.add(holder);
+            }
+          }
+          this.valueToHolder = index;
+        }
+      }
+    }
+    return index.get(value);
+  }
+
+  @Override
+  public Holder<K, V> getOrCreateHolder(final K key) {
+    final @Nullable Holder<K, V> holder = this.getHolder(key);
+    if (holder == null) {
+      throw frozen(key);
+    }
+    return holder;
+  }
+
+  @Override
+  public Holder<K, V> register(final K key, final V value) {
+    requireNonNull(value, "value");
+    final @Nullable Holder<K, V> holder = this.getHolder(key);
+    if (holder == null) {
+      throw frozen(key);
+    }
+    // Lazy holders captured at freeze time may still be bound.
+    RegistryImpl.bind(holder, value);
+    return holder;
+  }
+
+  @Override
+  public void registerAll(final Map<? extends K, ? extends V> entries) {
+    // Reject unknown keys before anything is bound.
+    for (final K key : entries.keySet()) {
+      if (this.getHolder(key) == null) {
+        throw frozen(key);
+      }
+    }
+    Registry.super.registerAll(entries);
+  }
+
+  @Override
+  public Set<K> keys() {
+    if (this.keySet == null) {
+      this.keySet = new Keys();
+    }
+    return this.keySet;
+  }
+
+  @Override
+  public Collection<Holder<K, V>> holders() {
+    return this.holderView;
+  }
+
+  @Override
+  public Tags<K, V> tags() {
+    return this.tags;
+  }
+
+  @Override
+  public Set<K> unbound() {
+    return this.unbound;
+  }
+
+  @Override
+  public Registry<K, V> freeze() {
+    return this;
+  }
+
+  private static UnsupportedOperationException frozen(final Object key) {
+    return new UnsupportedOperationException("Registry is frozen, cannot add " + key);
+  }
+
+  private final class Keys extends AbstractSet<K> {
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean contains(final Object o) {
+      return o != null && FrozenRegistryImpl.this.getHolder((K) o) != null;
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+      // Walks the holders in id order, rather than the table, so keys come in the order they were added.
+      return new Iterator<>() {
+        private int index;
+
+        @Override
+        public boolean hasNext() {
+          return this.index < FrozenRegistryImpl.this.ordered.length;
+        }
+
+        @Override
+        public K next() {
+          if (!this.hasNext()) {
+            throw new NoSuchElementException();
+          }
+          return requireNonNull(FrozenRegistryImpl.this.ordered[this.index++], "holder").key();
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return FrozenRegistryImpl.this.size;
+    }
+  }
+}
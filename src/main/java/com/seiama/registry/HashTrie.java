@@ -0,0 +1,131 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.Arrays;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * An immutable hash array mapped trie of holders, by key.
+ *
+ * <p>Each node branches on five bits of a key's hash, and holds only the branches which are present - a bitmap tells
+ * which they are, and where they sit in the node's array. Adding a holder copies only the nodes on the path to it, and
+ * shares every other node with the trie it was added to, so that each version of a registry costs little more than
+ * the one before it. Holders whose hashes are equal in all 32 bits share a node, which is searched linearly.</p>
+ *
+ * <p>Holders are never removed or replaced, so only lookups and additions are supported.</p>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+@NullMarked
+final class HashTrie<K, V> {
+  private static final int BITS = 5;
+  private static final HashTrie<?, ?> EMPTY = new HashTrie<>(0, new Object[0]);
+
+  private final int bitmap;
+  private final Object[] slots;
+
+  private HashTrie(final int bitmap, final Object[] slots) {
+    this.bitmap = bitmap;
+    this.slots = slots;
+  }
+
+  @SuppressWarnings("unchecked")
+  static <K, V> HashTrie<K, V> empty() {
+    return (HashTrie<K, V>) EMPTY;
+  }
+
+  /**
+   * Gets the holder of {@code key}.
+   *
+   * @param key the key
+   * @param hash the hash of the key
+   * @return the holder, or {@code null}
+   */
+  @SuppressWarnings("unchecked")
+  Holders.@Nullable Entry<K, V> get(final Object key, final int hash) {
+    HashTrie<K, V> node = this;
+    for (int shift = 0; shift < Integer.SIZE; shift += BITS) {
+      final int bit = 1 << ((hash >>> shift) & 31);
+      if ((node.bitmap & bit) == 0) {
+        return null;
+      }
+      final Object slot = node.slots[Integer.bitCount(node.bitmap & (bit - 1))];
+      if (slot instanceof final HashTrie<?, ?> child) {
+        node = (HashTrie<K, V>) child;
+      } else {
+        final Holders.Entry<K, V> holder = (Holders.Entry<K, V>) slot;
+        return holder.hash() == hash && key.equals(holder.key()) ? holder : null;
+      }
+    }
+    for (final Object slot : node.slots) {
+      final Holders.Entry<K, V> holder = (Holders.Entry<K, V>) slot;
+      if (key.equals(holder.key())) {
+        return holder;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Creates a trie holding the holders of this one, and {@code holder} - whose key this must not already hold.
+   *
+   * @param holder the holder
+   * @return a trie
+   */
+  HashTrie<K, V> with(final Holders.Entry<K, V> holder) {
+    return this.with(holder, 0);
+  }
+
+  @SuppressWarnings("unchecked")
+  private HashTrie<K, V> with(final Holders.Entry<K, V> holder, final int shift) {
+    if (shift >= Integer.SIZE) {
+      final Object[] slots = Arrays.copyOf(this.slots, this.slots.length + 1);
+      slots[this.slots.length] = holder;
+      return new HashTrie<>(0, slots);
+    }
+    final int bit = 1 << ((holder.hash() >>> shift) & 31);
+    final int index = Integer.bitCount(this.bitmap & (bit - 1));
+    if ((this.bitmap & bit) == 0) {
+      final Object[] slots = new Object[this.slots.length + 1];
+      System.arraycopy(this.slots, 0, slots, 0, index);
+      slots[index] = holder;
+      System.arraycopy(this.slots, index, slots, index + 1, this.slots.length - index);
+      return new HashTrie<>(this.bitmap | bit, slots);
+    }
+    final Object slot = this.slots[index];
+    final HashTrie<K, V> child;
+    if (slot instanceof final HashTrie<?, ?> node) {
+      child = ((HashTrie<K, V>) node).with(holder, shift + BITS);
+    } else {
+      // Both holders share this branch, so they move down to a node of their own.
+      child = HashTrie.<K, V>empty().with((Holders.Entry<K, V>) slot, shift + BITS).with(holder, shift + BITS);
+    }
+    final Object[] slots = this.slots.clone();
+    slots[index] = child;
+    return new HashTrie<>(this.bitmap, slots);
+  }
+}
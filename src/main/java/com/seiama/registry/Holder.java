@@ -23,8 +23,12 @@
  */
 package com.seiama.registry;
 
+import java.time.Duration;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
 
@@ -36,7 +40,7 @@ import org.jspecify.annotations.Nullable;
  * @since 1.0.0
  */
 @NullMarked
-public sealed interface Holder<K, V> permits Holders.Immediate, Holders.Lazy {
+public sealed interface Holder<K, V> permits Holders.Entry, Holders.Constant, Holders.Encoded, IntHolder, LongHolder {
   /**
    * Gets the key.
    *
@@ -45,6 +49,18 @@ public sealed interface Holder<K, V> permits Holders.Immediate, Holders.Lazy {
    */
   K key();
 
+  /**
+   * Gets the id.
+   *
+   * <p>Ids are assigned by the registry which created this holder, at the time of creation. They are dense, starting
+   * at {@code 0} and increasing by one for each holder created, and never change once assigned.</p>
+   *
+   * @return the id
+   * @see Registry#byId(int)
+   * @since 1.0.0
+   */
+  int id();
+
   /**
    * Checks if this holder has a value associated.
    *
@@ -64,6 +80,8 @@ public sealed interface Holder<K, V> permits Holders.Immediate, Holders.Lazy {
   /**
    * Gets the value wrapped in an {@link Optional}.
    *
+   * <p>Holders created by a registry create the {@link Optional} once a value is bound, and reuse it after.</p>
+   *
    * @return the value wrapped in an {@link Optional}
    * @since 1.0.0
    */
@@ -86,6 +104,52 @@ public sealed interface Holder<K, V> permits Holders.Immediate, Holders.Lazy {
     return value;
   }
 
+  /**
+   * Runs {@code action} with the value once it is bound.
+   *
+   * <p>If a value is already bound, {@code action} runs immediately on the calling thread. Otherwise, it runs on the
+   * thread which binds the value, after the value has been bound, in the order actions were added. Should any action
+   * throw, the remaining actions still run, and the exception is rethrown to the caller binding the value.</p>
+   *
+   * @param action the action
+   * @since 1.0.0
+   */
+  void onBound(final Consumer<? super V> action);
+
+  /**
+   * Waits for a value to be bound, and gets it.
+   *
+   * <p>Returns immediately if a value is already bound. Otherwise, the calling thread parks until one is - without
+   * holding a monitor, so a virtual thread waiting here does not pin its carrier thread.</p>
+   *
+   * @return the value
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   * @since 1.0.0
+   */
+  V await() throws InterruptedException;
+
+  /**
+   * Waits up to {@code timeout} for a value to be bound, and gets it.
+   *
+   * @param timeout the longest to wait
+   * @return the value
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   * @throws TimeoutException if no value is bound before {@code timeout} elapses
+   * @see #await()
+   * @since 1.0.0
+   */
+  V await(final Duration timeout) throws InterruptedException, TimeoutException;
+
+  /**
+   * Gets a future which completes with the value once it is bound.
+   *
+   * <p>The future is already complete if a value is bound.</p>
+   *
+   * @return a future
+   * @since 1.0.0
+   */
+  CompletableFuture<V> asFuture();
+
   /**
    * Gets the type.
    *
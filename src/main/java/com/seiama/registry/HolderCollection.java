@@ -0,0 +1,74 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.AbstractCollection;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * A view of the holders of a registry, in order of their ids.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+@NullMarked
+final class HolderCollection<K, V> extends AbstractCollection<Holder<K, V>> {
+  private final Registry<K, V> registry;
+  private final Supplier<HolderSpliterator<K, V>> spliterators;
+
+  HolderCollection(final Registry<K, V> registry, final Supplier<HolderSpliterator<K, V>> spliterators) {
+    this.registry = registry;
+    this.spliterators = spliterators;
+  }
+
+  @Override
+  public boolean contains(final Object o) {
+    return o instanceof final Holder<?, ?> holder && this.registry.byId(holder.id()) == holder;
+  }
+
+  @Override
+  public Iterator<Holder<K, V>> iterator() {
+    return Spliterators.iterator(this.spliterator());
+  }
+
+  @Override
+  public Spliterator<Holder<K, V>> spliterator() {
+    return this.spliterators.get();
+  }
+
+  @Override
+  public void forEach(final Consumer<? super Holder<K, V>> action) {
+    this.spliterator().forEachRemaining(action);
+  }
+
+  @Override
+  public int size() {
+    return (int) this.spliterator().estimateSize();
+  }
+}
@@ -0,0 +1,199 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A spliterator over a range of holder ids.
+ *
+ * <p>Ids are dense, so a range of ids is also an exact count of holders: splitting halves the range, and both halves
+ * know their size. The range is fixed when the spliterator is created - holders created afterwards are not visited.</p>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+@NullMarked
+abstract class HolderSpliterator<K, V> implements Spliterator<Holder<K, V>> {
+  private static final int CHARACTERISTICS = ORDERED | DISTINCT | SIZED | SUBSIZED | NONNULL;
+
+  private int origin;
+  private final int fence;
+
+  HolderSpliterator(final int origin, final int fence) {
+    this.origin = origin;
+    this.fence = fence;
+  }
+
+  /**
+   * Creates a spliterator over the first {@code size} holders of an array indexed by id.
+   *
+   * @param holders the holders
+   * @param size the number of holders
+   * @param <K> the key type
+   * @param <V> the value type
+   * @return a spliterator
+   */
+  static <K, V> HolderSpliterator<K, V> of(final @Nullable Holder<K, V>[] holders, final int size) {
+    return new OfArray<>(holders, 0, size);
+  }
+
+  /**
+   * Creates a spliterator over the first {@code size} holders of a table.
+   *
+   * <p>Every id below {@code size} must have a holder published.</p>
+   *
+   * @param holders the holders
+   * @param size the number of holders
+   * @param <K> the key type
+   * @param <V> the value type
+   * @return a spliterator
+   */
+  static <K, V> HolderSpliterator<K, V> of(final ConcurrentIdTable<K, V> holders, final int size) {
+    return new OfTable<>(holders, 0, size);
+  }
+
+  /**
+   * Creates a spliterator over the first {@code size} holders of {@code registry}, looked up by id.
+   *
+   * <p>Every id below {@code size} must have a holder published.</p>
+   *
+   * @param registry the registry
+   * @param size the number of holders
+   * @param <K> the key type
+   * @param <V> the value type
+   * @return a spliterator
+   */
+  static <K, V> HolderSpliterator<K, V> of(final Registry<K, V> registry, final int size) {
+    return new OfRegistry<>(registry, 0, size);
+  }
+
+  abstract Holder<K, V> holder(final int id);
+
+  abstract HolderSpliterator<K, V> slice(final int origin, final int fence);
+
+  @Override
+  public boolean tryAdvance(final Consumer<? super Holder<K, V>> action) {
+    requireNonNull(action, "action");
+    if (this.origin < this.fence) {
+      action.accept(this.holder(this.origin++));
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public void forEachRemaining(final Consumer<? super Holder<K, V>> action) {
+    requireNonNull(action, "action");
+    final int fence = this.fence;
+    int id = this.origin;
+    this.origin = fence;
+    for (; id < fence; id++) {
+      action.accept(this.holder(id));
+    }
+  }
+
+  @Override
+  public @Nullable Spliterator<Holder<K, V>> trySplit() {
+    final int origin = this.origin;
+    final int middle = (origin + this.fence) >>> 1;
+    if (middle <= origin) {
+      return null;
+    }
+    this.origin = middle;
+    return this.slice(origin, middle);
+  }
+
+  @Override
+  public long estimateSize() {
+    return this.fence - this.origin;
+  }
+
+  @Override
+  public int characteristics() {
+    return CHARACTERISTICS;
+  }
+
+  private static final class OfArray<K, V> extends HolderSpliterator<K, V> {
+    private final @Nullable Holder<K, V>[] holders;
+
+    OfArray(final @Nullable Holder<K, V>[] holders, final int origin, final int fence) {
+      super(origin, fence);
+      this.holders = holders;
+    }
+
+    @Override
+    Holder<K, V> holder(final int id) {
+      return requireNonNull(this.holders[id], "holder");
+    }
+
+    @Override
+    HolderSpliterator<K, V> slice(final int origin, final int fence) {
+      return new OfArray<>(this.holders, origin, fence);
+    }
+  }
+
+  private static final class OfRegistry<K, V> extends HolderSpliterator<K, V> {
+    private final Registry<K, V> registry;
+
+    OfRegistry(final Registry<K, V> registry, final int origin, final int fence) {
+      super(origin, fence);
+      this.registry = registry;
+    }
+
+    @Override
+    Holder<K, V> holder(final int id) {
+      return requireNonNull(this.registry.byId(id), "holder");
+    }
+
+    @Override
+    HolderSpliterator<K, V> slice(final int origin, final int fence) {
+      return new OfRegistry<>(this.registry, origin, fence);
+    }
+  }
+
+  private static final class OfTable<K, V> extends HolderSpliterator<K, V> {
+    private final ConcurrentIdTable<K, V> holders;
+
+    OfTable(final ConcurrentIdTable<K, V> holders, final int origin, final int fence) {
+      super(origin, fence);
+      this.holders = holders;
+    }
+
+    @Override
+    Holder<K, V> holder(final int id) {
+      return requireNonNull(this.holders.get(id), "holder");
+    }
+
+    @Override
+    HolderSpliterator<K, V> slice(final int origin, final int fence) {
+      return new OfTable<>(this.holders, origin, fence);
+    }
+  }
+}
@@ -23,28 +23,198 @@
  */
 package com.seiama.registry;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
 
+import static java.util.Objects.requireNonNull;
+
 @NullMarked
 final class Holders {
   private Holders() {
   }
 
-  record Immediate<K, V>(
-    K key,
-    V value
-  ) implements Holder<K, V> {
+  /**
+   * Gets {@code holder} wrapped in an {@link Optional}, without allocating for holders created by a registry.
+   *
+   * @param holder the holder, or {@code null}
+   * @param <K> the key type
+   * @param <V> the value type
+   * @return the holder wrapped in an {@link Optional}
+   */
+  static <K, V> Optional<Holder<K, V>> optional(final @Nullable Holder<K, V> holder) {
+    if (holder == null) {
+      return Optional.empty();
+    }
+    if (holder instanceof final Entry<K, V> entry) {
+      return entry.asOptional();
+    }
+    if (holder instanceof final Encoded<?> encoded) {
+      @SuppressWarnings("unchecked")
+      final Optional<Holder<K, V>> optional = (Optional<Holder<K, V>>) (Optional<?>) encoded.asOptional();
+      return optional;
+    }
+    return Optional.of(holder);
+  }
+
+  /**
+   * Computes the {@linkplain Registry#registerDeferred(Object, Supplier) deferred} values of {@code holders}, each in a
+   * task of its own run by {@code executor}, and waits for them all.
+   *
+   * @param holders the holders
+   * @param executor the executor
+   * @throws IllegalStateException if any value could not be computed
+   */
+  static void initializeAll(final Iterable<? extends Holder<?, ?>> holders, final Executor executor) {
+    requireNonNull(executor, "executor");
+    final List<CompletableFuture<?>> tasks = new ArrayList<>();
+    for (final Holder<?, ?> holder : holders) {
+      if (deferred(holder)) {
+        tasks.add(CompletableFuture.runAsync(holder::value, executor));
+      }
+    }
+    @Nullable List<Throwable> failures = null;
+    for (final CompletableFuture<?> task : tasks) {
+      try {
+        task.join();
+      } catch (final CompletionException e) {
+        if (failures == null) {
+          failures = new ArrayList<>();
+        }
+        failures.add(e.getCause() != null ? e.getCause() : e);
+      }
+    }
+    if (failures != null) {
+      final IllegalStateException exception = new IllegalStateException(failures.size() + " of " + tasks.size() + " deferred values could not be computed");
+      failures.forEach(exception::addSuppressed);
+      throw exception;
+    }
+  }
+
+  /**
+   * Checks if {@code holder} is waiting for a value to be {@link Registry#register(Object, Object) registered} - that
+   * is, it neither has a value bound nor one {@linkplain Registry#registerDeferred(Object, Supplier) deferred}.
+   *
+   * @param holder the holder
+   * @return {@code true} if the holder is waiting for a value
+   */
+  static boolean unbound(final Holder<?, ?> holder) {
+    return !holder.bound() && !deferred(holder);
+  }
+
+  /**
+   * Checks if {@code holder} has a value {@linkplain Registry#registerDeferred(Object, Supplier) deferred}, which has
+   * not been computed yet.
+   *
+   * @param holder the holder
+   * @return {@code true} if the holder has a value deferred
+   */
+  static boolean deferred(final Holder<?, ?> holder) {
+    return holder instanceof final Lazy<?, ?> lazy && lazy.deferred != null;
+  }
+
+  /**
+   * Gets the value bound to {@code holder}, without computing one which has been
+   * {@linkplain Registry#registerDeferred(Object, Supplier) deferred}.
+   *
+   * @param holder the holder
+   * @param <V> the value type
+   * @return the value, or {@code null} if none is bound
+   */
+  @SuppressWarnings("unchecked")
+  static <V> @Nullable V peek(final Holder<?, V> holder) {
+    return holder instanceof final Bindable<?> bindable ? (V) bindable.peek() : holder.value();
+  }
+
+  /**
+   * A holder which doubles as an entry in the table of the registry which created it, holding the hash of its key
+   * so that the table never has to recompute it.
+   *
+   * @param <K> the key type
+   * @param <V> the value type
+   */
+  sealed interface Entry<K, V> extends Holder<K, V> permits Immediate, Lazy {
+    /**
+     * Gets the hash of the key, as computed by the registry which created this holder.
+     *
+     * @return the hash
+     */
+    int hash();
+
+    /**
+     * Gets this holder wrapped in an {@link Optional}, which is created once and then reused.
+     *
+     * @return this holder wrapped in an {@link Optional}
+     */
+    Optional<Holder<K, V>> asOptional();
+  }
+
+  static final class Immediate<K, V> implements Entry<K, V> {
+    private final K key;
+    private final V value;
+    private final int hash;
+    private final int id;
+    // Cached on first use. Optional is immutable, so these are safe to publish through a data race - at worst, racing
+    // threads each create one.
+    private @Nullable Optional<V> optional;
+    private @Nullable Optional<Holder<K, V>> self;
+
+    Immediate(final K key, final int hash, final V value, final int id) {
+      this.key = key;
+      this.hash = hash;
+      this.value = value;
+      this.id = id;
+    }
+
+    @Override
+    public K key() {
+      return this.key;
+    }
+
+    @Override
+    public int hash() {
+      return this.hash;
+    }
+
+    @Override
+    public int id() {
+      return this.id;
+    }
+
     @Override
     public boolean bound() {
       return true; // An immediate holder always has a value associated with it.
     }
 
+    @Override
+    public V value() {
+      return this.value;
+    }
+
     @Override
     public Optional<V> valueOptionally() {
-      return Optional.of(this.value);
+      @Nullable Optional<V> optional = this.optional;
+      if (optional == null) {
+        optional = Optional.of(this.value);
+        this.optional = optional;
+      }
+      return optional;
     }
 
     @Override
@@ -52,18 +222,567 @@ final class Holders {
       return this.value;
     }
 
+    @Override
+    public Optional<Holder<K, V>> asOptional() {
+      @Nullable Optional<Holder<K, V>> self = this.self;
+      if (self == null) {
+        self = Optional.of(this);
+        this.self = self;
+      }
+      return self;
+    }
+
+    @Override
+    public void onBound(final Consumer<? super V> action) {
+      action.accept(this.value);
+    }
+
+    @Override
+    public V await() {
+      return this.value;
+    }
+
+    @Override
+    public V await(final Duration timeout) {
+      return this.value;
+    }
+
+    @Override
+    public CompletableFuture<V> asFuture() {
+      return CompletableFuture.completedFuture(this.value);
+    }
+
     @Override
     public Type type() {
       return Type.IMMEDIATE;
     }
+
+    @Override
+    public String toString() {
+      return new StringJoiner(", ", this.getClass().getSimpleName() + "[", "]")
+        .add("key=" + this.key)
+        .add("value=" + this.value)
+        .add("id=" + this.id)
+        .toString();
+    }
+  }
+
+  /**
+   * A holder of a {@linkplain Registry#seal() sealed} registry, whose value can never change.
+   *
+   * <p>Being a record, its fields are trusted by the JIT compiler to be truly final, which those of other classes are
+   * not. So where the holder itself is a constant - such as the value of a {@code static final} field - so is its
+   * value, and reading it folds away entirely.</p>
+   *
+   * @param key the key
+   * @param value the value
+   * @param id the id
+   * @param type the type of the holder this replaced
+   * @param valueOptionally the value wrapped in an {@link Optional}
+   * @param <K> the key type
+   * @param <V> the value type
+   */
+  record Constant<K, V>(K key, V value, int id, Holder.Type type, Optional<V> valueOptionally) implements Holder<K, V> {
+    Constant(final Holder<K, V> holder, final V value) {
+      this(holder.key(), value, holder.id(), holder.type(), Optional.of(value));
+    }
+
+    @Override
+    public boolean bound() {
+      return true;
+    }
+
+    @Override
+    public V valueOrThrow() {
+      return this.value;
+    }
+
+    @Override
+    public void onBound(final Consumer<? super V> action) {
+      action.accept(this.value);
+    }
+
+    @Override
+    public V await() {
+      return this.value;
+    }
+
+    @Override
+    public V await(final Duration timeout) {
+      return this.value;
+    }
+
+    @Override
+    public CompletableFuture<V> asFuture() {
+      return CompletableFuture.completedFuture(this.value);
+    }
+
+    // Holders are equal only to themselves, like those of every other type.
+    @Override
+    public boolean equals(final @Nullable Object other) {
+      return this == other;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(this);
+    }
+
+    @Override
+    public String toString() {
+      return new StringJoiner(", ", this.getClass().getSimpleName() + "[", "]")
+        .add("key=" + this.key)
+        .add("value=" + this.value)
+        .add("id=" + this.id)
+        .toString();
+    }
   }
 
-  static final class Lazy<K, V> implements Holder<K, V> {
+  /**
+   * The state shared by holders whose value may be bound after creation.
+   *
+   * <p>A single field holds either nothing, a stack of {@link Waiter waiters}, or the bound value - so a holder which
+   * nobody waits on costs no more than one which can never have waiters.</p>
+   *
+   * @param <V> the value type
+   */
+  abstract static class Bindable<V> {
+    private static final VarHandle STATE;
+
+    static {
+      try {
+        STATE = MethodHandles.lookup().findVarHandle(Bindable.class, "state", Object.class);
+      } catch (final ReflectiveOperationException e) {
+        throw new ExceptionInInitializerError(e);
+      }
+    }
+
+    // Volatile so that a bound value is safely published to threads other than the one which bound it.
+    private volatile @Nullable Object state;
+    // Cached once a value is bound. Optional is immutable, so this is safe to publish through a data race.
+    private @Nullable Optional<V> optional;
+
+    Bindable(final @Nullable V value) {
+      this.state = value;
+    }
+
+    public final boolean bound() {
+      return isValue(this.state);
+    }
+
+    @SuppressWarnings("unchecked")
+    public final @Nullable V value() {
+      final @Nullable Object state = this.state;
+      return isValue(state) ? (V) state : this.initialize();
+    }
+
+    /**
+     * Gets the value, without computing one which has been deferred.
+     *
+     * @return the value, or {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    final @Nullable V peek() {
+      final @Nullable Object state = this.state;
+      return isValue(state) ? (V) state : null;
+    }
+
+    /**
+     * Computes a value which has been deferred, if there is one.
+     *
+     * @return the value, or {@code null} if none has been deferred
+     */
+    @Nullable V initialize() {
+      return null;
+    }
+
+    /**
+     * Checks if a value has been deferred, and not computed yet.
+     *
+     * @return {@code true} if a value has been deferred
+     */
+    boolean hasDeferred() {
+      return false;
+    }
+
+    /**
+     * Adds a resolution to run once a value is bound or deferred - or right away, should one already be.
+     *
+     * @param resolution the resolution
+     */
+    final void onResolved(final Resolution resolution) {
+      // Should a value be deferred as we push, either we see it here or the deferral sees us on the stack.
+      if (!this.push(resolution) || this.hasDeferred()) {
+        resolution.resolved();
+      }
+    }
+
+    /**
+     * Runs every resolution waiting, as a value has just been deferred.
+     */
+    final void resolveDeferred() {
+      final @Nullable Object state = this.state;
+      for (@Nullable Waiter waiter = state instanceof final Waiter top ? top : null; waiter != null; waiter = waiter.next) {
+        if (waiter.action instanceof final Resolution resolution) {
+          resolution.resolved();
+        }
+      }
+    }
+
+    public final Optional<V> valueOptionally() {
+      @Nullable Optional<V> optional = this.optional;
+      if (optional == null) {
+        final @Nullable V value = this.value();
+        if (value == null) {
+          return Optional.empty();
+        }
+        optional = Optional.of(value);
+        this.optional = optional;
+      }
+      return optional;
+    }
+
+    /**
+     * Attempts to bind {@code value}.
+     *
+     * @param value the value
+     * @return {@code null} if {@code value} was bound, otherwise the value which was already bound
+     */
+    @SuppressWarnings("unchecked")
+    final @Nullable V bind(final V value) {
+      @Nullable Object state = this.state;
+      while (!isValue(state)) {
+        final @Nullable Object witness = STATE.compareAndExchange(this, state, value);
+        if (witness == state) {
+          if (state != null) {
+            ((Waiter) state).run(value);
+          }
+          return null;
+        }
+        state = witness;
+      }
+      // Only the first bind may succeed - everyone else is handed the value that won.
+      return (V) state;
+    }
+
+    @SuppressWarnings("unchecked")
+    public final void onBound(final Consumer<? super V> action) {
+      if (!this.push((Consumer<Object>) action)) {
+        action.accept((V) this.state);
+      }
+    }
+
+    /**
+     * Pushes {@code action} onto the stack of waiters, unless a value is already bound.
+     *
+     * @param action the action
+     * @return {@code true} if pushed, {@code false} if a value is bound
+     */
+    private boolean push(final Consumer<Object> action) {
+      @Nullable Object state = this.state;
+      while (!isValue(state)) {
+        final Waiter waiter = new Waiter(action, (Waiter) state);
+        final @Nullable Object witness = STATE.compareAndExchange(this, state, waiter);
+        if (witness == state) {
+          return true;
+        }
+        state = witness;
+      }
+      return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    public final V await() throws InterruptedException {
+      final @Nullable V value = this.value();
+      if (value != null) {
+        return value;
+      }
+      @Nullable Object state;
+      final Wakeup wakeup = new Wakeup(Thread.currentThread());
+      this.push(wakeup);
+      while (!isValue(state = this.state)) {
+        if (Thread.interrupted()) {
+          this.cancel(wakeup);
+          throw new InterruptedException();
+        }
+        LockSupport.park(this);
+      }
+      return (V) state;
+    }
+
+    @SuppressWarnings("unchecked")
+    public final V await(final Duration timeout) throws InterruptedException, TimeoutException {
+      final @Nullable V value = this.value();
+      if (value != null) {
+        return value;
+      }
+      @Nullable Object state;
+      final long deadline = System.nanoTime() + timeout.toNanos();
+      final Wakeup wakeup = new Wakeup(Thread.currentThread());
+      this.push(wakeup);
+      while (!isValue(state = this.state)) {
+        if (Thread.interrupted()) {
+          this.cancel(wakeup);
+          throw new InterruptedException();
+        }
+        final long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          this.cancel(wakeup);
+          throw new TimeoutException("Timed out waiting for a value to be bound to " + this);
+        }
+        LockSupport.parkNanos(this, remaining);
+      }
+      return (V) state;
+    }
+
+    /**
+     * Cancels {@code wakeup}, and unlinks every cancelled waiter from the stack - so that threads which give up waiting
+     * again and again do not grow it without bound.
+     *
+     * @param wakeup the wakeup
+     */
+    private void cancel(final Wakeup wakeup) {
+      wakeup.thread = null;
+      @Nullable Object state = this.state;
+      while (state instanceof final Waiter waiter) {
+        final @Nullable Waiter compacted = waiter.compact();
+        if (compacted == waiter) {
+          return;
+        }
+        final @Nullable Object witness = STATE.compareAndExchange(this, state, compacted);
+        if (witness == state) {
+          return;
+        }
+        state = witness;
+      }
+    }
+
+    public final CompletableFuture<V> asFuture() {
+      final @Nullable V value = this.value();
+      if (value != null) {
+        return CompletableFuture.completedFuture(value);
+      }
+      final CompletableFuture<V> future = new CompletableFuture<>();
+      this.onBound(future::complete);
+      return future;
+    }
+
+    private static boolean isValue(final @Nullable Object state) {
+      return state != null && !(state instanceof Waiter);
+    }
+  }
+
+  /**
+   * An action run once a holder has a value bound or deferred, whichever comes first.
+   *
+   * <p>A resolution may run more than once - as a value is deferred, and again as it is computed and bound - so must be
+   * idempotent.</p>
+   */
+  abstract static class Resolution implements Consumer<Object> {
+    abstract void resolved();
+
+    @Override
+    public final void accept(final Object value) {
+      this.resolved();
+    }
+  }
+
+  /**
+   * Wakes a thread awaiting a value, unless it has given up.
+   *
+   * <p>Parking rather than waiting on a monitor means virtual threads never pin their carrier.</p>
+   */
+  private static final class Wakeup implements Consumer<Object> {
+    // Cleared once the thread gives up - shared by every copy of the waiter holding us, so all see it.
+    volatile @Nullable Thread thread;
+
+    Wakeup(final Thread thread) {
+      this.thread = thread;
+    }
+
+    @Override
+    public void accept(final Object value) {
+      final @Nullable Thread thread = this.thread;
+      if (thread != null) {
+        LockSupport.unpark(thread);
+      }
+    }
+  }
+
+  /**
+   * An action waiting for a value to be bound, and the actions which were waiting before it.
+   */
+  private static final class Waiter {
+    private final Consumer<Object> action;
+    private final @Nullable Waiter next;
+
+    Waiter(final Consumer<Object> action, final @Nullable Waiter next) {
+      this.action = action;
+      this.next = next;
+    }
+
+    private boolean cancelled() {
+      return this.action instanceof final Wakeup wakeup && wakeup.thread == null;
+    }
+
+    /**
+     * Gets this stack without its cancelled waiters - those below the last cancelled one are shared, and those above
+     * it copied, as waiters are immutable.
+     *
+     * @return the stack, or {@code null} if every waiter was cancelled
+     */
+    @Nullable Waiter compact() {
+      @Nullable Waiter shared = this;
+      for (@Nullable Waiter waiter = this; waiter != null; waiter = waiter.next) {
+        if (waiter.cancelled()) {
+          shared = waiter.next;
+        }
+      }
+      if (shared == this) {
+        return this;
+      }
+      final List<Waiter> copied = new ArrayList<>();
+      for (@Nullable Waiter waiter = this; waiter != null && waiter != shared; waiter = waiter.next) {
+        if (!waiter.cancelled()) {
+          copied.add(waiter);
+        }
+      }
+      @Nullable Waiter compacted = shared;
+      for (int i = copied.size() - 1; i >= 0; i--) {
+        compacted = new Waiter(copied.get(i).action, compacted);
+      }
+      return compacted;
+    }
+
+    void run(final Object value) {
+      // Waiters are pushed onto a stack - reverse it, so that actions run in the order they were added.
+      @Nullable Waiter reversed = null;
+      for (@Nullable Waiter waiter = this; waiter != null; waiter = waiter.next) {
+        reversed = new Waiter(waiter.action, reversed);
+      }
+      @Nullable RuntimeException exception = null;
+      for (@Nullable Waiter waiter = reversed; waiter != null; waiter = waiter.next) {
+        try {
+          waiter.action.accept(value);
+        } catch (final RuntimeException e) {
+          // Every action gets to run - the first failure is rethrown once they all have.
+          if (exception == null) {
+            exception = e;
+          } else {
+            exception.addSuppressed(e);
+          }
+        }
+      }
+      if (exception != null) {
+        throw exception;
+      }
+    }
+  }
+
+  /**
+   * A value to be computed on first access, by whichever thread gets there first - others wait for it.
+   *
+   * <p>Suppliers may access the values of other deferred holders, which are then computed first, on the same thread,
+   * unless another thread is already computing them. Should threads come to wait on each other - or a supplier on
+   * itself - the values depend on each other, and cannot be computed: whichever thread finds this fails, rather than
+   * waiting forever.</p>
+   *
+   * @param <V> the value type
+   */
+  static final class Deferred<V> {
+    // The deferred value each thread is waiting to be computed by another, so that circular waits can be found.
+    private static final Map<Thread, Deferred<?>> WAITING = new ConcurrentHashMap<>();
+
+    private final Supplier<? extends V> supplier;
+    // Not a monitor, so that virtual threads computing values never pin their carrier.
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile @Nullable Thread owner;
+
+    Deferred(final Supplier<? extends V> supplier) {
+      this.supplier = supplier;
+    }
+
+    V compute(final Lazy<?, V> holder) {
+      final Thread thread = Thread.currentThread();
+      if (this.owner == thread) {
+        throw circular(holder);
+      }
+      if (!this.lock.tryLock()) {
+        WAITING.put(thread, this);
+        try {
+          if (this.awaitedBy(thread)) {
+            throw circular(holder);
+          }
+          this.lock.lock();
+        } finally {
+          WAITING.remove(thread);
+        }
+      }
+      try {
+        final @Nullable V bound = holder.peek();
+        if (bound != null) { // computed while we waited
+          return bound;
+        }
+        this.owner = thread;
+        final V value;
+        try {
+          value = requireNonNull(this.supplier.get(), "value");
+        } finally {
+          this.owner = null;
+        }
+        final @Nullable V winner = holder.bind(value);
+        holder.deferred = null;
+        return winner != null ? winner : value;
+      } finally {
+        this.lock.unlock();
+      }
+    }
+
+    private boolean awaitedBy(final Thread thread) {
+      // Follow each owner to the value it is waiting for in turn - if that leads back to us, nobody can proceed. A
+      // chain can be no longer than the number of threads waiting, however it changes as we follow it.
+      @Nullable Deferred<?> deferred = this;
+      for (int i = WAITING.size(); deferred != null && i >= 0; i--) {
+        final @Nullable Thread owner = deferred.owner;
+        if (owner == null) {
+          return false;
+        }
+        if (owner == thread) {
+          return true;
+        }
+        deferred = WAITING.get(owner);
+      }
+      return false;
+    }
+
+    private static IllegalStateException circular(final Lazy<?, ?> holder) {
+      return new IllegalStateException("The deferred value of " + holder.key() + " depends on itself");
+    }
+  }
+
+  static final class Lazy<K, V> extends Bindable<V> implements Entry<K, V> {
+    private static final VarHandle DEFERRED;
+
+    static {
+      try {
+        DEFERRED = MethodHandles.lookup().findVarHandle(Lazy.class, "deferred", Deferred.class);
+      } catch (final ReflectiveOperationException e) {
+        throw new ExceptionInInitializerError(e);
+      }
+    }
+
     private final K key;
-    private @Nullable V value;
+    private final int hash;
+    private final int id;
+    private @Nullable Optional<Holder<K, V>> self;
+    // Cleared once the value has been computed, so that the supplier can be collected.
+    private volatile @Nullable Deferred<V> deferred;
 
-    Lazy(final K key) {
+    Lazy(final K key, final int hash, final int id) {
+      super(null);
       this.key = key;
+      this.hash = hash;
+      this.id = id;
     }
 
     @Override
@@ -71,23 +790,24 @@ final class Holders {
       return this.key;
     }
 
-    @Nullable V bind(final V value) {
-      if (this.value == null) {
-        this.value = value;
-        return null;
-      } else {
-        return this.value;
-      }
+    @Override
+    public int hash() {
+      return this.hash;
     }
 
     @Override
-    public boolean bound() {
-      return this.value != null;
+    public Optional<Holder<K, V>> asOptional() {
+      @Nullable Optional<Holder<K, V>> self = this.self;
+      if (self == null) {
+        self = Optional.of(this);
+        this.self = self;
+      }
+      return self;
     }
 
     @Override
-    public @Nullable V value() {
-      return this.value;
+    public int id() {
+      return this.id;
     }
 
     @Override
@@ -95,11 +815,171 @@ final class Holders {
       return Type.LAZY;
     }
 
+    /**
+     * Defers the value of this holder to {@code supplier}, to be computed on first access.
+     *
+     * @param supplier the supplier of the value
+     * @throws IllegalStateException if a value has already been bound or deferred
+     */
+    void defer(final Supplier<? extends V> supplier) {
+      final @Nullable V value = this.peek();
+      if (value != null) {
+        throw new IllegalStateException(this.key + " is already bound to " + value + ", cannot defer a value");
+      }
+      if (!DEFERRED.compareAndSet(this, null, new Deferred<V>(supplier))) {
+        throw new IllegalStateException(this.key + " already has a value deferred");
+      }
+      this.resolveDeferred();
+    }
+
+    @Override
+    boolean hasDeferred() {
+      return this.deferred != null;
+    }
+
+    @Override
+    @Nullable V initialize() {
+      final @Nullable Deferred<V> deferred = this.deferred;
+      // The value may have been computed, and the supplier cleared, since our caller looked.
+      return deferred != null ? deferred.compute(this) : this.peek();
+    }
+
     @Override
     public String toString() {
       return new StringJoiner(", ", this.getClass().getSimpleName() + "[", "]")
         .add("key=" + this.key)
-        .add("value=" + this.value)
+        .add("value=" + this.peek())
+        .add("id=" + this.id)
+        .toString();
+    }
+  }
+
+  /**
+   * A holder of an {@linkplain StringRegistry#createOffHeap() off-heap} registry, which does not keep its key - it is
+   * decoded from the registry's {@linkplain OffHeapKeys keys} whenever it is asked for.
+   *
+   * @param <V> the value type
+   */
+  static final class Encoded<V> extends Bindable<V> implements Holder<String, V> {
+    private final OffHeapKeys keys;
+    private final int id;
+    private final Type type;
+    private @Nullable Optional<Holder<String, V>> self;
+
+    Encoded(final OffHeapKeys keys, final int id, final @Nullable V value) {
+      super(value);
+      this.keys = keys;
+      this.id = id;
+      // A holder created with a value is immediate, otherwise it is waiting for one to be bound.
+      this.type = value != null ? Type.IMMEDIATE : Type.LAZY;
+    }
+
+    @Override
+    public String key() {
+      return this.keys.get(this.id);
+    }
+
+    @Override
+    public int id() {
+      return this.id;
+    }
+
+    @Override
+    public Type type() {
+      return this.type;
+    }
+
+    Optional<Holder<String, V>> asOptional() {
+      @Nullable Optional<Holder<String, V>> self = this.self;
+      if (self == null) {
+        self = Optional.of(this);
+        this.self = self;
+      }
+      return self;
+    }
+
+    @Override
+    public String toString() {
+      return new StringJoiner(", ", this.getClass().getSimpleName() + "[", "]")
+        .add("key=" + this.key())
+        .add("value=" + this.value())
+        .add("id=" + this.id)
+        .toString();
+    }
+  }
+
+  static final class IntKeyed<V> extends Bindable<V> implements IntHolder<V> {
+    private final int key;
+    private final int id;
+    private final Type type;
+
+    IntKeyed(final int key, final int id, final @Nullable V value) {
+      super(value);
+      this.key = key;
+      this.id = id;
+      // A holder created with a value is immediate, otherwise it is waiting for one to be bound.
+      this.type = value != null ? Type.IMMEDIATE : Type.LAZY;
+    }
+
+    @Override
+    public int intKey() {
+      return this.key;
+    }
+
+    @Override
+    public int id() {
+      return this.id;
+    }
+
+    @Override
+    public Type type() {
+      return this.type;
+    }
+
+    @Override
+    public String toString() {
+      return new StringJoiner(", ", this.getClass().getSimpleName() + "[", "]")
+        .add("key=" + this.key)
+        .add("value=" + this.value())
+        .add("id=" + this.id)
+        .toString();
+    }
+  }
+
+  static final class LongKeyed<V> extends Bindable<V> implements LongHolder<V> {
+    private final long key;
+    private final int id;
+    private final Type type;
+
+    LongKeyed(final long key, final int id, final @Nullable V value) {
+      super(value);
+      this.key = key;
+      this.id = id;
+      // A holder created with a value is immediate, otherwise it is waiting for one to be bound.
+      this.type = value != null ? Type.IMMEDIATE : Type.LAZY;
+    }
+
+    @Override
+    public long longKey() {
+      return this.key;
+    }
+
+    @Override
+    public int id() {
+      return this.id;
+    }
+
+    @Override
+    public Type type() {
+      return this.type;
+    }
+
+    @Override
+    public String toString() {
+      return new StringJoiner(", ", this.getClass().getSimpleName() + "[", "]")
+        .add("key=" + this.key)
+        .add("value=" + this.value())
+        .add("id=" + this.id)
         .toString();
     }
   }
@@ -0,0 +1,202 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A registry which records {@link RegistryMetrics metrics} and JFR events as it delegates to another.
+ *
+ * <p>Registries are only wrapped in this when built with metrics, so those built without pay nothing for it. JFR
+ * events cost a single check when no recording has them enabled, and none at all when {@code jdk.jfr} is absent.</p>
+ */
+@NullMarked
+final class InstrumentedRegistry<K, V> implements Registry<K, V> {
+  private final Registry<K, V> delegate;
+  private final RegistryMetrics metrics;
+
+  InstrumentedRegistry(final Registry<K, V> delegate, final RegistryMetrics metrics) {
+    this.delegate = delegate;
+    this.metrics = metrics;
+  }
+
+  private void lookup(final @Nullable Holder<K, V> holder) {
+    if (holder != null) {
+      this.metrics.recordHit();
+    } else {
+      this.metrics.recordMiss();
+    }
+  }
+
+  @Override
+  public @Nullable Holder<K, V> getHolder(final K key) {
+    final @Nullable Holder<K, V> holder = this.delegate.getHolder(key);
+    this.lookup(holder);
+    return holder;
+  }
+
+  @Override
+  public @Nullable Holder<K, V> getHolderByValue(final V value) {
+    final @Nullable Holder<K, V> holder = this.delegate.getHolderByValue(value);
+    this.lookup(holder);
+    return holder;
+  }
+
+  @Override
+  public Holder<K, V> getOrCreateHolder(final K key) {
+    // Every new holder takes the next id, so one at or past the version read beforehand was just created.
+    final int version = this.delegate.version();
+    final Holder<K, V> holder = this.delegate.getOrCreateHolder(key);
+    if (holder.id() < version) {
+      this.metrics.recordHit();
+    } else {
+      this.metrics.recordMiss();
+      this.metrics.recordLazyCreation();
+    }
+    return holder;
+  }
+
+  @Override
+  public Holder<K, V> register(final K key, final V value) {
+    final @Nullable Object event = RegistryEvents.ENABLED ? RegistryEvents.beginRegistration() : null;
+    final Holder<K, V> holder;
+    try {
+      holder = this.delegate.register(key, value);
+    } catch (final IllegalStateException e) {
+      // An action run as the value was bound may have thrown - that is not a conflict. A deferred value is not
+      // computed to tell, as its supplier may be slow or have effects of its own.
+      final @Nullable Holder<K, V> existing = this.delegate.getHolder(key);
+      if (existing != null && (Holders.deferred(existing) || existing.value() != value)) {
+        this.conflict(e);
+      }
+      throw e;
+    }
+    this.metrics.recordBinds(1);
+    if (event != null) {
+      RegistryEvents.endRegistration(event, key);
+    }
+    return holder;
+  }
+
+  @Override
+  public void registerAll(final Map<? extends K, ? extends V> entries) {
+    final @Nullable Object event = RegistryEvents.ENABLED ? RegistryEvents.beginBulkRegistration() : null;
+    int conflicts = 0;
+    try {
+      this.delegate.registerAll(entries);
+    } catch (final IllegalStateException e) {
+      final Throwable[] suppressed = e.getSuppressed();
+      if (suppressed.length == 0) {
+        this.conflict(e);
+      } else {
+        for (final Throwable conflict : suppressed) {
+          this.conflict(conflict);
+        }
+      }
+      conflicts = Math.max(1, suppressed.length);
+      throw e;
+    } finally {
+      if (event != null) {
+        RegistryEvents.endBulkRegistration(event, entries.size(), conflicts);
+      }
+    }
+    this.metrics.recordBinds(entries.size());
+  }
+
+  private void conflict(final Throwable exception) {
+    this.metrics.recordConflict();
+    if (RegistryEvents.ENABLED) {
+      RegistryEvents.conflict(exception.getMessage());
+    }
+  }
+
+  @Override
+  public @Nullable Holder<K, V> byId(final int id) {
+    final @Nullable Holder<K, V> holder = this.delegate.byId(id);
+    this.lookup(holder);
+    return holder;
+  }
+
+  @Override
+  public Set<K> keys() {
+    return this.delegate.keys();
+  }
+
+  @Override
+  public Collection<Holder<K, V>> holders() {
+    return this.delegate.holders();
+  }
+
+  @Override
+  public int version() {
+    return this.delegate.version();
+  }
+
+  @Override
+  public ByteBuffer writeDelta(final int since, final KeyCodec<K> codec) {
+    return this.delegate.writeDelta(since, codec);
+  }
+
+  @Override
+  public long contentHash(final KeyCodec<K> codec) {
+    return this.delegate.contentHash(codec);
+  }
+
+  @Override
+  public void writeSnapshot(final Path path, final KeyCodec<K> codec, final long fingerprint) throws IOException {
+    this.delegate.writeSnapshot(path, codec, fingerprint);
+  }
+
+  @Override
+  public Tags<K, V> tags() {
+    return this.delegate.tags();
+  }
+
+  @Override
+  public Set<K> unbound() {
+    return this.delegate.unbound();
+  }
+
+  @Override
+  public Registry<K, V> freeze() {
+    return new InstrumentedRegistry<>(this.delegate.freeze(), this.metrics);
+  }
+
+  @Override
+  public Registry<K, V> seal() {
+    return new InstrumentedRegistry<>(this.delegate.seal(), this.metrics);
+  }
+
+  @Override
+  public Registry<K, V> snapshot() {
+    return new InstrumentedRegistry<>(this.delegate.snapshot(), this.metrics);
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * A holder of a value, keyed by {@code int}.
+ *
+ * @param <V> the value type
+ * @see IntRegistry
+ * @since 1.0.0
+ */
+@NullMarked
+public sealed interface IntHolder<V> extends Holder<Integer, V> permits Holders.IntKeyed {
+  /**
+   * Gets the key, without boxing.
+   *
+   * @return the key
+   * @since 1.0.0
+   */
+  int intKey();
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Prefer {@link #intKey()}, which does not box.</p>
+   */
+  @Override
+  default Integer key() {
+    return this.intKey();
+  }
+}
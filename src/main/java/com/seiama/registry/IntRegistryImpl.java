@@ -0,0 +1,187 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.stream.IntStream;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * An open-addressed, {@code int}-keyed registry.
+ *
+ * <p>The table stores keys inline next to the (one-based) id of their holder, so a lookup is a linear probe over
+ * primitive arrays followed by a single array load.</p>
+ */
+@NullMarked
+final class IntRegistryImpl<V> implements IntRegistry<V> {
+  private static final int INITIAL_CAPACITY = 16;
+
+  private int[] keys = new int[INITIAL_CAPACITY];
+  private int[] slots = new int[INITIAL_CAPACITY]; // id + 1, or 0 if empty
+  private int shift = Integer.SIZE - Integer.numberOfTrailingZeros(INITIAL_CAPACITY);
+  @SuppressWarnings("unchecked")
+  private Holders.IntKeyed<V>[] idToHolder = (Holders.IntKeyed<V>[]) new Holders.IntKeyed<?>[INITIAL_CAPACITY >> 1];
+  private int size;
+  private final Keys keyView = new KeysImpl();
+
+  @Override
+  public @Nullable IntHolder<V> getHolder(final int key) {
+    final int index = this.find(key);
+    return index >= 0 ? this.idToHolder[this.slots[index] - 1] : null;
+  }
+
+  @Override
+  public IntHolder<V> getOrCreateHolder(final int key) {
+    final int index = this.find(key);
+    if (index >= 0) {
+      return this.idToHolder[this.slots[index] - 1];
+    }
+    // No value has been registered for the given key yet - create a lazy holder.
+    return this.add(-(index + 1), new Holders.IntKeyed<>(key, this.size, null));
+  }
+
+  @Override
+  public IntHolder<V> register(final int key, final V value) {
+    requireNonNull(value, "value");
+    final int index = this.find(key);
+    if (index < 0) {
+      return this.add(-(index + 1), new Holders.IntKeyed<>(key, this.size, value));
+    }
+    final Holders.IntKeyed<V> holder = this.idToHolder[this.slots[index] - 1];
+    final @Nullable V oldValue = holder.bind(value);
+    if (oldValue != null) {
+      final @Nullable IllegalStateException alreadyBound = RegistryImpl.alreadyBound(key, oldValue, value);
+      if (alreadyBound != null) {
+        throw alreadyBound;
+      }
+    }
+    return holder;
+  }
+
+  @Override
+  public @Nullable IntHolder<V> byId(final int id) {
+    return id >= 0 && id < this.size ? this.idToHolder[id] : null;
+  }
+
+  @Override
+  public Keys keys() {
+    return this.keyView;
+  }
+
+  /**
+   * Finds the slot of {@code key}.
+   *
+   * @param key the key
+   * @return the index of the slot holding {@code key}, or {@code -(insertion point + 1)} if absent
+   */
+  private int find(final int key) {
+    final int[] keys = this.keys;
+    final int[] slots = this.slots;
+    final int mask = slots.length - 1;
+    int index = this.index(key);
+    while (slots[index] != 0) {
+      if (keys[index] == key) {
+        return index;
+      }
+      index = (index + 1) & mask;
+    }
+    return -(index + 1);
+  }
+
+  private int index(final int key) {
+    return (key * 0x9E3779B9) >>> this.shift;
+  }
+
+  private Holders.IntKeyed<V> add(final int index, final Holders.IntKeyed<V> holder) {
+    if (this.size == this.idToHolder.length) {
+      this.idToHolder = Arrays.copyOf(this.idToHolder, this.size << 1);
+    }
+    this.idToHolder[this.size] = holder;
+    this.keys[index] = holder.intKey();
+    this.slots[index] = ++this.size;
+    // Keep the load factor at or below 0.5, so that probe sequences stay short.
+    if (this.size << 1 > this.slots.length) {
+      this.rehash(this.slots.length << 1);
+    }
+    return holder;
+  }
+
+  private void rehash(final int capacity) {
+    this.keys = new int[capacity];
+    this.slots = new int[capacity];
+    this.shift = Integer.SIZE - Integer.numberOfTrailingZeros(capacity);
+    final int mask = capacity - 1;
+    for (int id = 0; id < this.size; id++) {
+      final int key = this.idToHolder[id].intKey();
+      int index = this.index(key);
+      while (this.slots[index] != 0) {
+        index = (index + 1) & mask;
+      }
+      this.keys[index] = key;
+      this.slots[index] = id + 1;
+    }
+  }
+
+  private final class KeysImpl implements Keys {
+    @Override
+    public int size() {
+      return IntRegistryImpl.this.size;
+    }
+
+    @Override
+    public boolean contains(final int key) {
+      return IntRegistryImpl.this.find(key) >= 0;
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+      return new PrimitiveIterator.OfInt() {
+        private int id;
+
+        @Override
+        public boolean hasNext() {
+          return this.id < IntRegistryImpl.this.size;
+        }
+
+        @Override
+        public int nextInt() {
+          if (!this.hasNext()) {
+            throw new NoSuchElementException();
+          }
+          return IntRegistryImpl.this.idToHolder[this.id++].intKey();
+        }
+      };
+    }
+
+    @Override
+    public IntStream stream() {
+      return IntStream.range(0, IntRegistryImpl.this.size).map(id -> IntRegistryImpl.this.idToHolder[id].intKey());
+    }
+  }
+}
@@ -0,0 +1,253 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A namespaced key, such as {@code namespace:path}.
+ *
+ * <p>Keys are interned: there is only ever one instance of a key with a given namespace and path, so keys are compared
+ * by identity, and their hash code is computed once. Looking up a key which already exists does not allocate.</p>
+ *
+ * <p>Interned keys are never released, so keys should not be created for unbounded, dynamically generated strings.</p>
+ *
+ * @since 1.0.0
+ */
+@NullMarked
+public final class Key implements Comparable<Key> {
+  /**
+   * The separator between the namespace and the path.
+   *
+   * @since 1.0.0
+   */
+  public static final char SEPARATOR = ':';
+
+  private final String string;
+  private final int separator;
+  private final int hash;
+
+  private Key(final String string, final int separator, final int hash) {
+    this.string = string;
+    this.separator = separator;
+    this.hash = hash;
+  }
+
+  /**
+   * Gets a key.
+   *
+   * @param namespace the namespace
+   * @param path the path
+   * @return a key
+   * @throws IllegalArgumentException if {@code namespace} contains the {@link #SEPARATOR separator}
+   * @since 1.0.0
+   */
+  public static Key key(final String namespace, final String path) {
+    requireNonNull(namespace, "namespace");
+    requireNonNull(path, "path");
+    if (namespace.indexOf(SEPARATOR) != -1) {
+      throw new IllegalArgumentException("Namespace must not contain '" + SEPARATOR + "': " + namespace);
+    }
+    final int hash = hash(hash(hash(0, namespace), SEPARATOR), path);
+    final @Nullable Key key = Pool.get(namespace, path, hash);
+    return key != null ? key : Pool.intern(namespace + SEPARATOR + path, namespace.length(), hash);
+  }
+
+  /**
+   * Gets a key by parsing {@code string}, which is split into a namespace and a path at its first
+   * {@link #SEPARATOR separator}.
+   *
+   * @param string the string
+   * @return a key
+   * @throws IllegalArgumentException if {@code string} does not contain the {@link #SEPARATOR separator}
+   * @since 1.0.0
+   */
+  public static Key key(final CharSequence string) {
+    requireNonNull(string, "string");
+    final int hash = hash(0, string);
+    final @Nullable Key key = Pool.get(string, hash);
+    if (key != null) {
+      return key;
+    }
+    final String value = string.toString();
+    final int separator = value.indexOf(SEPARATOR);
+    if (separator == -1) {
+      throw new IllegalArgumentException("Key must contain '" + SEPARATOR + "': " + value);
+    }
+    return Pool.intern(value, separator, hash);
+  }
+
+  /**
+   * Gets the namespace.
+   *
+   * @return the namespace
+   * @since 1.0.0
+   */
+  public String namespace() {
+    return this.string.substring(0, this.separator);
+  }
+
+  /**
+   * Gets the path.
+   *
+   * @return the path
+   * @since 1.0.0
+   */
+  public String path() {
+    return this.string.substring(this.separator + 1);
+  }
+
+  /**
+   * Gets this key as a string, in the form {@code namespace:path}.
+   *
+   * @return the string
+   * @since 1.0.0
+   */
+  public String asString() {
+    return this.string;
+  }
+
+  @Override
+  public int compareTo(final Key that) {
+    return this.string.compareTo(that.string);
+  }
+
+  @Override
+  public boolean equals(final @Nullable Object that) {
+    return this == that; // Keys are interned.
+  }
+
+  @Override
+  public int hashCode() {
+    return this.hash;
+  }
+
+  @Override
+  public String toString() {
+    return this.string;
+  }
+
+  // Matches String#hashCode, so that the hash of a key is the hash of its string form.
+  private static int hash(final int hash, final char c) {
+    return 31 * hash + c;
+  }
+
+  private static int hash(int hash, final CharSequence string) {
+    for (int i = 0, length = string.length(); i < length; i++) {
+      hash = hash(hash, string.charAt(i));
+    }
+    return hash;
+  }
+
+  private boolean matches(final CharSequence string) {
+    return this.string.contentEquals(string);
+  }
+
+  private boolean matches(final String namespace, final String path) {
+    return this.separator == namespace.length()
+      && this.string.length() == namespace.length() + 1 + path.length()
+      && this.string.startsWith(namespace)
+      && this.string.endsWith(path);
+  }
+
+  /**
+   * The pool of interned keys.
+   *
+   * <p>An open-addressed table which is read without locking: a reader which misses a key being added concurrently
+   * falls through to {@link #intern(String, int, int)}, which re-checks under the lock.</p>
+   */
+  private static final class Pool {
+    private static final int INITIAL_CAPACITY = 256;
+
+    private static volatile @Nullable Key[] table = new Key[INITIAL_CAPACITY];
+    private static int size;
+
+    private Pool() {
+    }
+
+    static @Nullable Key get(final CharSequence string, final int hash) {
+      final @Nullable Key[] table = Pool.table;
+      final int mask = table.length - 1;
+      @Nullable Key key;
+      for (int index = spread(hash) & mask; (key = table[index]) != null; index = (index + 1) & mask) {
+        if (key.hash == hash && key.matches(string)) {
+          return key;
+        }
+      }
+      return null;
+    }
+
+    static @Nullable Key get(final String namespace, final String path, final int hash) {
+      final @Nullable Key[] table = Pool.table;
+      final int mask = table.length - 1;
+      @Nullable Key key;
+      for (int index = spread(hash) & mask; (key = table[index]) != null; index = (index + 1) & mask) {
+        if (key.hash == hash && key.matches(namespace, path)) {
+          return key;
+        }
+      }
+      return null;
+    }
+
+    static synchronized Key intern(final String string, final int separator, final int hash) {
+      final @Nullable Key existing = get(string, hash);
+      if (existing != null) {
+        return existing;
+      }
+      final Key key = new Key(string, separator, hash);
+      @Nullable Key[] table = Pool.table;
+      // Keep the load factor at or below 0.5, so that probe sequences stay short.
+      if (++size << 1 > table.length) {
+        final @Nullable Key[] resized = new Key[table.length << 1];
+        for (final @Nullable Key k : table) {
+          if (k != null) {
+            insert(resized, k);
+          }
+        }
+        insert(resized, key);
+        Pool.table = resized;
+      } else {
+        // Keys are immutable, so a racing reader observing this write without synchronization still sees a whole key.
+        insert(table, key);
+      }
+      return key;
+    }
+
+    private static void insert(final @Nullable Key[] table, final Key key) {
+      final int mask = table.length - 1;
+      int index = spread(key.hash) & mask;
+      while (table[index] != null) {
+        index = (index + 1) & mask;
+      }
+      table[index] = key;
+    }
+
+    private static int spread(final int hash) {
+      return hash ^ (hash >>> 16);
+    }
+  }
+}
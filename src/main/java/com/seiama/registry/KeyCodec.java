@@ -0,0 +1,76 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * Converts keys to and from strings, so that they can be written out and read back.
+ *
+ * <p>Decoding an encoded key must produce a key equal to the original.</p>
+ *
+ * @param <K> the key type
+ * @since 1.0.0
+ */
+@NullMarked
+public interface KeyCodec<K> {
+  /**
+   * Gets a codec for string keys, which are used as they are.
+   *
+   * @return a codec
+   * @since 1.0.0
+   */
+  static KeyCodec<String> string() {
+    return KeyCodecs.STRING;
+  }
+
+  /**
+   * Gets a codec for {@link Key keys}, which are encoded in the form {@code namespace:path}.
+   *
+   * @return a codec
+   * @since 1.0.0
+   */
+  static KeyCodec<Key> key() {
+    return KeyCodecs.KEY;
+  }
+
+  /**
+   * Encodes {@code key} as a string.
+   *
+   * @param key the key
+   * @return the string
+   * @since 1.0.0
+   */
+  String encode(final K key);
+
+  /**
+   * Decodes a key from {@code string}.
+   *
+   * @param string the string
+   * @return the key
+   * @throws IllegalArgumentException if {@code string} is not a valid key
+   * @since 1.0.0
+   */
+  K decode(final String string);
+}
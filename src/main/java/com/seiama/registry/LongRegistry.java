@@ -0,0 +1,158 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.PrimitiveIterator;
+import java.util.stream.LongStream;
+import org.jetbrains.annotations.UnmodifiableView;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A registry keyed by {@code long}.
+ *
+ * <p>This is a primitive specialization of {@link Registry}: keys are never boxed, and looking up a holder
+ * does not allocate.</p>
+ *
+ * @param <V> the value type
+ * @since 1.0.0
+ */
+@NullMarked
+public interface LongRegistry<V> {
+  /**
+   * Creates a new registry.
+   *
+   * @param <V> the value type
+   * @return a registry
+   * @since 1.0.0
+   */
+  static <V> LongRegistry<V> create() {
+    return new LongRegistryImpl<>();
+  }
+
+  /**
+   * Gets a holder by its key.
+   *
+   * <p>{@code null} will be returned if no value has been {@link #register(long, Object) registered} for {@code key}.</p>
+   *
+   * @param key the key
+   * @return a holder, or {@code null}
+   * @since 1.0.0
+   */
+  @SuppressWarnings("checkstyle:MethodName")
+  @Nullable LongHolder<V> getHolder(final long key);
+
+  /**
+   * Gets a holder by its key, or creates a new holder if one does not already exist and registers it against the provided key.
+   *
+   * <p>The returned holder may contain a value if one has previously been registered, or it may be empty, pending future value registration.</p>
+   *
+   * @param key the key
+   * @return a holder
+   * @since 1.0.0
+   */
+  @SuppressWarnings("checkstyle:MethodName")
+  LongHolder<V> getOrCreateHolder(final long key);
+
+  /**
+   * Registers {@code value} to {@code key}, returning a {@link LongHolder}.
+   *
+   * @param key the key
+   * @param value the value
+   * @return a holder
+   * @throws NullPointerException if the provided value is null
+   * @since 1.0.0
+   */
+  LongHolder<V> register(final long key, final V value);
+
+  /**
+   * Gets a holder by its {@link Holder#id() id}.
+   *
+   * @param id the id
+   * @return a holder, or {@code null}
+   * @since 1.0.0
+   */
+  @Nullable LongHolder<V> byId(final int id);
+
+  /**
+   * Gets the {@link Holder#id() id} of the holder for {@code key}.
+   *
+   * @param key the key
+   * @return the id, or {@code -1} if no holder exists for {@code key}
+   * @since 1.0.0
+   */
+  default int idOf(final long key) {
+    final @Nullable LongHolder<V> holder = this.getHolder(key);
+    return holder != null ? holder.id() : -1;
+  }
+
+  /**
+   * Gets the keys.
+   *
+   * @return the keys
+   * @since 1.0.0
+   */
+  @UnmodifiableView
+  Keys keys();
+
+  /**
+   * A view of the keys of a {@link LongRegistry}, without boxing.
+   *
+   * @since 1.0.0
+   */
+  interface Keys {
+    /**
+     * Gets the number of keys.
+     *
+     * @return the number of keys
+     * @since 1.0.0
+     */
+    int size();
+
+    /**
+     * Checks if {@code key} is present.
+     *
+     * @param key the key
+     * @return {@code true} if {@code key} is present, {@code false} otherwise
+     * @since 1.0.0
+     */
+    boolean contains(final long key);
+
+    /**
+     * Gets an iterator over the keys, in order of holder creation.
+     *
+     * @return an iterator
+     * @since 1.0.0
+     */
+    PrimitiveIterator.OfLong iterator();
+
+    /**
+     * Gets a stream of the keys, in order of holder creation.
+     *
+     * @return a stream
+     * @since 1.0.0
+     */
+    LongStream stream();
+  }
+}
@@ -0,0 +1,286 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * Strings kept outside the heap, encoded as UTF-8, along with an open-addressed table from their hashes to their ids.
+ *
+ * <p>The key data, the offset and {@link String#hashCode() hash} of each key, and the table all live in direct
+ * buffers, so none of them are objects the garbage collector has to trace. A key is only decoded into a {@link String}
+ * when asked for - lookups compare the encoded bytes with the chars of the key they are given, so any
+ * {@link CharSequence} may be looked up without creating a string.</p>
+ *
+ * <p>Strings are encoded one code point at a time, as in UTF-8 - except that an unpaired surrogate is encoded as if it
+ * were a code point of its own, rather than replaced, so that every string survives the round trip.</p>
+ */
+@NullMarked
+final class OffHeapKeys {
+  private static final int MIN_CAPACITY = 8;
+  private static final int MIN_DATA_CAPACITY = 256;
+
+  private ByteBuffer data;
+  // One more offset than there are keys: a key ends where the next begins.
+  private IntBuffer offsets;
+  private IntBuffer hashes;
+  // Each slot holds one more than the id of a key, or zero if empty.
+  private IntBuffer table;
+  private int shift;
+  private int size;
+
+  OffHeapKeys(final int expectedSize) {
+    if (expectedSize < 0) {
+      throw new IllegalArgumentException("expectedSize must not be negative: " + expectedSize);
+    }
+    final int capacity = Math.max(MIN_CAPACITY, expectedSize);
+    this.data = ByteBuffer.allocateDirect((int) Math.min(Integer.MAX_VALUE, Math.max(MIN_DATA_CAPACITY, capacity * 16L)));
+    this.offsets = ints(capacity + 1);
+    this.hashes = ints(capacity);
+    this.table = this.createTable(capacity);
+  }
+
+  /**
+   * Computes the hash of {@code key}, as {@link String#hashCode()} would.
+   *
+   * @param key the key
+   * @return the hash
+   */
+  static int hash(final CharSequence key) {
+    if (key instanceof String) {
+      return key.hashCode(); // cached by the string
+    }
+    int hash = 0;
+    for (int i = 0, length = key.length(); i < length; i++) {
+      hash = 31 * hash + key.charAt(i);
+    }
+    return hash;
+  }
+
+  int size() {
+    return this.size;
+  }
+
+  /**
+   * Finds the id of {@code key}.
+   *
+   * @param key the key
+   * @param hash the {@linkplain #hash(CharSequence) hash} of the key
+   * @return the id, or {@code -1} if the key is not present
+   */
+  int find(final CharSequence key, final int hash) {
+    final IntBuffer table = this.table;
+    final int mask = table.capacity() - 1;
+    int index = index(hash, this.shift);
+    int slot;
+    while ((slot = table.get(index)) != 0) {
+      final int id = slot - 1;
+      if (this.hashes.get(id) == hash && this.matches(id, key)) {
+        return id;
+      }
+      index = (index + 1) & mask;
+    }
+    return -1;
+  }
+
+  /**
+   * Adds {@code key}, which must not already be present.
+   *
+   * @param key the key
+   * @param hash the {@linkplain #hash(CharSequence) hash} of the key
+   * @return the id of the key
+   */
+  int add(final CharSequence key, final int hash) {
+    final int id = this.size;
+    if (id == this.hashes.capacity()) {
+      this.offsets = grow(this.offsets, id + 1);
+      this.hashes = grow(this.hashes, id);
+    }
+    if (id + 1 > this.table.capacity() >>> 1) {
+      this.table = this.createTable(id + 1);
+      for (int existing = 0; existing < id; existing++) {
+        this.insert(existing);
+      }
+    }
+    // Each char takes at most three bytes - a surrogate pair takes four, which is two for each of its chars.
+    final long required = (long) this.offsets.get(id) + (long) key.length() * 3;
+    if (required > this.data.capacity()) {
+      if (required > Integer.MAX_VALUE) {
+        throw new IllegalStateException("Too many key bytes to store off-heap: " + required);
+      }
+      final ByteBuffer data = ByteBuffer.allocateDirect((int) Math.min(Integer.MAX_VALUE, Math.max(required, (long) this.data.capacity() * 2)));
+      data.put(0, this.data, 0, this.offsets.get(id));
+      this.data = data;
+    }
+    this.offsets.put(id + 1, this.encode(key, this.offsets.get(id)));
+    this.hashes.put(id, hash);
+    this.size = id + 1;
+    this.insert(id);
+    return id;
+  }
+
+  /**
+   * Decodes the key with the id {@code id}.
+   *
+   * @param id the id
+   * @return the key
+   */
+  String get(final int id) {
+    int position = this.offsets.get(id);
+    final int end = this.offsets.get(id + 1);
+    // UTF-8 never takes fewer bytes than there are chars.
+    final char[] chars = new char[end - position];
+    int length = 0;
+    while (position < end) {
+      final int bytes = sequenceLength(this.data.get(position));
+      final int codePoint = this.codePoint(position, bytes);
+      position += bytes;
+      length += Character.toChars(codePoint, chars, length);
+    }
+    return new String(chars, 0, length);
+  }
+
+  /**
+   * Gets the number of bytes kept outside the heap.
+   *
+   * @return the number of bytes
+   */
+  long footprint() {
+    return (long) this.data.capacity() + ((long) this.offsets.capacity() + this.hashes.capacity() + this.table.capacity()) * Integer.BYTES;
+  }
+
+  private boolean matches(final int id, final CharSequence key) {
+    int position = this.offsets.get(id);
+    final int end = this.offsets.get(id + 1);
+    final int length = key.length();
+    int i = 0;
+    while (position < end) {
+      final byte b = this.data.get(position);
+      if (b >= 0) { // ASCII, by far the most common
+        if (i >= length || key.charAt(i++) != b) {
+          return false;
+        }
+        position++;
+        continue;
+      }
+      final int bytes = sequenceLength(b);
+      final int codePoint = this.codePoint(position, bytes);
+      position += bytes;
+      if (Character.isBmpCodePoint(codePoint)) {
+        if (i >= length || key.charAt(i++) != codePoint) {
+          return false;
+        }
+      } else {
+        if (i + 1 >= length || key.charAt(i) != Character.highSurrogate(codePoint) || key.charAt(i + 1) != Character.lowSurrogate(codePoint)) {
+          return false;
+        }
+        i += 2;
+      }
+    }
+    return i == length;
+  }
+
+  private int encode(final CharSequence key, int position) {
+    final ByteBuffer data = this.data;
+    for (int i = 0, length = key.length(); i < length; i++) {
+      final char c = key.charAt(i);
+      int codePoint = c;
+      if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(key.charAt(i + 1))) {
+        codePoint = Character.toCodePoint(c, key.charAt(++i));
+      }
+      if (codePoint < 0x80) {
+        data.put(position++, (byte) codePoint);
+      } else if (codePoint < 0x800) {
+        data.put(position++, (byte) (0xC0 | (codePoint >>> 6)));
+        data.put(position++, (byte) (0x80 | (codePoint & 0x3F)));
+      } else if (codePoint < 0x10000) {
+        data.put(position++, (byte) (0xE0 | (codePoint >>> 12)));
+        data.put(position++, (byte) (0x80 | ((codePoint >>> 6) & 0x3F)));
+        data.put(position++, (byte) (0x80 | (codePoint & 0x3F)));
+      } else {
+        data.put(position++, (byte) (0xF0 | (codePoint >>> 18)));
+        data.put(position++, (byte) (0x80 | ((codePoint >>> 12) & 0x3F)));
+        data.put(position++, (byte) (0x80 | ((codePoint >>> 6) & 0x3F)));
+        data.put(position++, (byte) (0x80 | (codePoint & 0x3F)));
+      }
+    }
+    return position;
+  }
+
+  private int codePoint(final int position, final int bytes) {
+    final ByteBuffer data = this.data;
+    return switch (bytes) {
+      case 1 -> data.get(position);
+      case 2 -> (data.get(position) & 0x1F) << 6 | (data.get(position + 1) & 0x3F);
+      case 3 -> (data.get(position) & 0x0F) << 12 | (data.get(position + 1) & 0x3F) << 6 | (data.get(position + 2) & 0x3F);
+      default -> (data.get(position) & 0x07) << 18 | (data.get(position + 1) & 0x3F) << 12 | (data.get(position + 2) & 0x3F) << 6 | (data.get(position + 3) & 0x3F);
+    };
+  }
+
+  private static int sequenceLength(final byte lead) {
+    if (lead >= 0) {
+      return 1;
+    } else if ((lead & 0xE0) == 0xC0) {
+      return 2;
+    } else if ((lead & 0xF0) == 0xE0) {
+      return 3;
+    }
+    return 4;
+  }
+
+  private void insert(final int id) {
+    final IntBuffer table = this.table;
+    final int mask = table.capacity() - 1;
+    int index = index(this.hashes.get(id), this.shift);
+    while (table.get(index) != 0) {
+      index = (index + 1) & mask;
+    }
+    table.put(index, id + 1);
+  }
+
+  private IntBuffer createTable(final int expectedSize) {
+    // Keep the load factor at or below 0.5, so that probe sequences stay short.
+    final int capacity = Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, expectedSize) - 1) << 2);
+    this.shift = Integer.numberOfLeadingZeros(capacity) + 1;
+    return ints(capacity);
+  }
+
+  private static int index(final int hash, final int shift) {
+    // Fibonacci hashing spreads poor hash codes across the whole table.
+    return (hash * 0x9E3779B9) >>> shift;
+  }
+
+  private static IntBuffer ints(final int capacity) {
+    return ByteBuffer.allocateDirect(capacity * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+  }
+
+  private static IntBuffer grow(final IntBuffer buffer, final int used) {
+    final IntBuffer grown = ints(buffer.capacity() * 2);
+    grown.put(0, buffer, 0, used);
+    return grown;
+  }
+}
@@ -0,0 +1,261 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Supplier;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A registry of strings which keeps its keys, and the table used to look them up, outside the heap.
+ *
+ * <p>Holders do not keep their keys either, so that a key costs the heap nothing but its holder. The holders of lazy
+ * keys are tracked by id, for the same reason.</p>
+ */
+@NullMarked
+final class OffHeapRegistryImpl<V> implements StringRegistry<V> {
+  private static final int MIN_CAPACITY = 8;
+
+  private final OffHeapKeys keys;
+  private Holders.@Nullable Encoded<V>[] idToHolder;
+  private final BitSet unbound = new BitSet();
+  private final Tags<String, V> tags = new TagsImpl<>(this);
+  private @Nullable Set<String> keySet;
+  private @Nullable Set<String> unboundKeys;
+  private @Nullable Collection<Holder<String, V>> holders;
+
+  @SuppressWarnings("unchecked")
+  OffHeapRegistryImpl(final int expectedSize) {
+    this.keys = new OffHeapKeys(expectedSize);
+    this.idToHolder = (Holders.Encoded<V>[]) new Holders.Encoded<?>[Math.max(MIN_CAPACITY, expectedSize)];
+  }
+
+  @Override
+  public @Nullable Holder<String, V> getHolder(final String key) {
+    return this.getHolder((CharSequence) key);
+  }
+
+  @Override
+  public @Nullable Holder<String, V> getHolder(final CharSequence key) {
+    requireNonNull(key, "key");
+    final int id = this.keys.find(key, OffHeapKeys.hash(key));
+    return id != -1 ? this.idToHolder[id] : null;
+  }
+
+  @Override
+  public @Nullable Holder<String, V> getHolderByValue(final V value) {
+    requireNonNull(value, "value");
+    throw new UnsupportedOperationException("Off-heap registries do not support reverse lookup");
+  }
+
+  @Override
+  public Holder<String, V> getOrCreateHolder(final String key) {
+    requireNonNull(key, "key");
+    final int hash = key.hashCode();
+    final int id = this.keys.find(key, hash);
+    if (id != -1) {
+      return requireNonNull(this.idToHolder[id], "holder");
+    }
+    final Holders.Encoded<V> holder = this.add(key, hash, null);
+    this.unbound.set(holder.id());
+    return holder;
+  }
+
+  @Override
+  public Holder<String, V> register(final String key, final V value) {
+    requireNonNull(key, "key");
+    requireNonNull(value, "value");
+    final int hash = key.hashCode();
+    final int id = this.keys.find(key, hash);
+    if (id == -1) {
+      return this.add(key, hash, value);
+    }
+    final Holders.Encoded<V> holder = requireNonNull(this.idToHolder[id], "holder");
+    RegistryImpl.bind(holder, value);
+    this.unbound.clear(id);
+    return holder;
+  }
+
+  @Override
+  public Holder<String, V> registerDeferred(final String key, final Supplier<? extends V> supplier) {
+    throw new UnsupportedOperationException("Off-heap registries do not support deferred values");
+  }
+
+  private Holders.Encoded<V> add(final String key, final int hash, final @Nullable V value) {
+    final int id = this.keys.add(key, hash);
+    if (id == this.idToHolder.length) {
+      this.idToHolder = Arrays.copyOf(this.idToHolder, id * 2);
+    }
+    final Holders.Encoded<V> holder = new Holders.Encoded<>(this.keys, id, value);
+    this.idToHolder[id] = holder;
+    return holder;
+  }
+
+  @Override
+  public @Nullable Holder<String, V> byId(final int id) {
+    return id >= 0 && id < this.keys.size() ? this.idToHolder[id] : null;
+  }
+
+  @Override
+  public Set<String> keys() {
+    if (this.keySet == null) {
+      this.keySet = new Keys();
+    }
+    return this.keySet;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Collection<Holder<String, V>> holders() {
+    if (this.holders == null) {
+      this.holders = new HolderCollection<>(this, () -> HolderSpliterator.of((Holder<String, V>[]) this.idToHolder, this.keys.size()));
+    }
+    return this.holders;
+  }
+
+  @Override
+  public Tags<String, V> tags() {
+    return this.tags;
+  }
+
+  @Override
+  public Set<String> unbound() {
+    if (this.unboundKeys == null) {
+      this.unboundKeys = new Unbound();
+    }
+    return this.unboundKeys;
+  }
+
+  /**
+   * Gets the number of bytes this registry keeps outside the heap.
+   *
+   * @return the number of bytes
+   */
+  long footprint() {
+    return this.keys.footprint();
+  }
+
+  private boolean unbound(final int id) {
+    // Holders may also be bound through another registry sharing them, such as a frozen one.
+    return this.unbound.get(id) && Holders.unbound(requireNonNull(this.idToHolder[id], "holder"));
+  }
+
+  /**
+   * The keys, in order of their ids - each decoded as it is reached.
+   */
+  private final class Keys extends AbstractSet<String> {
+    @Override
+    public boolean contains(final Object o) {
+      return o instanceof final String key && OffHeapRegistryImpl.this.getHolder(key) != null;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+      return new Iterator<>() {
+        private int id;
+
+        @Override
+        public boolean hasNext() {
+          return this.id < OffHeapRegistryImpl.this.keys.size();
+        }
+
+        @Override
+        public String next() {
+          if (!this.hasNext()) {
+            throw new NoSuchElementException();
+          }
+          return OffHeapRegistryImpl.this.keys.get(this.id++);
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return OffHeapRegistryImpl.this.keys.size();
+    }
+  }
+
+  /**
+   * The keys of holders which have no value bound.
+   */
+  private final class Unbound extends AbstractSet<String> {
+    @Override
+    public boolean contains(final Object o) {
+      if (!(o instanceof final String key)) {
+        return false;
+      }
+      final int id = OffHeapRegistryImpl.this.keys.find(key, key.hashCode());
+      return id != -1 && OffHeapRegistryImpl.this.unbound(id);
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+      return new Iterator<>() {
+        private int id = this.advance(0);
+
+        private int advance(int id) {
+          while ((id = OffHeapRegistryImpl.this.unbound.nextSetBit(id)) != -1 && !OffHeapRegistryImpl.this.unbound(id)) {
+            id++;
+          }
+          return id;
+        }
+
+        @Override
+        public boolean hasNext() {
+          return this.id != -1;
+        }
+
+        @Override
+        public String next() {
+          if (!this.hasNext()) {
+            throw new NoSuchElementException();
+          }
+          final String key = OffHeapRegistryImpl.this.keys.get(this.id);
+          this.id = this.advance(this.id + 1);
+          return key;
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      int size = 0;
+      for (int id = OffHeapRegistryImpl.this.unbound.nextSetBit(0); id != -1; id = OffHeapRegistryImpl.this.unbound.nextSetBit(id + 1)) {
+        if (OffHeapRegistryImpl.this.unbound(id)) {
+          size++;
+        }
+      }
+      return size;
+    }
+  }
+}
@@ -0,0 +1,239 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A registry layered over a parent, holding only the holders created through it.
+ *
+ * <p>Lookups check the overlay's own table first and then fall back to the parent, which is never written to. A
+ * holder registered in the overlay for a key the parent also has overrides the parent's, and takes its id; holders for
+ * keys the parent does not have are given ids following those the parent had when the overlay was created, and are
+ * held by id in an array offset by that many.</p>
+ */
+@NullMarked
+final class OverlayRegistryImpl<K, V> implements Registry<K, V> {
+  private static final int INITIAL_CAPACITY = 8;
+
+  private final Registry<K, V> parent;
+  private final int base;
+  private final Map<K, Holder<K, V>> local = new LinkedHashMap<>();
+  @SuppressWarnings("unchecked")
+  private Holder<K, V>[] added = (Holder<K, V>[]) new Holder<?, ?>[INITIAL_CAPACITY];
+  private final UnboundKeys<K, V> unbound = UnboundKeys.ordered();
+  private int nextId;
+  private @Nullable Set<K> keys;
+  private @Nullable Set<K> unboundKeys;
+  private @Nullable Tags<K, V> tags;
+
+  OverlayRegistryImpl(final Registry<K, V> parent) {
+    this.parent = requireNonNull(parent, "parent");
+    this.base = parent.version();
+    this.nextId = this.base;
+  }
+
+  @Override
+  public @Nullable Holder<K, V> getHolder(final K key) {
+    requireNonNull(key, "key");
+    final @Nullable Holder<K, V> holder = this.local.get(key);
+    return holder != null ? holder : this.parent.getHolder(key);
+  }
+
+  @Override
+  public @Nullable Holder<K, V> getHolderByValue(final V value) {
+    requireNonNull(value, "value");
+    // Overlays are expected to be small, so their own holders are searched rather than indexed - by the values bound
+    // to them, as searching must not compute those deferred.
+    for (final Holder<K, V> holder : this.local.values()) {
+      if (Holders.peek(holder) == value) {
+        return holder;
+      }
+    }
+    final @Nullable Holder<K, V> holder = this.parent.getHolderByValue(value);
+    return holder != null && !this.local.containsKey(holder.key()) ? holder : null;
+  }
+
+  @Override
+  public Holder<K, V> getOrCreateHolder(final K key) {
+    @Nullable Holder<K, V> holder = this.getHolder(key);
+    if (holder == null) {
+      holder = new Holders.Lazy<>(key, key.hashCode(), this.id(null));
+      this.add(holder);
+      this.unbound.add(holder);
+    }
+    return holder;
+  }
+
+  @Override
+  public Holder<K, V> register(final K key, final V value) {
+    requireNonNull(key, "key");
+    requireNonNull(value, "value");
+    @Nullable Holder<K, V> holder = this.local.get(key);
+    if (holder == null) {
+      // Registering never touches the parent - a holder the parent has for this key is overridden.
+      holder = new Holders.Immediate<>(key, key.hashCode(), value, this.id(this.parent.getHolder(key)));
+      this.add(holder);
+    } else {
+      RegistryImpl.bind(holder, value);
+    }
+    return holder;
+  }
+
+  @Override
+  public void registerAll(final Map<? extends K, ? extends V> entries) {
+    // Only values bound in the overlay conflict - those bound in the parent are overridden.
+    RegistryImpl.checkConflicts(this.local::get, entries);
+    for (final Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+      this.register(entry.getKey(), entry.getValue());
+    }
+  }
+
+  private int id(final @Nullable Holder<K, V> overridden) {
+    return overridden != null ? overridden.id() : this.nextId++;
+  }
+
+  private void add(final Holder<K, V> holder) {
+    this.local.put(holder.key(), holder);
+    final int index = holder.id() - this.base;
+    if (index >= 0) {
+      if (index == this.added.length) {
+        this.added = Arrays.copyOf(this.added, index << 1);
+      }
+      this.added[index] = holder;
+    }
+  }
+
+  @Override
+  public @Nullable Holder<K, V> byId(final int id) {
+    if (id >= this.base) {
+      return id < this.nextId ? this.added[id - this.base] : null;
+    }
+    // A holder overriding the parent's takes its id, so is found through the parent's key.
+    final @Nullable Holder<K, V> holder = this.parent.byId(id);
+    if (holder == null) {
+      return null;
+    }
+    final @Nullable Holder<K, V> overriding = this.local.get(holder.key());
+    return overriding != null ? overriding : holder;
+  }
+
+  @Override
+  public Set<K> keys() {
+    if (this.keys == null) {
+      this.keys = new Merged(this.parent.keys(), this.local.keySet());
+    }
+    return this.keys;
+  }
+
+  @Override
+  public Tags<K, V> tags() {
+    if (this.tags == null) {
+      this.tags = new TagsImpl<>(this);
+    }
+    return this.tags;
+  }
+
+  @Override
+  public Set<K> unbound() {
+    if (this.unboundKeys == null) {
+      this.unboundKeys = new Merged(this.parent.unbound(), this.unbound);
+    }
+    return this.unboundKeys;
+  }
+
+  /**
+   * A view of keys from the parent which are not overridden, followed by keys from the overlay.
+   */
+  private final class Merged extends AbstractSet<K> {
+    private final Set<K> parent;
+    private final Set<K> local;
+
+    Merged(final Set<K> parent, final Set<K> local) {
+      this.parent = parent;
+      this.local = local;
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+      return OverlayRegistryImpl.this.local.containsKey(o) ? this.local.contains(o) : this.parent.contains(o);
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+      final Iterator<K> parent = this.parent.iterator();
+      final Iterator<K> local = this.local.iterator();
+      return new Iterator<>() {
+        private @Nullable K next = this.advance();
+
+        private @Nullable K advance() {
+          while (parent.hasNext()) {
+            final K key = parent.next();
+            if (!OverlayRegistryImpl.this.local.containsKey(key)) {
+              return key;
+            }
+          }
+          return local.hasNext() ? local.next() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+          return this.next != null;
+        }
+
+        @Override
+        public K next() {
+          final @Nullable K next = this.next;
+          if (next == null) {
+            throw new NoSuchElementException();
+          }
+          this.next = this.advance();
+          return next;
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      // Proportional to the size of the overlay, not of the parent.
+      int overridden = 0;
+      for (final K key : OverlayRegistryImpl.this.local.keySet()) {
+        if (this.parent.contains(key)) {
+          overridden++;
+        }
+      }
+      return this.parent.size() - overridden + this.local.size();
+    }
+  }
+}
@@ -23,12 +23,24 @@
  */
 package com.seiama.registry;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 import org.jetbrains.annotations.UnmodifiableView;
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
 
+import static java.util.Objects.requireNonNull;
+
 /**
  * A registry.
  *
@@ -50,6 +62,137 @@ public interface Registry<K, V> {
     return new RegistryImpl<>();
   }
 
+  /**
+   * Creates a new registry, sized to hold {@code expectedSize} entries without growing.
+   *
+   * @param expectedSize the expected number of entries
+   * @param <K> the key type
+   * @param <V> the value type
+   * @return a registry
+   * @throws IllegalArgumentException if {@code expectedSize} is negative
+   * @since 1.0.0
+   */
+  static <K, V> Registry<K, V> create(final int expectedSize) {
+    return new RegistryImpl<>(expectedSize, false, false);
+  }
+
+  /**
+   * Creates a new registry builder.
+   *
+   * @param <K> the key type
+   * @param <V> the value type
+   * @return a registry builder
+   * @since 1.0.0
+   */
+  static <K, V> Builder<K, V> builder() {
+    return new RegistryBuilderImpl<>();
+  }
+
+  /**
+   * Creates a new registry which is safe for use by multiple threads.
+   *
+   * <p>Lookups never block, and registration is atomic per key: racing calls to {@link #getOrCreateHolder(Object)}
+   * will always observe the same holder, and only one of any racing {@link #register(Object, Object) registrations}
+   * with different values will succeed.</p>
+   *
+   * @param <K> the key type
+   * @param <V> the value type
+   * @return a registry
+   * @since 1.0.0
+   */
+  static <K, V> Registry<K, V> createConcurrent() {
+    return new ConcurrentRegistryImpl<>();
+  }
+
+  /**
+   * Creates a new registry layered over {@code parent}.
+   *
+   * <p>Lookups fall back to {@code parent} for keys the overlay does not have, but the overlay never writes to it:
+   * {@link #register(Object, Object) registering} a key the parent has overrides the parent's holder with one of the
+   * overlay's own, under the same id, and new keys are only added to the overlay. {@link #keys()} and {@link #unbound()}
+   * are merged views of both. An overlay holds only its own holders, so many overlays of a large parent each cost memory
+   * in proportion to the keys they override or add.</p>
+   *
+   * <p>Holders taken from the parent before a key was overridden remain the parent's. Ids of keys added to the overlay
+   * follow those of the parent at the time the overlay was created, so the parent should not gain keys afterwards - a
+   * {@linkplain #freeze() frozen} parent is ideal. The returned registry is not safe for use by multiple threads.</p>
+   *
+   * @param parent the parent registry
+   * @param <K> the key type
+   * @param <V> the value type
+   * @return a registry
+   * @since 1.0.0
+   */
+  static <K, V> Registry<K, V> overlay(final Registry<K, V> parent) {
+    return new OverlayRegistryImpl<>(parent);
+  }
+
+  /**
+   * Creates a new registry which is safe for use by multiple threads, and takes {@linkplain #snapshot() snapshots} of
+   * itself in constant time.
+   *
+   * <p>Every write which adds keys publishes a new immutable version of the registry, sharing all but a few nodes
+   * with the version before it. Lookups and iteration never block and see a consistent version: an iterator over
+   * {@link #keys()} sees the keys as of its creation, however many are added while it runs. Writes adding keys are
+   * serialized with each other, and {@link #registerAll(Map)} publishes all of its new keys in one version.</p>
+   *
+   * @param <K> the key type
+   * @param <V> the value type
+   * @return a registry
+   * @since 1.0.0
+   */
+  static <K, V> Registry<K, V> createVersioned() {
+    return new VersionedRegistryImpl<>(false);
+  }
+
+  /**
+   * Loads a registry from a snapshot {@linkplain #writeSnapshot(Path, KeyCodec, long) written} earlier.
+   *
+   * <p>The snapshot is memory-mapped and used as it is: its keys are not rehashed, and are only decoded as they are
+   * needed. The returned registry holds every key of the snapshot, with the same ids, each waiting for a value to be
+   * {@link #register(Object, Object) registered}. Like a {@linkplain #freeze() frozen} registry, keys unknown to the
+   * snapshot cannot be added to it, and it does not support {@link #getHolderByValue(Object)}.</p>
+   *
+   * <p>The structure of the snapshot is checked, but not its checksum - see
+   * {@link #loadSnapshot(Path, KeyCodec, long, boolean)} to verify it.</p>
+   *
+   * <p>The returned registry is safe for use by multiple threads.</p>
+   *
+   * @param path the path of the snapshot
+   * @param codec the codec the snapshot was written with
+   * @param fingerprint the fingerprint the snapshot must have been written with
+   * @param <K> the key type
+   * @param <V> the value type
+   * @return a registry
+   * @throws IOException if the snapshot could not be read, was written with a different fingerprint, or is corrupt
+   * @since 1.0.0
+   */
+  static <K, V> Registry<K, V> loadSnapshot(final Path path, final KeyCodec<K> codec, final long fingerprint) throws IOException {
+    return SnapshotRegistryImpl.load(path, codec, fingerprint, false);
+  }
+
+  /**
+   * Loads a registry from a snapshot {@linkplain #writeSnapshot(Path, KeyCodec, long) written} earlier, optionally
+   * verifying its checksum.
+   *
+   * <p>Verifying the checksum catches snapshots damaged on disk, but reads the whole snapshot as it is loaded - rather
+   * than only the pages holding keys as they are needed.</p>
+   *
+   * @param path the path of the snapshot
+   * @param codec the codec the snapshot was written with
+   * @param fingerprint the fingerprint the snapshot must have been written with
+   * @param verify whether to verify the checksum of the snapshot
+   * @param <K> the key type
+   * @param <V> the value type
+   * @return a registry
+   * @throws IOException if the snapshot could not be read, was written with a different fingerprint, or is corrupt
+   * @see #loadSnapshot(Path, KeyCodec, long)
+   * @since 1.0.0
+   */
+  static <K, V> Registry<K, V> loadSnapshot(final Path path, final KeyCodec<K> codec, final long fingerprint, final boolean verify) throws IOException {
+    return SnapshotRegistryImpl.load(path, codec, fingerprint, verify);
+  }
+
   /**
    * Gets a holder by its key.
    *
@@ -75,9 +218,28 @@ public interface Registry<K, V> {
    */
   @SuppressWarnings("checkstyle:MethodName")
   default Optional<Holder<K, V>> getHolderOptionally(final K key) {
-    return Optional.ofNullable(this.getHolder(key));
+    return Holders.optional(this.getHolder(key));
   }
 
+  /**
+   * Gets the holder {@code value} is bound to.
+   *
+   * <p>Values are compared by identity. Should {@code value} be bound to more than one holder, the holder it was bound
+   * to first is returned.</p>
+   *
+   * <p>This requires the registry to maintain a reverse index, which must be enabled when it is
+   * {@linkplain Builder#reverseLookup(boolean) built}. {@linkplain #freeze() Frozen} registries always support this,
+   * building their index on first use.</p>
+   *
+   * @param value the value
+   * @return a holder, or {@code null}
+   * @throws NullPointerException if the provided value is null
+   * @throws UnsupportedOperationException if this registry does not maintain a reverse index
+   * @since 1.0.0
+   */
+  @SuppressWarnings("checkstyle:MethodName")
+  @Nullable Holder<K, V> getHolderByValue(final V value);
+
   /**
    * Gets a holder by its key, or creates a new holder if one does not already exist and registers it against the provided key.
    *
@@ -102,6 +264,163 @@ public interface Registry<K, V> {
    */
   Holder<K, V> register(final K key, final V value);
 
+  /**
+   * Registers each value in {@code entries} to its key.
+   *
+   * <p>All entries are checked before any are registered: if any entry conflicts with a value which is already bound,
+   * nothing is registered and an {@link IllegalStateException} is thrown, with each conflict attached to it as a
+   * {@linkplain Throwable#getSuppressed() suppressed} exception.</p>
+   *
+   * <p>Registries which are safe for use by multiple threads only check for conflicts present at the time of the
+   * call - a conflicting registration made concurrently by another thread may still cause this method to fail part
+   * way through.</p>
+   *
+   * @param entries the entries
+   * @throws NullPointerException if any key or value is null
+   * @throws IllegalStateException if any entry conflicts with a value which is already bound
+   * @since 1.0.0
+   */
+  default void registerAll(final Map<? extends K, ? extends V> entries) {
+    RegistryImpl.checkConflicts(this, entries);
+    for (final Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+      this.register(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * Registers a value to {@code key} which is only computed by {@code supplier} when first needed.
+   *
+   * <p>The value is computed, once, when the holder's {@link Holder#value() value} is first accessed or {@linkplain
+   * Holder#await() awaited}, or by {@link #initializeAll(Executor)} - until then, the holder is not {@linkplain
+   * Holder#bound() bound}, but neither is its key {@linkplain #unbound() unbound}. Registering a value to the same key
+   * computes the deferred one, and fails unless they are the same.</p>
+   *
+   * <p>The supplier may access the values of other holders - including, through forward references, those of other
+   * deferred values, which are then computed first. A supplier which comes to depend on its own value fails with an
+   * {@link IllegalStateException}, as does a supplier which fails to produce a value, leaving the value to be
+   * computed again by the next access.</p>
+   *
+   * @param key the key
+   * @param supplier the supplier of the value
+   * @return a holder
+   * @throws NullPointerException if the provided key or supplier are null
+   * @throws IllegalStateException if a value has already been bound or deferred to the key
+   * @since 1.0.0
+   */
+  default Holder<K, V> registerDeferred(final K key, final Supplier<? extends V> supplier) {
+    requireNonNull(supplier, "supplier");
+    final Holder<K, V> holder = this.getOrCreateHolder(key);
+    if (!(holder instanceof final Holders.Lazy<K, V> lazy)) {
+      throw new IllegalStateException(key + " is already bound to " + holder.value() + ", cannot defer a value");
+    }
+    lazy.defer(supplier);
+    return holder;
+  }
+
+  /**
+   * Computes every {@linkplain #registerDeferred(Object, Supplier) deferred} value which has not been computed yet,
+   * using {@code executor}, and waits for them all.
+   *
+   * <p>Each value is computed by a task of its own, so that values which do not depend on each other are computed in
+   * parallel. A value which depends on another is computed after it - either by the same task, or by waiting for the
+   * task already computing it - so no ordering needs to be given. A {@link java.util.concurrent.ForkJoinPool} or an
+   * executor running each task on a virtual thread suit this well.</p>
+   *
+   * @param executor the executor to compute values with
+   * @throws IllegalStateException if any value could not be computed, with each failure attached as a {@linkplain Throwable#getSuppressed() suppressed} exception - values which could be computed still are
+   * @since 1.0.0
+   */
+  default void initializeAll(final Executor executor) {
+    Holders.initializeAll(this.holders(), executor);
+  }
+
+  /**
+   * Gets a holder by its {@link Holder#id() id}.
+   *
+   * <p>{@code null} will be returned if no holder has been created with {@code id}.</p>
+   *
+   * @param id the id
+   * @return a holder, or {@code null}
+   * @since 1.0.0
+   */
+  @Nullable Holder<K, V> byId(final int id);
+
+  /**
+   * Gets the {@link Holder#id() id} of the holder for {@code key}.
+   *
+   * @param key the key
+   * @return the id, or {@code -1} if no holder exists for {@code key}
+   * @throws NullPointerException if the provided key is null
+   * @since 1.0.0
+   */
+  default int idOf(final K key) {
+    final @Nullable Holder<K, V> holder = this.getHolder(key);
+    return holder != null ? holder.id() : -1;
+  }
+
+  /**
+   * Gets the version of this registry.
+   *
+   * <p>Every new holder advances the version by one, so the version is the number of holders and the id the next one
+   * will be given. Registries at the same version which agree on their {@linkplain #contentHash(KeyCodec) content
+   * hash} hold the same keys, with the same ids.</p>
+   *
+   * @return the version
+   * @see #writeDelta(int, KeyCodec)
+   * @since 1.0.0
+   */
+  default int version() {
+    return RegistryDeltas.version(this);
+  }
+
+  /**
+   * Writes a delta of the keys added to this registry since {@code since}, in order of their ids.
+   *
+   * <p>Applying the delta to a registry at version {@code since} brings it to this registry's current {@link #version() version}.
+   * Ids are written as varints, and each key only as far as it differs from the key before it, so a delta is usually
+   * much smaller than its keys. Values are not written.</p>
+   *
+   * @param since the version to write the delta since
+   * @param codec the codec to encode keys with
+   * @return a buffer holding the delta, positioned at its start
+   * @throws IllegalArgumentException if {@code since} is negative or greater than the version of this registry
+   * @since 1.0.0
+   */
+  default ByteBuffer writeDelta(final int since, final KeyCodec<K> codec) {
+    return RegistryDeltas.write(this, since, codec);
+  }
+
+  /**
+   * Applies a delta {@linkplain #writeDelta(int, KeyCodec) written} by another registry, consuming it from {@code delta}.
+   *
+   * <p>A holder is {@linkplain #getOrCreateHolder(Object) created} for each key in the delta, waiting for a value to be
+   * registered. Should the delta not apply cleanly - because it does not start at the version of this registry, or
+   * because its keys already exist here - nothing is created.</p>
+   *
+   * @param delta the delta
+   * @param codec the codec the delta was written with
+   * @throws IllegalArgumentException if the delta is malformed, or holds a key more than once
+   * @throws IllegalStateException if the delta does not start at the version of this registry, or this registry has diverged from the one which wrote it
+   * @since 1.0.0
+   */
+  default void applyDelta(final ByteBuffer delta, final KeyCodec<K> codec) {
+    RegistryDeltas.apply(this, delta, codec);
+  }
+
+  /**
+   * Computes a hash of the keys of this registry and their ids.
+   *
+   * <p>The hash does not depend on the JVM it is computed by, so registries on different machines can compare hashes
+   * rather than their keys to check that they agree. Values are not hashed.</p>
+   *
+   * @param codec the codec to encode keys with
+   * @return the hash
+   * @since 1.0.0
+   */
+  default long contentHash(final KeyCodec<K> codec) {
+    return RegistryDeltas.contentHash(this, codec);
+  }
+
   /**
    * Gets the keys.
    *
@@ -110,4 +429,312 @@ public interface Registry<K, V> {
    */
   @UnmodifiableView
   Set<K> keys();
+
+  /**
+   * Gets the holders, in order of their ids.
+   *
+   * <p>The holders are read straight from the registry's storage by id, rather than looked up by key. The
+   * {@linkplain Collection#spliterator() spliterator} of the returned collection knows its exact size and splits
+   * evenly, so {@linkplain Collection#parallelStream() parallel streams} divide the work fairly between threads.
+   * Iteration visits the holders which existed when it began - holders created afterwards are not visited.</p>
+   *
+   * @return the holders
+   * @since 1.0.0
+   */
+  @UnmodifiableView
+  default Collection<Holder<K, V>> holders() {
+    return new HolderCollection<>(this, () -> HolderSpliterator.of(this, this.version()));
+  }
+
+  /**
+   * Gets a stream of the {@linkplain #holders() holders}, in order of their ids.
+   *
+   * @return a stream
+   * @since 1.0.0
+   */
+  default Stream<Holder<K, V>> stream() {
+    return this.holders().stream();
+  }
+
+  /**
+   * Performs {@code action} for the key and value of each holder with a value bound, in order of their ids.
+   *
+   * @param action the action
+   * @since 1.0.0
+   */
+  default void forEach(final BiConsumer<? super K, ? super V> action) {
+    requireNonNull(action, "action");
+    this.holders().forEach(holder -> {
+      final @Nullable V value = holder.value();
+      if (value != null) {
+        action.accept(holder.key(), value);
+      }
+    });
+  }
+
+  /**
+   * Gets the tags.
+   *
+   * @return the tags
+   * @since 1.0.0
+   */
+  Tags<K, V> tags();
+
+  /**
+   * Gets the keys whose holders have no value bound.
+   *
+   * <p>These are the keys of holders {@link #getOrCreateHolder(Object) created} as forward references, for which no
+   * value has been {@link #register(Object, Object) registered} yet. The registry tracks them as it goes, so this view
+   * is proportional in size and cost to the number of unbound keys, rather than to the size of the registry.</p>
+   *
+   * @return the unbound keys
+   * @since 1.0.0
+   */
+  @UnmodifiableView
+  Set<K> unbound();
+
+  /**
+   * Checks that every holder in this registry has a value bound.
+   *
+   * @throws IllegalStateException if any holder has no value bound, listing all of their keys
+   * @see #unbound()
+   * @since 1.0.0
+   */
+  default void validate() {
+    final List<K> unbound = List.copyOf(this.unbound());
+    if (!unbound.isEmpty()) {
+      throw new IllegalStateException(unbound.size() + " keys have no value bound: " + unbound);
+    }
+  }
+
+  /**
+   * Writes the keys of this registry, in order of their ids, to a snapshot which can be {@linkplain #loadSnapshot(Path, KeyCodec, long) loaded} later.
+   *
+   * <p>Values are not written. The {@code fingerprint} identifies what the keys were derived from - such as a hash of
+   * the data they were read from - so that a snapshot which no longer matches can be rejected as stale when loaded.
+   * The snapshot replaces any existing file atomically.</p>
+   *
+   * @param path the path to write the snapshot to
+   * @param codec the codec to encode keys with
+   * @param fingerprint the fingerprint
+   * @throws IOException if the snapshot could not be written
+   * @since 1.0.0
+   */
+  default void writeSnapshot(final Path path, final KeyCodec<K> codec, final long fingerprint) throws IOException {
+    SnapshotRegistryImpl.write(this, path, codec, fingerprint);
+  }
+
+  /**
+   * Creates a read-only snapshot of this registry.
+   *
+   * <p>The returned registry shares its holders with this registry, but is backed by a compact lookup table built
+   * once, at the time of freezing. Keys registered with this registry afterwards are not visible to the snapshot.</p>
+   *
+   * <p>Any attempt to {@link #register(Object, Object) register} or {@link #getOrCreateHolder(Object) create a holder}
+   * for a key unknown to the snapshot fails with an {@link UnsupportedOperationException}. Values may still be
+   * registered for keys whose holders are not yet bound.</p>
+   *
+   * <p>The snapshot receives a copy of this registry's {@link #tags() tags}, which may be modified independently.</p>
+   *
+   * @return a frozen registry
+   * @since 1.0.0
+   */
+  default Registry<K, V> freeze() {
+    return FrozenRegistryImpl.freeze(this);
+  }
+
+  /**
+   * Creates a read-only snapshot of this registry whose bound holders can never change, so that the JIT compiler may
+   * treat their values as constants.
+   *
+   * <p>Unlike a {@linkplain #freeze() frozen} registry, the sealed registry does not share its bound holders with this
+   * registry: each is replaced by one with the same key, id and {@linkplain Holder#type() type}, whose value is fixed
+   * at the time of sealing. A holder kept where the JIT compiler can see it is constant - such as in a
+   * {@code static final} field - then costs no more to read a value from than the value itself would. Holders which
+   * are not yet bound, or whose values are {@linkplain #registerDeferred(Object, Supplier) deferred}, are shared as
+   * they would be by a frozen registry.</p>
+   *
+   * @return a sealed registry
+   * @since 1.0.0
+   */
+  default Registry<K, V> seal() {
+    return FrozenRegistryImpl.seal(this);
+  }
+
+  /**
+   * Gets a consistent, read-only view of this registry as it is now.
+   *
+   * <p>Like a {@linkplain #freeze() frozen} registry, the snapshot shares its holders with this registry, does not
+   * see keys added to this registry afterwards, and rejects attempts to add keys of its own. It receives a copy of this
+   * registry's {@link #tags() tags}, which shares their bits until either is written. {@linkplain #createVersioned() Versioned}
+   * registries take snapshots without copying any holders or keys; others freeze a copy of themselves.</p>
+   *
+   * @return a snapshot
+   * @since 1.0.0
+   */
+  default Registry<K, V> snapshot() {
+    return this.freeze();
+  }
+
+  /**
+   * A builder of registries.
+   *
+   * @param <K> the key type
+   * @param <V> the value type
+   * @since 1.0.0
+   */
+  interface Builder<K, V> {
+    /**
+     * Sets the number of entries the registry is expected to hold, so that it can be sized to hold them without growing.
+     *
+     * @param expectedSize the expected number of entries
+     * @return this builder
+     * @throws IllegalArgumentException if {@code expectedSize} is negative
+     * @since 1.0.0
+     */
+    Builder<K, V> expectedSize(final int expectedSize);
+
+    /**
+     * Sets whether the registry should be safe for use by multiple threads.
+     *
+     * @param concurrent whether the registry should be safe for use by multiple threads
+     * @return this builder
+     * @see Registry#createConcurrent()
+     * @since 1.0.0
+     */
+    Builder<K, V> concurrent(final boolean concurrent);
+
+    /**
+     * Sets whether the registry should publish an immutable version of itself on every write, so that it is safe for
+     * use by multiple threads and takes {@linkplain Registry#snapshot() snapshots} in constant time.
+     *
+     * @param versioned whether the registry should be versioned
+     * @return this builder
+     * @see Registry#createVersioned()
+     * @since 1.0.0
+     */
+    Builder<K, V> versioned(final boolean versioned);
+
+    /**
+     * Sets the number of shards the registry's keys should be partitioned into by hash, so that threads adding keys
+     * only contend with those adding keys to the same shard. The registry is safe for use by multiple threads.
+     *
+     * <p>The number is rounded up to a power of two. A good choice is a small multiple of the number of threads
+     * expected to add keys at once.</p>
+     *
+     * @param shards the number of shards
+     * @return this builder
+     * @throws IllegalArgumentException if {@code shards} is not positive
+     * @since 1.0.0
+     */
+    Builder<K, V> shards(final int shards);
+
+    /**
+     * Sets whether the registry should maintain an index from values to holders.
+     *
+     * <p>Registries without a reverse index do not pay for one, but do not support {@link Registry#getHolderByValue(Object)}.</p>
+     *
+     * @param reverseLookup whether the registry should maintain a reverse index
+     * @return this builder
+     * @since 1.0.0
+     */
+    Builder<K, V> reverseLookup(final boolean reverseLookup);
+
+    /**
+     * Sets whether keys are interned, such that equal keys are always the same instance - as is the case for {@link Key}.
+     *
+     * <p>A registry with interned keys compares keys by identity, never calling {@link Object#equals(Object)} or
+     * {@link Object#hashCode()}. Registries which are safe for use by multiple threads already compare keys by identity
+     * before equality, and are unaffected by this setting.</p>
+     *
+     * @param identityKeys whether keys are interned
+     * @return this builder
+     * @since 1.0.0
+     */
+    Builder<K, V> identityKeys(final boolean identityKeys);
+
+    /**
+     * Sets the metrics the registry should record its use to.
+     *
+     * <p>A registry built with metrics also emits JFR events for slow and conflicting registrations. Registries built
+     * without metrics record nothing, and pay nothing for it.</p>
+     *
+     * @param metrics the metrics, or {@code null} to record none
+     * @return this builder
+     * @see RegistryMetrics#create()
+     * @since 1.0.0
+     */
+    Builder<K, V> metrics(final @Nullable RegistryMetrics metrics);
+
+    /**
+     * Sets the maximum number of holders the registry should hold, evicting holders to stay within it.
+     *
+     * <p>Holders which have been used often recently are kept in preference to those which have not. Evicting a
+     * holder only drops the registry's reference to it, so anything still holding it sees no change. An evicted lazy
+     * holder with no value bound is taken back - with the same id - should its key be {@link Registry#register(Object,
+     * Object) registered} or {@link Registry#getOrCreateHolder(Object) requested} again while it is still referenced,
+     * so a lazy holder handed out before being evicted is still bound by a later registration. Other evicted keys get a
+     * new holder. An evicted holder is removed from its {@link Registry#tags() tags}, and ids are never reused.</p>
+     *
+     * <p>An evicting registry is not safe for use by multiple threads, and does not support {@linkplain
+     * #reverseLookup(boolean) reverse lookup}, deltas or snapshots, as evicted ids leave gaps. Evictions are counted by
+     * its {@link #metrics(RegistryMetrics) metrics}, if any.</p>
+     *
+     * @param maximumSize the maximum number of holders
+     * @return this builder
+     * @throws IllegalArgumentException if {@code maximumSize} is not positive
+     * @since 1.0.0
+     */
+    Builder<K, V> maximumSize(final int maximumSize);
+
+    /**
+     * Sets how the registry should reference its holders.
+     *
+     * <p>A registry referencing its holders {@linkplain References#WEAK weakly} or {@linkplain References#SOFT softly}
+     * drops them once the garbage collector clears them, evicting them just as a {@linkplain #maximumSize(int) maximum
+     * size} would. Holders reference their values strongly, so a holder is only cleared once nothing but the registry
+     * references it - a value which is still in use elsewhere does not keep its holder in the registry.</p>
+     *
+     * @param references how the registry should reference its holders
+     * @return this builder
+     * @since 1.0.0
+     */
+    Builder<K, V> references(final References references);
+
+    /**
+     * Builds a registry.
+     *
+     * @return a registry
+     * @throws IllegalStateException if the registry is to evict holders, but also to be {@linkplain #concurrent(boolean) concurrent}, {@linkplain #versioned(boolean) versioned}, {@linkplain #shards(int) sharded} or have a {@linkplain #reverseLookup(boolean) reverse index}
+     * @throws IllegalStateException if the registry is to be {@linkplain #shards(int) sharded}, but also to be {@linkplain #versioned(boolean) versioned}
+     * @since 1.0.0
+     */
+    Registry<K, V> build();
+
+    /**
+     * How a registry references its holders.
+     *
+     * @since 1.0.0
+     */
+    enum References {
+      /**
+       * Holders are referenced strongly, and are only dropped if the registry has a {@linkplain #maximumSize(int) maximum size}.
+       *
+       * @since 1.0.0
+       */
+      STRONG,
+      /**
+       * Holders are referenced softly, and are dropped when memory runs low and nothing else references them.
+       *
+       * @since 1.0.0
+       */
+      SOFT,
+      /**
+       * Holders are referenced weakly, and are dropped as soon as nothing else references them.
+       *
+       * @since 1.0.0
+       */
+      WEAK
+    }
+  }
 }
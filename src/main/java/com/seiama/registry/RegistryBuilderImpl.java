@@ -0,0 +1,134 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+@NullMarked
+final class RegistryBuilderImpl<K, V> implements Registry.Builder<K, V> {
+  private int expectedSize;
+  private boolean concurrent;
+  private boolean versioned;
+  private int shards;
+  private boolean reverseLookup;
+  private boolean identityKeys;
+  private @Nullable RegistryMetrics metrics;
+  private int maximumSize = EvictingRegistryImpl.UNBOUNDED;
+  private References references = References.STRONG;
+
+  @Override
+  public Registry.Builder<K, V> expectedSize(final int expectedSize) {
+    if (expectedSize < 0) {
+      throw new IllegalArgumentException("expectedSize must not be negative: " + expectedSize);
+    }
+    this.expectedSize = expectedSize;
+    return this;
+  }
+
+  @Override
+  public Registry.Builder<K, V> concurrent(final boolean concurrent) {
+    this.concurrent = concurrent;
+    return this;
+  }
+
+  @Override
+  public Registry.Builder<K, V> versioned(final boolean versioned) {
+    this.versioned = versioned;
+    return this;
+  }
+
+  @Override
+  public Registry.Builder<K, V> shards(final int shards) {
+    if (shards <= 0) {
+      throw new IllegalArgumentException("shards must be positive: " + shards);
+    }
+    this.shards = shards;
+    return this;
+  }
+
+  @Override
+  public Registry.Builder<K, V> reverseLookup(final boolean reverseLookup) {
+    this.reverseLookup = reverseLookup;
+    return this;
+  }
+
+  @Override
+  public Registry.Builder<K, V> identityKeys(final boolean identityKeys) {
+    this.identityKeys = identityKeys;
+    return this;
+  }
+
+  @Override
+  public Registry.Builder<K, V> metrics(final @Nullable RegistryMetrics metrics) {
+    this.metrics = metrics;
+    return this;
+  }
+
+  @Override
+  public Registry.Builder<K, V> maximumSize(final int maximumSize) {
+    if (maximumSize <= 0) {
+      throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+    }
+    this.maximumSize = maximumSize;
+    return this;
+  }
+
+  @Override
+  public Registry.Builder<K, V> references(final References references) {
+    this.references = requireNonNull(references, "references");
+    return this;
+  }
+
+  @Override
+  public Registry<K, V> build() {
+    final Registry<K, V> registry;
+    if (this.maximumSize != EvictingRegistryImpl.UNBOUNDED || this.references != References.STRONG) {
+      if (this.concurrent || this.versioned || this.shards != 0) {
+        throw new IllegalStateException("Evicting registries are not safe for use by multiple threads");
+      }
+      if (this.reverseLookup) {
+        throw new IllegalStateException("Evicting registries do not support reverse lookup");
+      }
+      registry = new EvictingRegistryImpl<>(this.maximumSize, this.references, this.identityKeys, this.metrics);
+    } else if (this.versioned) {
+      if (this.shards != 0) {
+        throw new IllegalStateException("Versioned registries cannot be sharded");
+      }
+      registry = new VersionedRegistryImpl<>(this.reverseLookup);
+    } else if (this.shards != 0) {
+      registry = new ShardedRegistryImpl<>(this.expectedSize, this.shards, this.reverseLookup);
+    } else if (this.concurrent) {
+      registry = new ConcurrentRegistryImpl<>(this.expectedSize, this.reverseLookup);
+    } else {
+      registry = new RegistryImpl<>(this.expectedSize, this.reverseLookup, this.identityKeys);
+    }
+    if (this.metrics != null) {
+      return new InstrumentedRegistry<>(registry, this.metrics);
+    }
+    return registry;
+  }
+}
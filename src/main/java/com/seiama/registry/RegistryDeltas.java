@@ -0,0 +1,244 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Encodes and applies deltas - the keys added to a registry since a given version.
+ *
+ * <p>A registry's version is the number of holders it has, so the keys added since version {@code n} are those whose
+ * ids are {@code n} or greater, in order of their ids. A delta is laid out as follows:</p>
+ * <ol>
+ *   <li>the {@link #FORMAT format}, as a single byte</li>
+ *   <li>the version the delta starts at, as a varint</li>
+ *   <li>the number of keys, as a varint</li>
+ *   <li>for each key, the number of chars it shares with the key before it, the length of the rest of it once encoded
+ *   as UTF-8, both as varints, and then the rest of it</li>
+ * </ol>
+ *
+ * <p>Keys registered together tend to share a namespace, and often more - so sending only what differs from the key
+ * before usually saves most of each key.</p>
+ */
+@NullMarked
+final class RegistryDeltas {
+  private static final byte FORMAT = 1;
+  private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+  private static final long FNV_PRIME = 0x100000001B3L;
+
+  private RegistryDeltas() {
+  }
+
+  static <K> int version(final Registry<K, ?> registry) {
+    // Ids are dense, so the version is the first id which has no holder.
+    int version = registry.keys().size();
+    while (registry.byId(version) != null) {
+      version++;
+    }
+    return version;
+  }
+
+  static <K> ByteBuffer write(final Registry<K, ?> registry, final int since, final KeyCodec<K> codec) {
+    requireNonNull(codec, "codec");
+    final int version = registry.version();
+    if (since < 0 || since > version) {
+      throw new IllegalArgumentException("Cannot write a delta since version " + since + ", registry is at version " + version);
+    }
+    final Output output = new Output(16 + (version - since) * 8);
+    output.writeByte(FORMAT);
+    output.writeVarInt(since);
+    output.writeVarInt(version - since);
+    String previous = "";
+    for (int id = since; id < version; id++) {
+      final String key = codec.encode(requireNonNull(registry.byId(id), "holder").key());
+      final int prefix = sharedPrefix(previous, key);
+      final byte[] suffix = key.substring(prefix).getBytes(StandardCharsets.UTF_8);
+      output.writeVarInt(prefix);
+      output.writeVarInt(suffix.length);
+      output.writeBytes(suffix);
+      previous = key;
+    }
+    return output.buffer();
+  }
+
+  static <K> void apply(final Registry<K, ?> registry, final ByteBuffer delta, final KeyCodec<K> codec) {
+    requireNonNull(delta, "delta");
+    requireNonNull(codec, "codec");
+    final K[] keys;
+    final int since;
+    try {
+      final byte format = delta.get();
+      if (format != FORMAT) {
+        throw new IllegalArgumentException("Unsupported delta format " + format);
+      }
+      since = readVarInt(delta);
+      keys = read(delta, readVarInt(delta), codec);
+    } catch (final BufferUnderflowException e) {
+      throw new IllegalArgumentException("Delta is truncated", e);
+    }
+
+    final int version = registry.version();
+    if (since != version) {
+      throw new IllegalStateException("Delta starts at version " + since + ", but registry is at version " + version);
+    }
+    // Check everything up front, so that a delta which does not apply cleanly changes nothing.
+    final Set<K> seen = new HashSet<>(keys.length * 4 / 3 + 1);
+    for (final K key : keys) {
+      if (!seen.add(key)) {
+        throw new IllegalArgumentException("Delta is malformed: " + key + " appears more than once");
+      }
+      if (registry.getHolder(key) != null) {
+        throw new IllegalStateException("Registry has diverged: " + key + " already exists");
+      }
+    }
+    for (int i = 0; i < keys.length; i++) {
+      final int id = registry.getOrCreateHolder(keys[i]).id();
+      if (id != since + i) {
+        throw new IllegalStateException("Registry has diverged: " + keys[i] + " was given id " + id + ", expected " + (since + i));
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <K> K[] read(final ByteBuffer delta, final int count, final KeyCodec<K> codec) {
+    // Do not trust the count enough to allocate for it up front - every key takes at least two bytes.
+    final K[] keys = (K[]) new Object[Math.min(count, delta.remaining() / 2)];
+    if (keys.length != count) {
+      throw new IllegalArgumentException("Delta is truncated");
+    }
+    String previous = "";
+    for (int i = 0; i < count; i++) {
+      final int prefix = readVarInt(delta);
+      final int length = readVarInt(delta);
+      if (prefix > previous.length() || length > delta.remaining()) {
+        throw new IllegalArgumentException("Delta is malformed");
+      }
+      final byte[] suffix = new byte[length];
+      delta.get(suffix);
+      final String key = previous.substring(0, prefix) + new String(suffix, StandardCharsets.UTF_8);
+      keys[i] = codec.decode(key);
+      previous = key;
+    }
+    return keys;
+  }
+
+  private static int sharedPrefix(final String a, final String b) {
+    final int length = Math.min(a.length(), b.length());
+    int prefix = 0;
+    while (prefix < length && a.charAt(prefix) == b.charAt(prefix)) {
+      prefix++;
+    }
+    // Never split a surrogate pair, so that the rest of the key is valid on its own.
+    if (prefix > 0 && Character.isHighSurrogate(b.charAt(prefix - 1))) {
+      prefix--;
+    }
+    return prefix;
+  }
+
+  static <K> long contentHash(final Registry<K, ?> registry, final KeyCodec<K> codec) {
+    requireNonNull(codec, "codec");
+    // 64-bit FNV-1a over each encoded key and its terminator, in order of their ids - so the hash depends on the
+    // ids of keys as well as the keys themselves.
+    long hash = FNV_OFFSET_BASIS;
+    @Nullable Holder<K, ?> holder;
+    for (int id = 0; (holder = registry.byId(id)) != null; id++) {
+      final String key = codec.encode(holder.key());
+      for (int i = 0; i < key.length(); i++) {
+        final char c = key.charAt(i);
+        hash = (hash ^ (c & 0xFF)) * FNV_PRIME;
+        hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+      }
+      hash = (hash ^ 0xFFFF) * FNV_PRIME;
+    }
+    return hash;
+  }
+
+  private static int readVarInt(final ByteBuffer buffer) {
+    int value = 0;
+    for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+      final byte b = buffer.get();
+      if (shift == 28 && (b & 0x70) != 0) {
+        // Bits past the 32nd would be shifted out, not read.
+        throw new IllegalArgumentException("Delta is malformed");
+      }
+      value |= (b & 0x7F) << shift;
+      if (b >= 0) {
+        if (value < 0) {
+          throw new IllegalArgumentException("Delta is malformed");
+        }
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Delta is malformed");
+  }
+
+  private static final class Output {
+    private byte[] bytes;
+    private int length;
+
+    Output(final int capacity) {
+      this.bytes = new byte[capacity];
+    }
+
+    private void ensure(final int count) {
+      if (this.length + count > this.bytes.length) {
+        this.bytes = Arrays.copyOf(this.bytes, Math.max(this.bytes.length << 1, this.length + count));
+      }
+    }
+
+    void writeByte(final int b) {
+      this.ensure(1);
+      this.bytes[this.length++] = (byte) b;
+    }
+
+    void writeVarInt(int value) {
+      // Seven bits at a time, least significant first, with the high bit set on all but the last byte.
+      this.ensure(5);
+      while ((value & ~0x7F) != 0) {
+        this.bytes[this.length++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      this.bytes[this.length++] = (byte) value;
+    }
+
+    void writeBytes(final byte[] bytes) {
+      this.ensure(bytes.length);
+      System.arraycopy(bytes, 0, this.bytes, this.length, bytes.length);
+      this.length += bytes.length;
+    }
+
+    ByteBuffer buffer() {
+      return ByteBuffer.wrap(this.bytes, 0, this.length);
+    }
+  }
+}
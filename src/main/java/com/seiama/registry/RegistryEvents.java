@@ -0,0 +1,82 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Records the JFR events of an {@link InstrumentedRegistry}.
+ *
+ * <p>The {@code jdk.jfr} module is optional, so the event classes are only linked through here, and only once
+ * {@link #ENABLED} says the module can be read. Events are passed around as {@code Object} for the same reason.</p>
+ */
+@NullMarked
+final class RegistryEvents {
+  static final boolean ENABLED = ModuleLayer.boot().findModule("jdk.jfr")
+    .map(RegistryEvents.class.getModule()::canRead)
+    .orElse(false);
+
+  private RegistryEvents() {
+  }
+
+  static Object beginRegistration() {
+    final RegistrationEvent event = new RegistrationEvent();
+    event.begin();
+    return event;
+  }
+
+  static void endRegistration(final Object registration, final Object key) {
+    final RegistrationEvent event = (RegistrationEvent) registration;
+    event.end();
+    if (event.shouldCommit()) {
+      event.key = String.valueOf(key);
+      event.commit();
+    }
+  }
+
+  static Object beginBulkRegistration() {
+    final BulkRegistrationEvent event = new BulkRegistrationEvent();
+    event.begin();
+    return event;
+  }
+
+  static void endBulkRegistration(final Object registration, final int entries, final int conflicts) {
+    final BulkRegistrationEvent event = (BulkRegistrationEvent) registration;
+    event.end();
+    if (event.shouldCommit()) {
+      event.entries = entries;
+      event.conflicts = conflicts;
+      event.commit();
+    }
+  }
+
+  static void conflict(final @Nullable String message) {
+    final RegistrationConflictEvent event = new RegistrationConflictEvent();
+    if (event.shouldCommit()) {
+      event.message = message;
+      event.commit();
+    }
+  }
+}
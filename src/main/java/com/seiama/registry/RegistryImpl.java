@@ -23,38 +23,134 @@
  */
 package com.seiama.registry;
 
-import java.util.Collections;
-import java.util.HashMap;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.function.Function;
 import org.jetbrains.annotations.VisibleForTesting;
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
 
 import static java.util.Objects.requireNonNull;
 
+/**
+ * A registry which keeps its holders in a dense array in order of their ids, with a separate compact index from hashes
+ * to ids, probed linearly - after the compact dictionaries of CPython.
+ *
+ * <p>Holders double as the entries - each holds its key and the key's hash, so there are no entry objects of their
+ * own, and no hash is recomputed as the index grows. The index holds no references, only ids: each slot is as narrow
+ * as the largest id it may need to hold allows - a byte for the smallest registries, then two, then four. Iterating
+ * is a walk of the dense array, in the order keys were added.</p>
+ */
 @NullMarked
 final class RegistryImpl<K, V> implements Registry<K, V> {
-  private final Map<K, Holder<K, V>> keyToHolder = new HashMap<>();
+  private static final int INITIAL_CAPACITY = 16;
+  private static final int MIN_INDEX_CAPACITY = 2;
+  private static final VarHandle SHORTS = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.nativeOrder());
+  private static final VarHandle INTS = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+  private final boolean identityKeys;
+  // Each slot holds one more than an id, or zero if empty, in as few bytes as the width allows.
+  private byte[] index;
+  private int width;
+  private int mask;
+  private int shift;
+  private Holders.Entry<K, V>[] idToHolder;
+  private int size;
+  private final UnboundKeys<K, V> unbound = UnboundKeys.ordered();
+  private final @Nullable ValueIndex<K, V> valueToHolder;
   private @Nullable Set<K> keys;
+  private @Nullable Collection<Holder<K, V>> holders;
+  private @Nullable Tags<K, V> tags;
+
+  RegistryImpl() {
+    this(0, false, false);
+  }
+
+  @SuppressWarnings("unchecked")
+  RegistryImpl(final int expectedSize, final boolean reverseLookup, final boolean identityKeys) {
+    this.identityKeys = identityKeys;
+    this.index = this.createIndex(expectedSize);
+    this.idToHolder = (Holders.Entry<K, V>[]) new Holders.Entry<?, ?>[Math.max(INITIAL_CAPACITY, expectedSize)];
+    this.valueToHolder = reverseLookup ? new ValueIndex<>(false) : null;
+  }
 
   @Override
   public @Nullable Holder<K, V> getHolder(final K key) {
     requireNonNull(key, "key");
-    return this.keyToHolder.get(key);
+    return this.find(key, this.hash(key));
+  }
+
+  private int hash(final K key) {
+    return this.identityKeys ? System.identityHashCode(key) : key.hashCode();
+  }
+
+  private int slotOf(final int hash) {
+    // Fibonacci hashing spreads poor hash codes (such as those of small integers) across the whole index.
+    return (hash * 0x9E3779B9) >>> this.shift;
+  }
+
+  private int get(final int slot) {
+    // Narrow slots are read unsigned, so that every bit holds part of an id.
+    return switch (this.width) {
+      case Byte.BYTES -> this.index[slot] & 0xFF;
+      case Short.BYTES -> (short) SHORTS.get(this.index, slot << 1) & 0xFFFF;
+      default -> (int) INTS.get(this.index, slot << 2);
+    };
+  }
+
+  private void set(final int slot, final int value) {
+    switch (this.width) {
+      case Byte.BYTES -> this.index[slot] = (byte) value;
+      case Short.BYTES -> SHORTS.set(this.index, slot << 1, (short) value);
+      default -> INTS.set(this.index, slot << 2, value);
+    }
+  }
+
+  private Holders.@Nullable Entry<K, V> find(final K key, final int hash) {
+    int slot = this.slotOf(hash);
+    int value;
+    while ((value = this.get(slot)) != 0) {
+      final Holders.Entry<K, V> candidate = this.idToHolder[value - 1];
+      if (candidate.hash() == hash) {
+        final K candidateKey = candidate.key();
+        if (candidateKey == key || (!this.identityKeys && candidateKey.equals(key))) {
+          return candidate;
+        }
+      }
+      slot = (slot + 1) & this.mask;
+    }
+    return null;
+  }
+
+  @Override
+  public @Nullable Holder<K, V> getHolderByValue(final V value) {
+    requireNonNull(value, "value");
+    return reverseLookup(this.valueToHolder).get(value);
   }
 
   @Override
   public Holder<K, V> getOrCreateHolder(final K key) {
     requireNonNull(key, "key");
 
-    @Nullable Holder<K, V> holder = this.keyToHolder.get(key);
+    final int hash = this.hash(key);
+    Holders.@Nullable Entry<K, V> holder = this.find(key, hash);
 
     if (holder == null) {
       // No value has been registered for the given key yet - creating a lazy holder here
       // allows us to provide a way to access the value once it has been registered later on.
-      holder = new Holders.Lazy<>(key);
-      this.keyToHolder.put(key, holder);
+      holder = new Holders.Lazy<>(key, hash, this.size);
+      this.add(holder);
+      this.unbound.add(holder);
     }
 
     return holder;
@@ -65,42 +161,235 @@ final class RegistryImpl<K, V> implements Registry<K, V> {
     requireNonNull(key, "key");
     requireNonNull(value, "value");
 
-    @Nullable Holder<K, V> holder = this.keyToHolder.get(key);
+    final int hash = this.hash(key);
+    Holders.@Nullable Entry<K, V> holder = this.find(key, hash);
 
     if (holder == null) {
       // A holder was not previously requested prior to registration.
-      holder = new Holders.Immediate<>(key, value);
-      this.keyToHolder.put(key, holder);
+      holder = new Holders.Immediate<>(key, hash, value, this.size);
+      this.add(holder);
     } else {
-      @Nullable V oldValue = null;
-
-      // We can't pass "K" to these casts, they are incompatible
-      if (holder instanceof final Holders.Immediate<?, V> immediate) {
-        oldValue = immediate.value();
-      } else if (holder instanceof final Holders.Lazy<?, V> lazy) {
-        // A holder was requested for this key prior to the actual
-        // registration of a value - let's attempt to bind the value to the holder
-        oldValue = lazy.bind(value);
-      }
+      bind(holder, value);
+    }
+
+    return holder;
+  }
+
+  @Override
+  public void registerAll(final Map<? extends K, ? extends V> entries) {
+    checkConflicts(this, entries);
 
+    // Size everything once up front, rather than growing repeatedly as entries are added.
+    final int expectedSize = this.size + entries.size();
+    if (expectedSize > this.idToHolder.length) {
+      this.idToHolder = Arrays.copyOf(this.idToHolder, expectedSize);
+      this.index = this.createIndex(expectedSize);
+      this.rehash();
+    }
+
+    for (final Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+      this.register(entry.getKey(), entry.getValue());
+    }
+  }
+
+  private void add(final Holders.Entry<K, V> holder) {
+    if (this.size == this.idToHolder.length) {
+      this.idToHolder = Arrays.copyOf(this.idToHolder, this.size << 1);
+    }
+    this.idToHolder[this.size++] = holder;
+    // Keep the load factor at or below 0.5, so that probe sequences stay short.
+    if (this.size > this.capacity() >>> 1) {
+      this.index = this.createIndex(this.size);
+      this.rehash();
+    } else {
+      this.insert(holder);
+    }
+    if (this.valueToHolder != null) {
+      this.valueToHolder.add(holder);
+    }
+  }
+
+  @Override
+  public @Nullable Holder<K, V> byId(final int id) {
+    return id >= 0 && id < this.size ? this.idToHolder[id] : null;
+  }
+
+  @Override
+  public Set<K> keys() {
+    if (this.keys == null) {
+      this.keys = new Keys();
+    }
+    return this.keys;
+  }
+
+  @Override
+  public Collection<Holder<K, V>> holders() {
+    if (this.holders == null) {
+      this.holders = new HolderCollection<>(this, () -> HolderSpliterator.of(this.idToHolder, this.size));
+    }
+    return this.holders;
+  }
+
+  @Override
+  public Tags<K, V> tags() {
+    if (this.tags == null) {
+      this.tags = new TagsImpl<>(this);
+    }
+    return this.tags;
+  }
+
+  @Override
+  public Set<K> unbound() {
+    return this.unbound;
+  }
+
+  static <K, V> ValueIndex<K, V> reverseLookup(final @Nullable ValueIndex<K, V> index) {
+    if (index == null) {
+      throw new UnsupportedOperationException("Reverse lookup has not been enabled for this registry");
+    }
+    return index;
+  }
+
+  private int capacity() {
+    return this.mask + 1;
+  }
+
+  private byte[] createIndex(final int expectedSize) {
+    if (expectedSize < 0) {
+      throw new IllegalArgumentException("expectedSize must not be negative: " + expectedSize);
+    }
+    // The smallest power of two which holds expectedSize entries at a load factor of at most 0.5.
+    final int capacity = Math.max(MIN_INDEX_CAPACITY, Integer.highestOneBit(Math.max(1, expectedSize) - 1) << 2);
+    // The index never holds more than half as many ids as it has slots - so that many, plus one for empty slots, must fit.
+    final int ids = capacity >>> 1;
+    this.width = ids < 0xFF ? Byte.BYTES : ids < 0xFFFF ? Short.BYTES : Integer.BYTES;
+    this.mask = capacity - 1;
+    this.shift = Integer.numberOfLeadingZeros(capacity) + 1;
+    return new byte[capacity * this.width];
+  }
+
+  private void rehash() {
+    // Every holder knows its hash, so nothing is recomputed - and holders are visited in order of their ids,
+    // so those which collide keep their relative order.
+    for (int id = 0; id < this.size; id++) {
+      this.insert(this.idToHolder[id]);
+    }
+  }
+
+  private void insert(final Holders.Entry<K, V> holder) {
+    int slot = this.slotOf(holder.hash());
+    while (this.get(slot) != 0) {
+      slot = (slot + 1) & this.mask;
+    }
+    this.set(slot, holder.id() + 1);
+  }
+
+  /**
+   * Checks that none of {@code entries} conflict with a value already bound in {@code registry}.
+   *
+   * @param registry the registry
+   * @param entries the entries
+   * @param <K> the key type
+   * @param <V> the value type
+   * @throws IllegalStateException if any entry conflicts, with each {@link #alreadyBound(Object, Object, Object) conflict} attached as a suppressed exception
+   */
+  static <K, V> void checkConflicts(final Registry<K, V> registry, final Map<? extends K, ? extends V> entries) {
+    checkConflicts(registry::getHolder, entries);
+  }
+
+  /**
+   * Checks that none of {@code entries} conflict with a value already bound in a holder found by {@code lookup}.
+   *
+   * @param lookup the holder lookup
+   * @param entries the entries
+   * @param <K> the key type
+   * @param <V> the value type
+   * @throws IllegalStateException if any entry conflicts, with each {@link #alreadyBound(Object, Object, Object) conflict} attached as a suppressed exception
+   */
+  static <K, V> void checkConflicts(final Function<? super K, ? extends @Nullable Holder<K, V>> lookup, final Map<? extends K, ? extends V> entries) {
+    @Nullable List<IllegalStateException> conflicts = null;
+    for (final Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+      final K key = requireNonNull(entry.getKey(), "key");
+      final V value = requireNonNull(entry.getValue(), "value");
+      final @Nullable Holder<K, V> holder = lookup.apply(key);
+      final @Nullable V oldValue = holder != null ? holder.value() : null;
       if (oldValue != null) {
         final @Nullable IllegalStateException alreadyBound = alreadyBound(key, oldValue, value);
         if (alreadyBound != null) {
-          // A holder already exists with a different value.
-          throw alreadyBound;
+          if (conflicts == null) {
+            conflicts = new ArrayList<>();
+          }
+          conflicts.add(alreadyBound);
         }
       }
     }
+    if (conflicts != null) {
+      final IllegalStateException exception = new IllegalStateException(conflicts.size() + " of " + entries.size() + " entries conflict with values already bound, none have been registered");
+      conflicts.forEach(exception::addSuppressed);
+      throw exception;
+    }
+  }
 
-    return holder;
+  static <K, V> void bind(final Holder<K, V> holder, final V value) {
+    @Nullable V oldValue = null;
+
+    // We can't pass "K" to these casts, they are incompatible
+    if (holder instanceof final Holders.Immediate<?, V> immediate) {
+      oldValue = immediate.value();
+    } else if (holder instanceof final Holders.Constant<?, V> constant) {
+      oldValue = constant.value();
+    } else if (holder instanceof final Holders.Lazy<?, V> lazy) {
+      // A holder was requested for this key prior to the actual
+      // registration of a value - let's attempt to bind the value to the holder.
+      // A deferred value counts as registered, so is computed to be compared with ours.
+      oldValue = Holders.deferred(lazy) ? lazy.value() : lazy.bind(value);
+    } else if (holder instanceof final Holders.Encoded<?> encoded) {
+      @SuppressWarnings("unchecked")
+      final Holders.Encoded<V> bindable = (Holders.Encoded<V>) encoded;
+      oldValue = bindable.bind(value);
+    }
+
+    if (oldValue != null) {
+      final @Nullable IllegalStateException alreadyBound = alreadyBound(holder.key(), oldValue, value);
+      if (alreadyBound != null) {
+        // A holder already exists with a different value.
+        throw alreadyBound;
+      }
+    }
   }
 
-  @Override
-  public Set<K> keys() {
-    if (this.keys == null) {
-      this.keys = Collections.unmodifiableSet(this.keyToHolder.keySet());
+  private final class Keys extends AbstractSet<K> {
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean contains(final Object o) {
+      return o != null && RegistryImpl.this.find((K) o, RegistryImpl.this.hash((K) o)) != null;
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+      // Keys are visited in order of their ids.
+      return new Iterator<>() {
+        private int id;
+
+        @Override
+        public boolean hasNext() {
+          return this.id < RegistryImpl.this.size;
+        }
+
+        @Override
+        public K next() {
+          if (!this.hasNext()) {
+            throw new NoSuchElementException();
+          }
+          return RegistryImpl.this.idToHolder[this.id++].key();
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return RegistryImpl.this.size;
     }
-    return this.keys;
   }
 
   @VisibleForTesting
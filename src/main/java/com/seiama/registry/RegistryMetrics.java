@@ -0,0 +1,172 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * Counters describing how a registry is used.
+ *
+ * <p>Metrics are recorded by registries {@linkplain Registry.Builder#metrics(RegistryMetrics) built} with them, through
+ * the {@code record} methods. Those of {@link #create()} are striped, so that threads recording at the same time do not
+ * contend with each other, and one instance may be shared between several registries to aggregate their use. Other
+ * implementations - such as ones forwarding to a metrics library - must be safe for use by multiple threads if their
+ * registries are.</p>
+ *
+ * <p>Each counter is read independently, so a read made while the registry is in use is not an atomic snapshot of
+ * all of them.</p>
+ *
+ * @since 1.0.0
+ */
+@NullMarked
+public interface RegistryMetrics {
+  /**
+   * Creates new metrics, with every counter at zero.
+   *
+   * @return metrics
+   * @since 1.0.0
+   */
+  static RegistryMetrics create() {
+    return new RegistryMetricsImpl();
+  }
+
+  /**
+   * Gets the number of lookups which found a holder.
+   *
+   * @return the number of hits
+   * @since 1.0.0
+   */
+  long hits();
+
+  /**
+   * Gets the number of lookups which found no holder.
+   *
+   * <p>This includes calls to {@link Registry#getOrCreateHolder(Object)} which create a holder.</p>
+   *
+   * @return the number of misses
+   * @since 1.0.0
+   */
+  long misses();
+
+  /**
+   * Gets the number of lazy holders {@linkplain Registry#getOrCreateHolder(Object) created} as forward references.
+   *
+   * <p>In registries which are safe for use by multiple threads, threads racing to create the same holder may each
+   * count a creation.</p>
+   *
+   * @return the number of lazy holders created
+   * @since 1.0.0
+   */
+  long lazyCreations();
+
+  /**
+   * Gets the number of values successfully {@linkplain Registry#register(Object, Object) registered}.
+   *
+   * @return the number of binds
+   * @since 1.0.0
+   */
+  long binds();
+
+  /**
+   * Gets the number of registrations which failed because a different value was already bound.
+   *
+   * @return the number of conflicts
+   * @since 1.0.0
+   */
+  long conflicts();
+
+  /**
+   * Gets the number of holders evicted by a registry with a {@linkplain Registry.Builder#maximumSize(int) maximum size}.
+   *
+   * <p>Holders dropped because the garbage collector cleared them are not counted.</p>
+   *
+   * @return the number of evictions
+   * @since 1.0.0
+   */
+  long evictions();
+
+  /**
+   * Gets the ratio of {@linkplain #hits() hits} to all lookups.
+   *
+   * <p>This is {@code 1.0} if no lookups have been made.</p>
+   *
+   * @return the hit rate, between {@code 0.0} and {@code 1.0}
+   * @since 1.0.0
+   */
+  default double hitRate() {
+    final long hits = this.hits();
+    final long lookups = hits + this.misses();
+    return lookups == 0 ? 1.0 : (double) hits / lookups;
+  }
+
+  /**
+   * Records a lookup which found a holder.
+   *
+   * @since 1.0.0
+   */
+  void recordHit();
+
+  /**
+   * Records a lookup which found no holder.
+   *
+   * @since 1.0.0
+   */
+  void recordMiss();
+
+  /**
+   * Records the creation of a lazy holder.
+   *
+   * @since 1.0.0
+   */
+  void recordLazyCreation();
+
+  /**
+   * Records {@code count} values successfully registered.
+   *
+   * @param count the number of values
+   * @since 1.0.0
+   */
+  void recordBinds(final int count);
+
+  /**
+   * Records a registration which failed because a different value was already bound.
+   *
+   * @since 1.0.0
+   */
+  void recordConflict();
+
+  /**
+   * Records a holder evicted by a registry with a maximum size.
+   *
+   * @since 1.0.0
+   */
+  void recordEviction();
+
+  /**
+   * Resets every counter to zero.
+   *
+   * @since 1.0.0
+   */
+  void reset();
+}
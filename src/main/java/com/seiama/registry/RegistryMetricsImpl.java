@@ -0,0 +1,112 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.concurrent.atomic.LongAdder;
+import org.jspecify.annotations.NullMarked;
+
+@NullMarked
+final class RegistryMetricsImpl implements RegistryMetrics {
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder lazyCreations = new LongAdder();
+  private final LongAdder binds = new LongAdder();
+  private final LongAdder conflicts = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  @Override
+  public long hits() {
+    return this.hits.sum();
+  }
+
+  @Override
+  public long misses() {
+    return this.misses.sum();
+  }
+
+  @Override
+  public long lazyCreations() {
+    return this.lazyCreations.sum();
+  }
+
+  @Override
+  public long binds() {
+    return this.binds.sum();
+  }
+
+  @Override
+  public long conflicts() {
+    return this.conflicts.sum();
+  }
+
+  @Override
+  public long evictions() {
+    return this.evictions.sum();
+  }
+
+  @Override
+  public void recordHit() {
+    this.hits.increment();
+  }
+
+  @Override
+  public void recordMiss() {
+    this.misses.increment();
+  }
+
+  @Override
+  public void recordLazyCreation() {
+    this.lazyCreations.increment();
+  }
+
+  @Override
+  public void recordBinds(final int count) {
+    this.binds.add(count);
+  }
+
+  @Override
+  public void recordConflict() {
+    this.conflicts.increment();
+  }
+
+  @Override
+  public void recordEviction() {
+    this.evictions.increment();
+  }
+
+  @Override
+  public void reset() {
+    this.hits.reset();
+    this.misses.reset();
+    this.lazyCreations.reset();
+    this.binds.reset();
+    this.conflicts.reset();
+    this.evictions.reset();
+  }
+
+  @Override
+  public String toString() {
+    return "RegistryMetrics{hits=" + this.hits() + ", misses=" + this.misses() + ", lazyCreations=" + this.lazyCreations() + ", binds=" + this.binds() + ", conflicts=" + this.conflicts() + ", evictions=" + this.evictions() + "}";
+  }
+}
@@ -0,0 +1,308 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A registry which partitions its keys by hash across shards, each locked independently.
+ *
+ * <p>Each shard is an open-addressed table of holders, probed linearly. Lookups never lock: holders are only
+ * ever added to a table, and a table which grows is replaced rather than modified, so a reader sees either a holder or
+ * nothing. Threads adding keys only contend with those adding keys to the same shard. Ids are handed out across all
+ * shards by a {@link ConcurrentIdTable}, so they stay dense.</p>
+ */
+@NullMarked
+final class ShardedRegistryImpl<K, V> implements Registry<K, V> {
+  private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Holders.Entry[].class);
+  private static final int MIN_TABLE_CAPACITY = 8;
+
+  private final Shard<K, V>[] shards;
+  private final ConcurrentIdTable<K, V> idToHolder = new ConcurrentIdTable<>();
+  private final Set<K> keys = new Keys();
+  private final Collection<Holder<K, V>> holders = new HolderCollection<>(this, () -> HolderSpliterator.of(this.idToHolder, this.idToHolder.size()));
+  private final UnboundKeys<K, V> unbound = UnboundKeys.concurrent();
+  private final @Nullable ValueIndex<K, V> valueToHolder;
+  private final Tags<K, V> tags = new TagsImpl<>(this);
+
+  @SuppressWarnings("unchecked")
+  ShardedRegistryImpl(final int expectedSize, final int shards, final boolean reverseLookup) {
+    // A power of two, so that a shard can be picked by masking.
+    final int count = Integer.highestOneBit(shards - 1) << 1;
+    this.shards = (Shard<K, V>[]) new Shard<?, ?>[Math.max(1, count)];
+    for (int i = 0; i < this.shards.length; i++) {
+      this.shards[i] = new Shard<>(expectedSize / this.shards.length);
+    }
+    this.valueToHolder = reverseLookup ? new ValueIndex<>(true) : null;
+  }
+
+  private Shard<K, V> shard(final int hash) {
+    // Shards are picked by the low bits of the hash, and slots within them by the high bits.
+    return this.shards[(hash ^ (hash >>> 16)) & (this.shards.length - 1)];
+  }
+
+  @Override
+  public @Nullable Holder<K, V> getHolder(final K key) {
+    requireNonNull(key, "key");
+    final int hash = key.hashCode();
+    return this.shard(hash).find(key, hash);
+  }
+
+  @Override
+  public @Nullable Holder<K, V> getHolderByValue(final V value) {
+    requireNonNull(value, "value");
+    return RegistryImpl.reverseLookup(this.valueToHolder).get(value);
+  }
+
+  @Override
+  public Holder<K, V> getOrCreateHolder(final K key) {
+    requireNonNull(key, "key");
+    final int hash = key.hashCode();
+    final Shard<K, V> shard = this.shard(hash);
+    @Nullable Holder<K, V> holder = shard.find(key, hash);
+    if (holder == null) {
+      holder = this.add(shard, key, hash, null);
+    }
+    return holder;
+  }
+
+  @Override
+  public Holder<K, V> register(final K key, final V value) {
+    requireNonNull(key, "key");
+    requireNonNull(value, "value");
+    final int hash = key.hashCode();
+    final Shard<K, V> shard = this.shard(hash);
+    @Nullable Holder<K, V> holder = shard.find(key, hash);
+    if (holder == null) {
+      holder = this.add(shard, key, hash, value);
+    }
+    // Binding is atomic, so only one of any racing registrations can succeed - this is
+    // a no-op if the holder was created above, as it is already bound to our value.
+    RegistryImpl.bind(holder, value);
+    return holder;
+  }
+
+  private Holder<K, V> add(final Shard<K, V> shard, final K key, final int hash, final @Nullable V value) {
+    shard.lock.lock();
+    try {
+      // Another thread may have added the key since it was looked up.
+      final Holders.@Nullable Entry<K, V> existing = shard.find(key, hash);
+      if (existing != null) {
+        return existing;
+      }
+      final int id = this.idToHolder.reserve();
+      final Holders.Entry<K, V> holder = value != null ? new Holders.Immediate<>(key, hash, value, id) : new Holders.Lazy<>(key, hash, id);
+      // Published before anything which may throw, as no id after one reserved but never published is counted.
+      this.idToHolder.set(holder);
+      if (value == null) {
+        // Tracked before it can be found by key, so that a racing registration cannot untrack it first.
+        this.unbound.add(holder);
+      }
+      if (this.valueToHolder != null) {
+        this.valueToHolder.add(holder);
+      }
+      shard.insert(holder);
+      return holder;
+    } finally {
+      shard.lock.unlock();
+    }
+  }
+
+  @Override
+  public @Nullable Holder<K, V> byId(final int id) {
+    return this.idToHolder.get(id);
+  }
+
+  @Override
+  public Set<K> keys() {
+    return this.keys;
+  }
+
+  @Override
+  public int version() {
+    return this.idToHolder.size();
+  }
+
+  @Override
+  public Collection<Holder<K, V>> holders() {
+    return this.holders;
+  }
+
+  @Override
+  public Tags<K, V> tags() {
+    return this.tags;
+  }
+
+  @Override
+  public Set<K> unbound() {
+    return this.unbound;
+  }
+
+  private static final class Shard<K, V> {
+    // Not a monitor, so that virtual threads adding keys never pin their carrier.
+    final ReentrantLock lock = new ReentrantLock();
+    // Replaced, never resized in place, so that readers always see a whole table. Slots are written with release
+    // semantics and read with acquire semantics, so a reader which sees a holder also sees every slot filled before it.
+    private volatile Holders.@Nullable Entry<K, V>[] table;
+    private volatile int size;
+
+    Shard(final int expectedSize) {
+      this.table = createTable(expectedSize);
+    }
+
+    @SuppressWarnings("unchecked")
+    Holders.@Nullable Entry<K, V> find(final K key, final int hash) {
+      final Holders.@Nullable Entry<K, V>[] table = this.table;
+      final int mask = table.length - 1;
+      int index = index(hash, table.length);
+      Holders.@Nullable Entry<K, V> holder;
+      while ((holder = (Holders.Entry<K, V>) SLOTS.getAcquire(table, index)) != null) {
+        if (holder.hash() == hash) {
+          final K candidate = holder.key();
+          if (candidate == key || candidate.equals(key)) {
+            return holder;
+          }
+        }
+        index = (index + 1) & mask;
+      }
+      return null;
+    }
+
+    /**
+     * Inserts {@code holder}, whose key must not already be present - the caller must hold the lock.
+     *
+     * @param holder the holder
+     */
+    @SuppressWarnings("unchecked")
+    void insert(final Holders.Entry<K, V> holder) {
+      final int size = this.size + 1;
+      Holders.@Nullable Entry<K, V>[] table = this.table;
+      // Keep the load factor at or below 0.5, so that probe sequences stay short.
+      if (size > table.length >>> 1) {
+        final Holders.@Nullable Entry<K, V>[] grown = createTable(size);
+        for (final Holders.@Nullable Entry<K, V> existing : table) {
+          if (existing != null) {
+            grown[slot(grown, existing.hash())] = existing;
+          }
+        }
+        this.table = table = grown;
+      }
+      SLOTS.setRelease(table, slot(table, holder.hash()), holder);
+      this.size = size;
+    }
+
+    private static <K, V> int slot(final Holders.@Nullable Entry<K, V>[] table, final int hash) {
+      final int mask = table.length - 1;
+      int index = index(hash, table.length);
+      while (table[index] != null) {
+        index = (index + 1) & mask;
+      }
+      return index;
+    }
+
+    private static int index(final int hash, final int length) {
+      // Fibonacci hashing, as in RegistryImpl - but taking only as many high bits as the table needs.
+      return (hash * 0x9E3779B9) >>> (Integer.numberOfLeadingZeros(length) + 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Holders.@Nullable Entry<K, V>[] createTable(final int expectedSize) {
+      final int capacity = Math.max(MIN_TABLE_CAPACITY, Integer.highestOneBit(Math.max(1, expectedSize) - 1) << 2);
+      return (Holders.Entry<K, V>[]) new Holders.Entry<?, ?>[capacity];
+    }
+  }
+
+  /**
+   * A view of the keys of every shard, one shard after another.
+   */
+  private final class Keys extends AbstractSet<K> {
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean contains(final Object o) {
+      return ShardedRegistryImpl.this.getHolder((K) o) != null;
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+      return new Iterator<>() {
+        private int shard;
+        private Holders.@Nullable Entry<K, V>[] table = ShardedRegistryImpl.this.shards[0].table;
+        private int index;
+        private @Nullable K next = this.advance();
+
+        @SuppressWarnings("unchecked")
+        private @Nullable K advance() {
+          while (true) {
+            while (this.index < this.table.length) {
+              final Holders.@Nullable Entry<K, V> holder = (Holders.Entry<K, V>) SLOTS.getAcquire(this.table, this.index++);
+              if (holder != null) {
+                return holder.key();
+              }
+            }
+            if (++this.shard == ShardedRegistryImpl.this.shards.length) {
+              return null;
+            }
+            this.table = ShardedRegistryImpl.this.shards[this.shard].table;
+            this.index = 0;
+          }
+        }
+
+        @Override
+        public boolean hasNext() {
+          return this.next != null;
+        }
+
+        @Override
+        public K next() {
+          final @Nullable K next = this.next;
+          if (next == null) {
+            throw new NoSuchElementException();
+          }
+          this.next = this.advance();
+          return next;
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      int size = 0;
+      for (final Shard<K, V> shard : ShardedRegistryImpl.this.shards) {
+        size += shard.size;
+      }
+      return size;
+    }
+  }
+}
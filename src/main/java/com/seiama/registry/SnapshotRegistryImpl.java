@@ -0,0 +1,468 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.CRC32;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A registry whose keys are read from a memory-mapped snapshot.
+ *
+ * <p>A snapshot holds, in id order, the encoded keys of a registry along with an open-addressed table from their
+ * hashes to their ids, so that it can be used as it is mapped - nothing is rehashed, and pages of the file are only
+ * read as they are needed. Holders are created on first use, and have values bound to them as they are registered.</p>
+ *
+ * <p>The file is laid out as follows, with all integers big-endian:</p>
+ * <ol>
+ *   <li>a header - the {@link #MAGIC magic number}, the {@link #FORMAT format}, the fingerprint, the number of keys,
+ *   the length of the table, the length of the body and the CRC-32 of the body</li>
+ *   <li>the offset of each key within the key data, followed by the length of the key data</li>
+ *   <li>the {@link String#hashCode() hash} of each encoded key</li>
+ *   <li>the table, in which each slot holds one more than the id of a key, or zero if empty</li>
+ *   <li>the key data - each key encoded as UTF-8</li>
+ * </ol>
+ *
+ * <p>Loading checks the header, that key offsets never decrease and stay within the key data, and that each slot of the
+ * table holds a valid id - but only verifies the checksum of the body when asked to, as doing so reads every page of
+ * the key data too.</p>
+ *
+ * <p>Like a {@linkplain FrozenRegistryImpl frozen registry}, no keys may be added to a snapshot.</p>
+ */
+@NullMarked
+final class SnapshotRegistryImpl<K, V> implements Registry<K, V> {
+  private static final int MAGIC = 0x53524547; // "SREG"
+  private static final int FORMAT = 1;
+  private static final int HEADER_SIZE = 36;
+  private static final int MIN_CAPACITY = 2;
+
+  private final ByteBuffer buffer;
+  private final KeyCodec<K> codec;
+  private final int size;
+  private final int mask;
+  private final int shift;
+  private final int offsets;
+  private final int hashes;
+  private final int table;
+  private final int keys;
+  private final AtomicReferenceArray<@Nullable Holder<K, V>> holders;
+  private final TagsImpl<K, V> tags = new TagsImpl<>(this);
+  private @Nullable Set<K> keySet;
+  private @Nullable Set<K> unboundKeys;
+
+  private SnapshotRegistryImpl(final ByteBuffer buffer, final KeyCodec<K> codec, final int size, final int capacity) {
+    this.buffer = buffer;
+    this.codec = codec;
+    this.size = size;
+    this.mask = capacity - 1;
+    this.shift = Integer.numberOfLeadingZeros(capacity) + 1;
+    this.offsets = HEADER_SIZE;
+    this.hashes = this.offsets + (size + 1) * Integer.BYTES;
+    this.table = this.hashes + size * Integer.BYTES;
+    this.keys = this.table + capacity * Integer.BYTES;
+    this.holders = new AtomicReferenceArray<>(size);
+  }
+
+  static <K> void write(final Registry<K, ?> registry, final Path path, final KeyCodec<K> codec, final long fingerprint) throws IOException {
+    requireNonNull(path, "path");
+    requireNonNull(codec, "codec");
+    // Ids are dense, so walking them visits every key in order.
+    int size = 0;
+    while (registry.byId(size) != null) {
+      size++;
+    }
+    final byte[][] encoded = new byte[size][];
+    final int[] hashes = new int[size];
+    long keyBytes = 0;
+    for (int id = 0; id < size; id++) {
+      final String key = codec.encode(requireNonNull(registry.byId(id), "holder").key());
+      encoded[id] = key.getBytes(StandardCharsets.UTF_8);
+      hashes[id] = key.hashCode();
+      keyBytes += encoded[id].length;
+    }
+    // Keep the load factor at or below 0.5, so that probe sequences stay short.
+    final int capacity = Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, size) - 1) << 2);
+    final long length = HEADER_SIZE + ((long) size + 1 + size + capacity) * Integer.BYTES + keyBytes;
+    if (length > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Registry is too large to snapshot: " + length + " bytes");
+    }
+
+    final ByteBuffer buffer = ByteBuffer.allocate((int) length);
+    buffer.position(HEADER_SIZE);
+    int offset = 0;
+    for (final byte[] key : encoded) {
+      buffer.putInt(offset);
+      offset += key.length;
+    }
+    buffer.putInt(offset);
+    for (final int hash : hashes) {
+      buffer.putInt(hash);
+    }
+    final int table = buffer.position();
+    final int shift = Integer.numberOfLeadingZeros(capacity) + 1;
+    for (int id = 0; id < size; id++) {
+      int index = index(hashes[id], shift);
+      while (buffer.getInt(table + index * Integer.BYTES) != 0) {
+        index = (index + 1) & (capacity - 1);
+      }
+      buffer.putInt(table + index * Integer.BYTES, id + 1);
+    }
+    buffer.position(table + capacity * Integer.BYTES);
+    for (final byte[] key : encoded) {
+      buffer.put(key);
+    }
+
+    buffer.putInt(0, MAGIC);
+    buffer.putInt(4, FORMAT);
+    buffer.putLong(8, fingerprint);
+    buffer.putInt(16, size);
+    buffer.putInt(20, capacity);
+    buffer.putLong(24, length - HEADER_SIZE);
+    buffer.putInt(32, crc(buffer, (int) length));
+    buffer.position(0);
+
+    // Write to a temporary file first, so that a snapshot is never seen half-written.
+    final Path temporary = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+    try {
+      try (final FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+        channel.force(true);
+      }
+      Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  static <K, V> Registry<K, V> load(final Path path, final KeyCodec<K> codec, final long fingerprint, final boolean verify) throws IOException {
+    requireNonNull(path, "path");
+    requireNonNull(codec, "codec");
+    final ByteBuffer buffer;
+    try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      final long length = channel.size();
+      if (length < HEADER_SIZE || length > Integer.MAX_VALUE) {
+        throw corrupt(path, "unexpected length " + length);
+      }
+      // The mapping remains valid once the channel has been closed.
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+    }
+    if (buffer.getInt(0) != MAGIC) {
+      throw corrupt(path, "not a registry snapshot");
+    }
+    if (buffer.getInt(4) != FORMAT) {
+      throw new IOException("Registry snapshot " + path + " has unsupported format " + buffer.getInt(4));
+    }
+    if (buffer.getLong(8) != fingerprint) {
+      throw new IOException("Registry snapshot " + path + " is stale: expected fingerprint " + fingerprint + ", found " + buffer.getLong(8));
+    }
+    final int size = buffer.getInt(16);
+    final int capacity = buffer.getInt(20);
+    if (size < 0 || capacity < MIN_CAPACITY || Integer.bitCount(capacity) != 1 || capacity < size) {
+      throw corrupt(path, "invalid header");
+    }
+    final int length = buffer.capacity();
+    if (buffer.getLong(24) != length - HEADER_SIZE || HEADER_SIZE + ((long) size + 1 + size + capacity) * Integer.BYTES > length) {
+      throw corrupt(path, "truncated");
+    }
+    if (verify && buffer.getInt(32) != crc(buffer, length)) {
+      throw corrupt(path, "checksum mismatch");
+    }
+    final SnapshotRegistryImpl<K, V> registry = new SnapshotRegistryImpl<>(buffer, codec, size, capacity);
+    if (registry.keys + buffer.getInt(registry.offsets + size * Integer.BYTES) != length) {
+      throw corrupt(path, "invalid key data");
+    }
+    registry.checkStructure(path);
+    return registry;
+  }
+
+  private void checkStructure(final Path path) throws IOException {
+    // Only the offsets and the table are read, so the key data is still left to be paged in as it is needed.
+    int previous = 0;
+    for (int id = 0; id <= this.size; id++) {
+      final int offset = this.buffer.getInt(this.offsets + id * Integer.BYTES);
+      if (offset < previous || (id == 0 && offset != 0)) {
+        throw corrupt(path, "invalid key offsets");
+      }
+      previous = offset;
+    }
+    for (int index = 0; index <= this.mask; index++) {
+      final int slot = this.buffer.getInt(this.table + index * Integer.BYTES);
+      if (slot < 0 || slot > this.size) {
+        throw corrupt(path, "invalid table");
+      }
+    }
+  }
+
+  private static int crc(final ByteBuffer buffer, final int length) {
+    final CRC32 crc = new CRC32();
+    crc.update(buffer.duplicate().position(HEADER_SIZE).limit(length));
+    return (int) crc.getValue();
+  }
+
+  private static IOException corrupt(final Path path, final String reason) {
+    return new IOException("Registry snapshot " + path + " is corrupt: " + reason);
+  }
+
+  private static int index(final int hash, final int shift) {
+    // Fibonacci hashing spreads poor hash codes across the whole table.
+    return (hash * 0x9E3779B9) >>> shift;
+  }
+
+  private int find(final K key) {
+    final String string = this.codec.encode(requireNonNull(key, "key"));
+    final int hash = string.hashCode();
+    int index = index(hash, this.shift);
+    int slot;
+    while ((slot = this.buffer.getInt(this.table + index * Integer.BYTES)) != 0) {
+      final int id = slot - 1;
+      if (this.buffer.getInt(this.hashes + id * Integer.BYTES) == hash && this.matches(id, string)) {
+        return id;
+      }
+      index = (index + 1) & this.mask;
+    }
+    return -1;
+  }
+
+  private boolean matches(final int id, final String string) {
+    final int start = this.keys + this.buffer.getInt(this.offsets + id * Integer.BYTES);
+    final int length = this.keys + this.buffer.getInt(this.offsets + (id + 1) * Integer.BYTES) - start;
+    // UTF-8 never takes fewer bytes than there are chars, and ASCII takes exactly one byte per char.
+    if (length < string.length()) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      final byte b = this.buffer.get(start + i);
+      if (b < 0) {
+        return this.string(id).equals(string);
+      }
+      if (i >= string.length() || string.charAt(i) != b) {
+        return false;
+      }
+    }
+    return length == string.length();
+  }
+
+  private String string(final int id) {
+    final int start = this.keys + this.buffer.getInt(this.offsets + id * Integer.BYTES);
+    final int end = this.keys + this.buffer.getInt(this.offsets + (id + 1) * Integer.BYTES);
+    final byte[] bytes = new byte[end - start];
+    this.buffer.get(start, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private Holder<K, V> holder(final int id, final @Nullable K key) {
+    final @Nullable Holder<K, V> holder = this.holders.get(id);
+    if (holder != null) {
+      return holder;
+    }
+    final K createdKey = key != null ? key : this.codec.decode(this.string(id));
+    final Holder<K, V> created = new Holders.Lazy<>(createdKey, createdKey.hashCode(), id);
+    final @Nullable Holder<K, V> witness = this.holders.compareAndExchange(id, null, created);
+    return witness != null ? witness : created;
+  }
+
+  @Override
+  public @Nullable Holder<K, V> getHolder(final K key) {
+    final int id = this.find(key);
+    return id != -1 ? this.holder(id, key) : null;
+  }
+
+  @Override
+  public @Nullable Holder<K, V> getHolderByValue(final V value) {
+    requireNonNull(value, "value");
+    throw new UnsupportedOperationException("Registries loaded from a snapshot do not support reverse lookup");
+  }
+
+  @Override
+  public Holder<K, V> getOrCreateHolder(final K key) {
+    final @Nullable Holder<K, V> holder = this.getHolder(key);
+    if (holder == null) {
+      throw unknown(key);
+    }
+    return holder;
+  }
+
+  @Override
+  public Holder<K, V> register(final K key, final V value) {
+    requireNonNull(value, "value");
+    final Holder<K, V> holder = this.getOrCreateHolder(key);
+    RegistryImpl.bind(holder, value);
+    return holder;
+  }
+
+  @Override
+  public void registerAll(final Map<? extends K, ? extends V> entries) {
+    // Reject unknown keys before anything is bound.
+    for (final K key : entries.keySet()) {
+      if (this.find(key) == -1) {
+        throw unknown(key);
+      }
+    }
+    Registry.super.registerAll(entries);
+  }
+
+  @Override
+  public @Nullable Holder<K, V> byId(final int id) {
+    return id >= 0 && id < this.size ? this.holder(id, null) : null;
+  }
+
+  @Override
+  public Set<K> keys() {
+    if (this.keySet == null) {
+      this.keySet = new Keys();
+    }
+    return this.keySet;
+  }
+
+  @Override
+  public Tags<K, V> tags() {
+    return this.tags;
+  }
+
+  @Override
+  public Set<K> unbound() {
+    if (this.unboundKeys == null) {
+      this.unboundKeys = new Unbound();
+    }
+    return this.unboundKeys;
+  }
+
+  private boolean unbound(final int id) {
+    final @Nullable Holder<K, V> holder = this.holders.get(id);
+    return holder == null || Holders.unbound(holder);
+  }
+
+  private static UnsupportedOperationException unknown(final Object key) {
+    return new UnsupportedOperationException("Registry was loaded from a snapshot, cannot add " + key);
+  }
+
+  private final class Keys extends AbstractSet<K> {
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean contains(final Object o) {
+      return o != null && SnapshotRegistryImpl.this.find((K) o) != -1;
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+      return new Iterator<>() {
+        private int id;
+
+        @Override
+        public boolean hasNext() {
+          return this.id < SnapshotRegistryImpl.this.size;
+        }
+
+        @Override
+        public K next() {
+          if (!this.hasNext()) {
+            throw new NoSuchElementException();
+          }
+          return SnapshotRegistryImpl.this.holder(this.id++, null).key();
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return SnapshotRegistryImpl.this.size;
+    }
+  }
+
+  /**
+   * The keys of holders which have no value bound.
+   *
+   * <p>Every key of a snapshot starts out unbound, so unlike other registries, this view is proportional to the size
+   * of the registry.</p>
+   */
+  private final class Unbound extends AbstractSet<K> {
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean contains(final Object o) {
+      if (o == null) {
+        return false;
+      }
+      final int id = SnapshotRegistryImpl.this.find((K) o);
+      return id != -1 && SnapshotRegistryImpl.this.unbound(id);
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+      return new Iterator<>() {
+        private int id = this.advance(0);
+
+        private int advance(int id) {
+          while (id < SnapshotRegistryImpl.this.size && !SnapshotRegistryImpl.this.unbound(id)) {
+            id++;
+          }
+          return id;
+        }
+
+        @Override
+        public boolean hasNext() {
+          return this.id < SnapshotRegistryImpl.this.size;
+        }
+
+        @Override
+        public K next() {
+          if (!this.hasNext()) {
+            throw new NoSuchElementException();
+          }
+          final K key = SnapshotRegistryImpl.this.holder(this.id, null).key();
+          this.id = this.advance(this.id + 1);
+          return key;
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      int size = 0;
+      for (int id = 0; id < SnapshotRegistryImpl.this.size; id++) {
+        if (SnapshotRegistryImpl.this.unbound(id)) {
+          size++;
+        }
+      }
+      return size;
+    }
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A registry keyed by strings, which can look up holders by any {@link CharSequence}.
+ *
+ * @param <V> the value type
+ * @since 1.0.0
+ */
+@NullMarked
+public interface StringRegistry<V> extends Registry<String, V> {
+  /**
+   * Creates a new registry which keeps its keys outside the heap.
+   *
+   * @param <V> the value type
+   * @return a registry
+   * @see #createOffHeap(int)
+   * @since 1.0.0
+   */
+  static <V> StringRegistry<V> createOffHeap() {
+    return new OffHeapRegistryImpl<>(0);
+  }
+
+  /**
+   * Creates a new registry which keeps its keys outside the heap, sized to hold {@code expectedSize} entries without
+   * growing.
+   *
+   * <p>Keys are encoded as UTF-8 into direct buffers, along with the table used to look them up, so that even
+   * millions of keys leave the garbage collector next to nothing to trace. Holders and values remain on the heap, but
+   * holders do not keep their keys: {@link Holder#key()} decodes the key each time it is called, as does iterating
+   * over {@link #keys()}. Lookups decode nothing.</p>
+   *
+   * <p>The returned registry does not support {@link #getHolderByValue(Object)} or {@linkplain
+   * #registerDeferred(Object, java.util.function.Supplier) deferred values}, and is not safe for use by multiple
+   * threads.</p>
+   *
+   * @param expectedSize the expected number of entries
+   * @param <V> the value type
+   * @return a registry
+   * @throws IllegalArgumentException if {@code expectedSize} is negative
+   * @since 1.0.0
+   */
+  static <V> StringRegistry<V> createOffHeap(final int expectedSize) {
+    return new OffHeapRegistryImpl<>(expectedSize);
+  }
+
+  /**
+   * Gets a holder by its key, given as any sequence of chars - such as a slice of a larger buffer - without creating a
+   * {@link String}.
+   *
+   * <p>{@code null} will be returned if no value has been {@link #register(Object, Object) registered} for
+   * {@code key}.</p>
+   *
+   * @param key the key
+   * @return a holder, or {@code null}
+   * @throws NullPointerException if the provided key is null
+   * @since 1.0.0
+   */
+  @Nullable Holder<String, V> getHolder(final CharSequence key);
+}
@@ -0,0 +1,146 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.Set;
+import org.jetbrains.annotations.UnmodifiableView;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * A named set of holders from a single registry.
+ *
+ * <p>Tags are backed by a bitset over the {@link Holder#id() ids} of their holders: testing membership is a single bit
+ * test, and combining tags operates on 64 holders at a time.</p>
+ *
+ * <p>Tags are not safe for concurrent modification.</p>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ * @see Registry#tags()
+ * @since 1.0.0
+ */
+@NullMarked
+public interface Tag<K, V> {
+  /**
+   * Gets the name.
+   *
+   * @return the name
+   * @since 1.0.0
+   */
+  K name();
+
+  /**
+   * Checks if {@code holder} is in this tag.
+   *
+   * <p>{@code holder} must belong to the registry this tag belongs to.</p>
+   *
+   * @param holder the holder
+   * @return {@code true} if {@code holder} is in this tag, {@code false} otherwise
+   * @since 1.0.0
+   */
+  boolean contains(final Holder<K, V> holder);
+
+  /**
+   * Checks if the holder for {@code key} is in this tag.
+   *
+   * @param key the key
+   * @return {@code true} if the holder for {@code key} is in this tag, {@code false} otherwise
+   * @since 1.0.0
+   */
+  boolean containsKey(final K key);
+
+  /**
+   * Adds {@code holder} to this tag.
+   *
+   * @param holder the holder
+   * @return {@code true} if {@code holder} was not already in this tag, {@code false} otherwise
+   * @throws IllegalArgumentException if {@code holder} does not belong to the registry this tag belongs to
+   * @since 1.0.0
+   */
+  boolean add(final Holder<K, V> holder);
+
+  /**
+   * Adds the holder for {@code key} to this tag, {@link Registry#getOrCreateHolder(Object) creating} it if necessary.
+   *
+   * <p>This allows a tag to refer to entries whose values have not been registered yet.</p>
+   *
+   * @param key the key
+   * @return the holder
+   * @since 1.0.0
+   */
+  Holder<K, V> add(final K key);
+
+  /**
+   * Removes {@code holder} from this tag.
+   *
+   * @param holder the holder
+   * @return {@code true} if {@code holder} was in this tag, {@code false} otherwise
+   * @since 1.0.0
+   */
+  boolean remove(final Holder<K, V> holder);
+
+  /**
+   * Adds every holder in {@code that} to this tag.
+   *
+   * @param that the other tag
+   * @throws IllegalArgumentException if {@code that} belongs to a different registry
+   * @since 1.0.0
+   */
+  void addAll(final Tag<K, V> that);
+
+  /**
+   * Removes every holder which is not in {@code that} from this tag.
+   *
+   * @param that the other tag
+   * @throws IllegalArgumentException if {@code that} belongs to a different registry
+   * @since 1.0.0
+   */
+  void retainAll(final Tag<K, V> that);
+
+  /**
+   * Removes every holder in {@code that} from this tag.
+   *
+   * @param that the other tag
+   * @throws IllegalArgumentException if {@code that} belongs to a different registry
+   * @since 1.0.0
+   */
+  void removeAll(final Tag<K, V> that);
+
+  /**
+   * Gets the number of holders in this tag.
+   *
+   * @return the number of holders
+   * @since 1.0.0
+   */
+  int size();
+
+  /**
+   * Gets the holders in this tag, in order of {@link Holder#id() id}.
+   *
+   * @return the holders
+   * @since 1.0.0
+   */
+  @UnmodifiableView
+  Set<Holder<K, V>> holders();
+}
@@ -0,0 +1,70 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.Set;
+import org.jetbrains.annotations.UnmodifiableView;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * The {@link Tag tags} of a registry.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ * @see Registry#tags()
+ * @since 1.0.0
+ */
+@NullMarked
+public interface Tags<K, V> {
+  /**
+   * Gets a tag by its name.
+   *
+   * @param name the name
+   * @return a tag, or {@code null}
+   * @throws NullPointerException if the provided name is null
+   * @since 1.0.0
+   */
+  @Nullable Tag<K, V> get(final K name);
+
+  /**
+   * Gets a tag by its name, or creates a new, empty tag if one does not already exist.
+   *
+   * @param name the name
+   * @return a tag
+   * @throws NullPointerException if the provided name is null
+   * @since 1.0.0
+   */
+  @SuppressWarnings("checkstyle:MethodName")
+  Tag<K, V> getOrCreate(final K name);
+
+  /**
+   * Gets the names of the tags.
+   *
+   * @return the names
+   * @since 1.0.0
+   */
+  @UnmodifiableView
+  Set<K> names();
+}
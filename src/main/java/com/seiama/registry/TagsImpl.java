@@ -0,0 +1,281 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+@NullMarked
+final class TagsImpl<K, V> implements Tags<K, V> {
+  private final Registry<K, V> registry;
+  private final ConcurrentMap<K, TagImpl<K, V>> tags = new ConcurrentHashMap<>();
+  private final Set<K> names = Collections.unmodifiableSet(this.tags.keySet());
+
+  TagsImpl(final Registry<K, V> registry) {
+    this.registry = registry;
+  }
+
+  /**
+   * Copies the tags of {@code source}, which must belong to a registry sharing the holders of ours.
+   *
+   * <p>No bits are copied: each tag shares its words with the one it was copied from, until either is next written.</p>
+   *
+   * @param source the tags to copy
+   */
+  void share(final Tags<K, V> source) {
+    for (final TagImpl<K, V> tag : ((TagsImpl<K, V>) source).tags.values()) {
+      tag.shared = true;
+      this.tags.put(tag.name, new TagImpl<>(this, tag.name, tag.words, true));
+    }
+  }
+
+  /**
+   * Removes the holder with the id {@code id} from every tag, as it no longer belongs to our registry.
+   *
+   * @param id the id
+   */
+  void removeAll(final int id) {
+    for (final TagImpl<K, V> tag : this.tags.values()) {
+      tag.remove(id);
+    }
+  }
+
+  @Override
+  public @Nullable Tag<K, V> get(final K name) {
+    requireNonNull(name, "name");
+    return this.tags.get(name);
+  }
+
+  @Override
+  public Tag<K, V> getOrCreate(final K name) {
+    requireNonNull(name, "name");
+    return this.tags.computeIfAbsent(name, n -> new TagImpl<>(this, n, new long[0], false));
+  }
+
+  @Override
+  public Set<K> names() {
+    return this.names;
+  }
+
+  private static final class TagImpl<K, V> implements Tag<K, V> {
+    private final TagsImpl<K, V> owner;
+    private final K name;
+    private long[] words;
+    // Whether the words are shared with another tag, and must be copied before they are written.
+    private boolean shared;
+    private @Nullable Set<Holder<K, V>> holders;
+
+    TagImpl(final TagsImpl<K, V> owner, final K name, final long[] words, final boolean shared) {
+      this.owner = owner;
+      this.name = name;
+      this.words = words;
+      this.shared = shared;
+    }
+
+    private long[] words(final int length) {
+      if (this.shared || length > this.words.length) {
+        this.words = Arrays.copyOf(this.words, Math.max(length, this.words.length));
+        this.shared = false;
+      }
+      return this.words;
+    }
+
+    @Override
+    public K name() {
+      return this.name;
+    }
+
+    @Override
+    public boolean contains(final Holder<K, V> holder) {
+      return this.get(holder.id());
+    }
+
+    @Override
+    public boolean containsKey(final K key) {
+      final int id = this.owner.registry.idOf(key);
+      return id != -1 && this.get(id);
+    }
+
+    @Override
+    public boolean add(final Holder<K, V> holder) {
+      if (this.owner.registry.byId(holder.id()) != holder) {
+        throw new IllegalArgumentException(holder + " does not belong to the registry of " + this);
+      }
+      final int id = holder.id();
+      final int word = id >>> 6;
+      if (this.get(id)) {
+        return false;
+      }
+      final long[] words = this.words(word < this.words.length ? 0 : Math.max(word + 1, this.words.length << 1));
+      words[word] |= 1L << id;
+      return true;
+    }
+
+    @Override
+    public Holder<K, V> add(final K key) {
+      final Holder<K, V> holder = this.owner.registry.getOrCreateHolder(key);
+      this.add(holder);
+      return holder;
+    }
+
+    @Override
+    public boolean remove(final Holder<K, V> holder) {
+      return this.remove(holder.id());
+    }
+
+    private boolean remove(final int id) {
+      if (!this.get(id)) {
+        return false;
+      }
+      this.words(0)[id >>> 6] &= ~(1L << id);
+      return true;
+    }
+
+    @Override
+    public void addAll(final Tag<K, V> that) {
+      final long[] words = this.words(that);
+      final long[] ours = this.words(words.length);
+      for (int i = 0; i < words.length; i++) {
+        ours[i] |= words[i];
+      }
+    }
+
+    @Override
+    public void retainAll(final Tag<K, V> that) {
+      final long[] words = this.words(that);
+      final long[] ours = this.words(0);
+      final int shared = Math.min(words.length, ours.length);
+      for (int i = 0; i < shared; i++) {
+        ours[i] &= words[i];
+      }
+      Arrays.fill(ours, shared, ours.length, 0L);
+    }
+
+    @Override
+    public void removeAll(final Tag<K, V> that) {
+      final long[] words = this.words(that);
+      final long[] ours = this.words(0);
+      final int shared = Math.min(words.length, ours.length);
+      for (int i = 0; i < shared; i++) {
+        ours[i] &= ~words[i];
+      }
+    }
+
+    @Override
+    public int size() {
+      int size = 0;
+      for (final long word : this.words) {
+        size += Long.bitCount(word);
+      }
+      return size;
+    }
+
+    @Override
+    public Set<Holder<K, V>> holders() {
+      if (this.holders == null) {
+        this.holders = new HolderSet();
+      }
+      return this.holders;
+    }
+
+    @Override
+    public String toString() {
+      return "Tag[name=" + this.name + ", size=" + this.size() + "]";
+    }
+
+    private boolean get(final int id) {
+      final int word = id >>> 6;
+      return word < this.words.length && (this.words[word] & (1L << id)) != 0;
+    }
+
+    private long[] words(final Tag<K, V> that) {
+      if (!(that instanceof final TagImpl<K, V> tag) || tag.owner != this.owner) {
+        throw new IllegalArgumentException(that + " does not belong to the registry of " + this);
+      }
+      return tag.words;
+    }
+
+    private int next(final int from) {
+      int word = from >>> 6;
+      if (word >= this.words.length) {
+        return -1;
+      }
+      long bits = this.words[word] & (-1L << from);
+      while (true) {
+        if (bits != 0) {
+          return (word << 6) + Long.numberOfTrailingZeros(bits);
+        }
+        if (++word == this.words.length) {
+          return -1;
+        }
+        bits = this.words[word];
+      }
+    }
+
+    private final class HolderSet extends AbstractSet<Holder<K, V>> {
+      @Override
+      public boolean contains(final Object o) {
+        // Unlike Tag#contains, this must not assume the holder belongs to our registry.
+        return o instanceof final Holder<?, ?> holder && TagImpl.this.get(holder.id()) && TagImpl.this.owner.registry.byId(holder.id()) == holder;
+      }
+
+      @Override
+      public Iterator<Holder<K, V>> iterator() {
+        return new Iterator<>() {
+          private int next = TagImpl.this.next(0);
+
+          @Override
+          public boolean hasNext() {
+            return this.next != -1;
+          }
+
+          @Override
+          public Holder<K, V> next() {
+            if (this.next == -1) {
+              throw new NoSuchElementException();
+            }
+            final Holder<K, V> holder = requireNonNull(TagImpl.this.owner.registry.byId(this.next), "holder");
+            this.next = TagImpl.this.next(this.next + 1);
+            return holder;
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return TagImpl.this.size();
+      }
+    }
+  }
+}
@@ -0,0 +1,200 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * The keys of lazy holders which have no value bound or deferred, tracked as they are created and resolved.
+ *
+ * <p>Each holder {@linkplain #add(Holder) added} removes itself once it has a value bound or deferred - however that
+ * happens, whether through the registry which added it, another registry sharing it (such as a {@link Registry#freeze()
+ * frozen} one), or a deferred value being computed - so the backing map only ever holds unbound holders, and its size
+ * is their count. Holders are still checked as they are read, as one may be bound moments before it removes itself.</p>
+ *
+ * <p>Ordered keys are kept in the order they were added, under a lock, as holders may remove themselves from any
+ * thread; iterators then walk a copy. Concurrent keys need no lock, and are iterated weakly consistently. A view
+ * {@linkplain #upTo(int) up to} an id shares the keys, but ignores holders at or past it - as a
+ * {@linkplain Registry#snapshot() snapshot} did not have them yet.</p>
+ */
+@NullMarked
+final class UnboundKeys<K, V> extends AbstractSet<K> {
+  private final Map<K, Holder<K, V>> holders;
+  private final boolean concurrent;
+  private final int limit;
+
+  private UnboundKeys(final Map<K, Holder<K, V>> holders, final boolean concurrent, final int limit) {
+    this.holders = holders;
+    this.concurrent = concurrent;
+    this.limit = limit;
+  }
+
+  static <K, V> UnboundKeys<K, V> ordered() {
+    return new UnboundKeys<>(new LinkedHashMap<>(), false, Integer.MAX_VALUE);
+  }
+
+  static <K, V> UnboundKeys<K, V> concurrent() {
+    return new UnboundKeys<>(new ConcurrentHashMap<>(), true, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Gets a view of these keys which ignores holders with an id at or past {@code limit}.
+   *
+   * @param limit the limit
+   * @return a view
+   */
+  UnboundKeys<K, V> upTo(final int limit) {
+    return new UnboundKeys<>(this.holders, this.concurrent, limit);
+  }
+
+  /**
+   * Tracks {@code holder}, until it has a value bound or deferred.
+   *
+   * @param holder the holder
+   */
+  void add(final Holder<K, V> holder) {
+    final K key = holder.key();
+    if (this.concurrent) {
+      this.holders.put(key, holder);
+    } else {
+      synchronized (this.holders) {
+        this.holders.put(key, holder);
+      }
+    }
+    if (holder instanceof final Holders.Bindable<?> bindable) {
+      bindable.onResolved(new Untrack(key));
+    }
+  }
+
+  private void untrack(final K key) {
+    if (this.concurrent) {
+      this.holders.remove(key);
+    } else {
+      synchronized (this.holders) {
+        this.holders.remove(key);
+      }
+    }
+  }
+
+  private boolean unbound(final Holder<K, V> holder) {
+    return holder.id() < this.limit && Holders.unbound(holder);
+  }
+
+  private Collection<Holder<K, V>> holders() {
+    if (this.concurrent) {
+      return this.holders.values();
+    }
+    synchronized (this.holders) {
+      return new ArrayList<>(this.holders.values());
+    }
+  }
+
+  @Override
+  public boolean contains(final Object o) {
+    final @Nullable Holder<K, V> holder;
+    if (this.concurrent) {
+      holder = this.holders.get(o);
+    } else {
+      synchronized (this.holders) {
+        holder = this.holders.get(o);
+      }
+    }
+    return holder != null && this.unbound(holder);
+  }
+
+  @Override
+  public Iterator<K> iterator() {
+    final Iterator<Holder<K, V>> it = this.holders().iterator();
+    return new Iterator<>() {
+      private @Nullable K next = this.advance();
+
+      private @Nullable K advance() {
+        while (it.hasNext()) {
+          final Holder<K, V> holder = it.next();
+          if (UnboundKeys.this.unbound(holder)) {
+            return holder.key();
+          }
+        }
+        return null;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return this.next != null;
+      }
+
+      @Override
+      public K next() {
+        final @Nullable K next = this.next;
+        if (next == null) {
+          throw new NoSuchElementException();
+        }
+        this.next = this.advance();
+        return next;
+      }
+    };
+  }
+
+  @Override
+  public int size() {
+    if (this.limit == Integer.MAX_VALUE) {
+      if (this.concurrent) {
+        return this.holders.size();
+      }
+      synchronized (this.holders) {
+        return this.holders.size();
+      }
+    }
+    // Only the holders still unbound are visited, however many the registry has.
+    int size = 0;
+    for (final Holder<K, V> holder : this.holders()) {
+      if (this.unbound(holder)) {
+        size++;
+      }
+    }
+    return size;
+  }
+
+  private final class Untrack extends Holders.Resolution {
+    private final K key;
+
+    Untrack(final K key) {
+      this.key = key;
+    }
+
+    @Override
+    void resolved() {
+      UnboundKeys.this.untrack(this.key);
+    }
+  }
+}
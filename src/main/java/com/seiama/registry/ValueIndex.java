@@ -0,0 +1,86 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * An index from values to the holders they are bound to, by identity.
+ *
+ * <p>Values are compared by identity, just as {@link RegistryImpl#alreadyBound(Object, Object, Object)} does. Should a
+ * value be bound to more than one holder, the first to be indexed wins.</p>
+ */
+@NullMarked
+final class ValueIndex<K, V> {
+  private final Map<Object, Holder<K, V>> holders;
+  private final boolean concurrent;
+
+  ValueIndex(final boolean concurrent) {
+    // IdentityHashMap is not safe for concurrent use, so values are wrapped in an identity key instead.
+    this.holders = concurrent ? new ConcurrentHashMap<>() : new IdentityHashMap<>();
+    this.concurrent = concurrent;
+  }
+
+  /**
+   * Indexes {@code holder}, now if it is bound, or as soon as it is bound otherwise.
+   *
+   * @param holder the holder
+   */
+  void add(final Holder<K, V> holder) {
+    final @Nullable V value = holder.value();
+    if (value != null) {
+      this.put(value, holder);
+    } else {
+      holder.onBound(bound -> this.put(bound, holder));
+    }
+  }
+
+  private void put(final V value, final Holder<K, V> holder) {
+    this.holders.putIfAbsent(this.key(value), holder);
+  }
+
+  @Nullable Holder<K, V> get(final V value) {
+    return this.holders.get(this.key(value));
+  }
+
+  private Object key(final V value) {
+    return this.concurrent ? new Identity(value) : value;
+  }
+
+  private record Identity(Object value) {
+    @Override
+    public boolean equals(final @Nullable Object that) {
+      return that instanceof final Identity identity && this.value == identity.value;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(this.value);
+    }
+  }
+}
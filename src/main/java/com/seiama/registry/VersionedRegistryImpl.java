@@ -0,0 +1,371 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A registry which publishes an immutable version of itself on every write, so that {@link #snapshot()} is free.
+ *
+ * <p>Keys are held in a {@link HashTrie}, which each write copies only the path to the new holder of, and holders by
+ * id in a {@link ConcurrentIdTable}, which ids are only ever appended to - so a version is just a trie and a count of
+ * ids. Readers never lock, and see the version current as they read. Writers adding keys are serialized, but binding a
+ * value to an existing holder is atomic and needs no lock.</p>
+ *
+ * <p>Lazy holders are tracked in a map shared by every version as they are created and bound, which each version
+ * filters to the ids it holds - and tags are shared copy-on-write - so taking a snapshot copies nothing.</p>
+ */
+@NullMarked
+final class VersionedRegistryImpl<K, V> implements Registry<K, V> {
+  private final ConcurrentIdTable<K, V> idToHolder = new ConcurrentIdTable<>();
+  private final @Nullable ValueIndex<K, V> valueToHolder;
+  private final UnboundKeys<K, V> unbound = UnboundKeys.concurrent();
+  private final Set<K> keys = new Live(true);
+  private final Set<K> unboundKeys = new Live(false);
+  private final Collection<Holder<K, V>> holders = new HolderCollection<>(this, () -> HolderSpliterator.of(this, this.current.size));
+  private final TagsImpl<K, V> tags = new TagsImpl<>(this);
+  private volatile Snapshot<K, V> current;
+
+  VersionedRegistryImpl(final boolean reverseLookup) {
+    this.valueToHolder = reverseLookup ? new ValueIndex<>(true) : null;
+    this.current = new Snapshot<>(this.idToHolder, this.valueToHolder, this.unbound, HashTrie.empty(), 0);
+  }
+
+  @Override
+  public @Nullable Holder<K, V> getHolder(final K key) {
+    return this.current.getHolder(key);
+  }
+
+  @Override
+  public @Nullable Holder<K, V> getHolderByValue(final V value) {
+    return this.current.getHolderByValue(value);
+  }
+
+  @Override
+  public Holder<K, V> getOrCreateHolder(final K key) {
+    @Nullable Holder<K, V> holder = this.current.getHolder(key);
+    if (holder == null) {
+      holder = this.add(key, null);
+    }
+    return holder;
+  }
+
+  @Override
+  public Holder<K, V> register(final K key, final V value) {
+    requireNonNull(value, "value");
+    @Nullable Holder<K, V> holder = this.current.getHolder(key);
+    if (holder == null) {
+      holder = this.add(key, value);
+    }
+    // This is a no-op if the holder was created above, as it is already bound to our value.
+    RegistryImpl.bind(holder, value);
+    return holder;
+  }
+
+  @Override
+  public void registerAll(final Map<? extends K, ? extends V> entries) {
+    // Checked before locking, as deferred values are computed to be compared - and their suppliers may do anything,
+    // including registering in this registry from another thread. A key added by another writer in the meantime may
+    // still conflict, which binding then reports.
+    RegistryImpl.checkConflicts(this.current, entries);
+    final List<Holder<K, V>> existing = new ArrayList<>(entries.size());
+    synchronized (this) {
+      final Snapshot<K, V> current = this.current;
+      // Every new holder is published in a single version, so no snapshot sees only some of them.
+      HashTrie<K, V> trie = current.trie;
+      int size = current.size;
+      for (final Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+        final @Nullable Holder<K, V> holder = current.getHolder(entry.getKey());
+        if (holder != null) {
+          existing.add(holder);
+        } else {
+          final Holders.Entry<K, V> created = this.create(entry.getKey(), entry.getValue());
+          trie = trie.with(created);
+          size++;
+        }
+      }
+      this.current = new Snapshot<>(this.idToHolder, this.valueToHolder, this.unbound, trie, size);
+    }
+    for (final Holder<K, V> holder : existing) {
+      RegistryImpl.bind(holder, requireNonNull(entries.get(holder.key()), "value"));
+    }
+  }
+
+  private synchronized Holder<K, V> add(final K key, final @Nullable V value) {
+    final Snapshot<K, V> current = this.current;
+    // Another writer may have added the key since it was looked up.
+    final @Nullable Holder<K, V> existing = current.getHolder(key);
+    if (existing != null) {
+      return existing;
+    }
+    final Holders.Entry<K, V> holder = this.create(key, value);
+    this.current = new Snapshot<>(this.idToHolder, this.valueToHolder, this.unbound, current.trie.with(holder), current.size + 1);
+    return holder;
+  }
+
+  private Holders.Entry<K, V> create(final K key, final @Nullable V value) {
+    final int id = this.idToHolder.reserve();
+    final Holders.Entry<K, V> holder;
+    if (value != null) {
+      holder = new Holders.Immediate<>(key, key.hashCode(), value, id);
+    } else {
+      holder = new Holders.Lazy<>(key, key.hashCode(), id);
+      // Tracked before the version holding it is published, so no version misses it - and filtered out by those
+      // which do not hold it yet.
+      this.unbound.add(holder);
+    }
+    this.idToHolder.set(holder);
+    if (this.valueToHolder != null) {
+      this.valueToHolder.add(holder);
+    }
+    return holder;
+  }
+
+  @Override
+  public @Nullable Holder<K, V> byId(final int id) {
+    return this.current.byId(id);
+  }
+
+  @Override
+  public Set<K> keys() {
+    return this.keys;
+  }
+
+  @Override
+  public Collection<Holder<K, V>> holders() {
+    return this.holders;
+  }
+
+  @Override
+  public Tags<K, V> tags() {
+    return this.tags;
+  }
+
+  @Override
+  public Set<K> unbound() {
+    return this.unboundKeys;
+  }
+
+  @Override
+  public int version() {
+    return this.current.size;
+  }
+
+  @Override
+  public Registry<K, V> snapshot() {
+    final Snapshot<K, V> current = this.current;
+    final Snapshot<K, V> snapshot = new Snapshot<>(this.idToHolder, this.valueToHolder, this.unbound, current.trie, current.size);
+    snapshot.tags().share(this.tags);
+    return snapshot;
+  }
+
+  /**
+   * A view of the keys, or of the unbound keys, of whichever version is current - iterators see the version current
+   * when they were created, and nothing written after it.
+   */
+  private final class Live extends AbstractSet<K> {
+    private final boolean all;
+
+    Live(final boolean all) {
+      this.all = all;
+    }
+
+    private Set<K> current() {
+      final Snapshot<K, V> current = VersionedRegistryImpl.this.current;
+      return this.all ? current.keys() : current.unbound();
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+      return this.current().contains(o);
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+      return this.current().iterator();
+    }
+
+    @Override
+    public int size() {
+      return this.current().size();
+    }
+  }
+
+  /**
+   * An immutable version of the registry.
+   *
+   * <p>Holders are shared with the registry, so values bound to them after the snapshot was taken are visible through
+   * it - but keys added after it are not.</p>
+   */
+  static final class Snapshot<K, V> implements Registry<K, V> {
+    private final ConcurrentIdTable<K, V> idToHolder;
+    private final @Nullable ValueIndex<K, V> valueToHolder;
+    private final UnboundKeys<K, V> unbound;
+    final HashTrie<K, V> trie;
+    final int size;
+    private @Nullable Set<K> keys;
+    private @Nullable Collection<Holder<K, V>> holders;
+    private @Nullable TagsImpl<K, V> tags;
+
+    Snapshot(final ConcurrentIdTable<K, V> idToHolder, final @Nullable ValueIndex<K, V> valueToHolder, final UnboundKeys<K, V> unbound, final HashTrie<K, V> trie, final int size) {
+      this.idToHolder = idToHolder;
+      this.valueToHolder = valueToHolder;
+      this.unbound = unbound;
+      this.trie = trie;
+      this.size = size;
+    }
+
+    @Override
+    public @Nullable Holder<K, V> getHolder(final K key) {
+      requireNonNull(key, "key");
+      return this.trie.get(key, key.hashCode());
+    }
+
+    @Override
+    public @Nullable Holder<K, V> getHolderByValue(final V value) {
+      requireNonNull(value, "value");
+      final @Nullable Holder<K, V> holder = RegistryImpl.reverseLookup(this.valueToHolder).get(value);
+      return holder != null && holder.id() < this.size ? holder : null;
+    }
+
+    @Override
+    public Holder<K, V> getOrCreateHolder(final K key) {
+      final @Nullable Holder<K, V> holder = this.getHolder(key);
+      if (holder == null) {
+        throw snapshot(key);
+      }
+      return holder;
+    }
+
+    @Override
+    public Holder<K, V> register(final K key, final V value) {
+      requireNonNull(value, "value");
+      final @Nullable Holder<K, V> holder = this.getHolder(key);
+      if (holder == null) {
+        throw snapshot(key);
+      }
+      RegistryImpl.bind(holder, value);
+      return holder;
+    }
+
+    @Override
+    public @Nullable Holder<K, V> byId(final int id) {
+      return id >= 0 && id < this.size ? this.idToHolder.get(id) : null;
+    }
+
+    @Override
+    public Set<K> keys() {
+      if (this.keys == null) {
+        this.keys = new Keys();
+      }
+      return this.keys;
+    }
+
+    @Override
+    public Collection<Holder<K, V>> holders() {
+      if (this.holders == null) {
+        this.holders = new HolderCollection<>(this, () -> HolderSpliterator.of(this, this.size));
+      }
+      return this.holders;
+    }
+
+    @Override
+    public synchronized TagsImpl<K, V> tags() {
+      if (this.tags == null) {
+        this.tags = new TagsImpl<>(this);
+      }
+      return this.tags;
+    }
+
+    @Override
+    public Set<K> unbound() {
+      return this.unbound.upTo(this.size);
+    }
+
+    @Override
+    public int version() {
+      return this.size;
+    }
+
+    @Override
+    public Registry<K, V> snapshot() {
+      return this;
+    }
+
+    private Holder<K, V> holder(final int id) {
+      // Holders are published before the version holding them, so every id below the size has one.
+      return requireNonNull(this.idToHolder.get(id), "holder");
+    }
+
+    private static UnsupportedOperationException snapshot(final Object key) {
+      return new UnsupportedOperationException("Registry is a snapshot, cannot add " + key);
+    }
+
+    /**
+     * A view of the keys, in order of their ids.
+     */
+    private final class Keys extends AbstractSet<K> {
+      @Override
+      public boolean contains(final Object o) {
+        return Snapshot.this.trie.get(o, o.hashCode()) != null;
+      }
+
+      @Override
+      public Iterator<K> iterator() {
+        return new Iterator<>() {
+          private int next;
+
+          @Override
+          public boolean hasNext() {
+            return this.next < Snapshot.this.size;
+          }
+
+          @Override
+          public K next() {
+            if (this.next >= Snapshot.this.size) {
+              throw new NoSuchElementException();
+            }
+            return Snapshot.this.holder(this.next++).key();
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return Snapshot.this.size;
+      }
+    }
+  }
+}
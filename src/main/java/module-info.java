@@ -22,6 +22,7 @@
  * SOFTWARE.
  */
 module com.seiama.registry {
+  requires static jdk.jfr;
   requires static transitive org.jetbrains.annotations;
   requires static transitive org.jspecify;
 
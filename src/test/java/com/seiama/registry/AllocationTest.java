@@ -0,0 +1,140 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks that lookups do not allocate, by counting the bytes the current thread allocates around them.
+ *
+ * <p>Tests run interpreted as often as not, where escape analysis cannot remove allocations - so these only pass if
+ * the lookups really allocate nothing.</p>
+ */
+class AllocationTest {
+  private static final int SIZE = 1000;
+  private static final int ROUNDS = 10;
+  // Looked up once - looking it up allocates.
+  private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+  private static long allocatedBytes() {
+    if (THREADS instanceof final com.sun.management.ThreadMXBean bean && bean.isThreadAllocatedMemoryEnabled()) {
+      return bean.getCurrentThreadAllocatedBytes();
+    }
+    return -1;
+  }
+
+  private static void assertNoAllocations(final Registry<String, RegistryTest.Item> registry) {
+    final String[] hits = new String[SIZE];
+    final String[] misses = new String[SIZE];
+    for (int i = 0; i < SIZE; i++) {
+      hits[i] = "key" + i;
+      registry.register(hits[i], new RegistryTest.Item());
+      misses[i] = "missing" + i;
+      // Hash codes of strings are cached on first use.
+      misses[i].hashCode();
+    }
+    final Registry<String, RegistryTest.Item> frozen = registry.freeze();
+    final Registry<String, RegistryTest.Item> sealed = registry.seal();
+    assumeTrue(allocatedBytes() != -1, "Thread allocation counting is not supported");
+
+    // The first round creates the cached optionals. The runtime itself may now and then allocate on this thread, so
+    // the quietest of the remaining rounds is taken - lookups which allocated would do so in every round.
+    long allocated = Long.MAX_VALUE;
+    for (int round = 0; round < ROUNDS; round++) {
+      final long before = allocatedBytes();
+      for (int i = 0; i < SIZE; i++) {
+        lookup(registry, hits[i], misses[i]);
+        lookup(frozen, hits[i], misses[i]);
+        lookup(sealed, hits[i], misses[i]);
+      }
+      if (round > 0) {
+        allocated = Math.min(allocated, allocatedBytes() - before);
+      }
+    }
+    assertEquals(0, allocated, "bytes allocated by lookups");
+  }
+
+  private static void lookup(final Registry<String, RegistryTest.Item> registry, final String hit, final String miss) {
+    final Holder<String, RegistryTest.Item> holder = registry.getHolder(hit);
+    final Optional<Holder<String, RegistryTest.Item>> optional = registry.getHolderOptionally(hit);
+    assertSame(holder, optional.get());
+    assertSame(optional, registry.getHolderOptionally(hit));
+    assertSame(holder.valueOptionally(), holder.valueOptionally());
+    assertSame(holder, registry.getOrCreateHolder(hit));
+    assertSame(holder, registry.byId(holder.id()));
+    registry.getHolder(miss);
+    registry.getHolderOptionally(miss);
+  }
+
+  @Test
+  void testDefault() {
+    assertNoAllocations(Registry.create());
+  }
+
+  @Test
+  void testInternedKeys() {
+    assertNoAllocations(Registry.<String, RegistryTest.Item>builder().identityKeys(true).build());
+  }
+
+  @Test
+  void testConcurrent() {
+    assertNoAllocations(Registry.createConcurrent());
+  }
+
+  @Test
+  void testOffHeap() {
+    final StringRegistry<RegistryTest.Item> registry = StringRegistry.createOffHeap();
+    assertNoAllocations(registry);
+    final StringBuilder key = new StringBuilder("key0");
+    final Holder<String, RegistryTest.Item> holder = registry.getHolder(key);
+    assumeTrue(allocatedBytes() != -1, "Thread allocation counting is not supported");
+    long allocated = Long.MAX_VALUE;
+    for (int round = 0; round < ROUNDS; round++) {
+      final long before = allocatedBytes();
+      for (int i = 0; i < SIZE; i++) {
+        assertSame(holder, registry.getHolder(key));
+      }
+      allocated = Math.min(allocated, allocatedBytes() - before);
+    }
+    assertEquals(0, allocated, "bytes allocated by lookups");
+  }
+
+  @Test
+  void testLazyHolders() {
+    final Registry<String, RegistryTest.Item> registry = Registry.create();
+    final Holder<String, RegistryTest.Item> holder = registry.getOrCreateHolder("lazy");
+    assertSame(Optional.empty(), holder.valueOptionally());
+    registry.register("lazy", new RegistryTest.Item());
+    final Optional<RegistryTest.Item> value = holder.valueOptionally();
+    assertSame(value, holder.valueOptionally());
+    assertSame(holder.value(), value.get());
+  }
+}
@@ -0,0 +1,322 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentRegistryTest {
+  private static final int THREADS = 8;
+  private static final int ROUNDS = 200;
+  private static final String EMPTY = "empty";
+
+  private final Registry<String, RegistryTest.Item> registry = Registry.createConcurrent();
+
+  @Test
+  void testImmediate() {
+    final RegistryTest.Item item = new RegistryTest.Item();
+    final Holder<String, RegistryTest.Item> holder = this.registry.register(EMPTY, item);
+    assertSame(Holder.Type.IMMEDIATE, holder.type());
+    assertSame(item, holder.value());
+    assertSame(holder, this.registry.getHolder(EMPTY));
+    assertEquals(Set.of(EMPTY), this.registry.keys());
+    assertSame(holder, this.registry.register(EMPTY, item));
+    assertThrows(IllegalStateException.class, () -> this.registry.register(EMPTY, new RegistryTest.Item()));
+  }
+
+  @Test
+  void testLazy() {
+    assertNull(this.registry.getHolder(EMPTY));
+    final Holder<String, RegistryTest.Item> holder = this.registry.getOrCreateHolder(EMPTY);
+    assertSame(Holder.Type.LAZY, holder.type());
+    assertFalse(holder.bound());
+    final RegistryTest.Item item = new RegistryTest.Item();
+    assertSame(holder, this.registry.register(EMPTY, item));
+    assertSame(item, holder.value());
+    assertThrows(IllegalStateException.class, () -> this.registry.register(EMPTY, new RegistryTest.Item()));
+  }
+
+  @Test
+  void testRegisterAllConflicts() {
+    final Holder<String, RegistryTest.Item> lazy = this.registry.getOrCreateHolder("lazy");
+    this.registry.register(EMPTY, new RegistryTest.Item());
+    final IllegalStateException exception = assertThrows(IllegalStateException.class, () -> this.registry.registerAll(Map.of(
+      "lazy", new RegistryTest.Item(),
+      EMPTY, new RegistryTest.Item()
+    )));
+    assertEquals(1, exception.getSuppressed().length);
+    assertFalse(lazy.bound());
+    this.registry.registerAll(Map.of("lazy", new RegistryTest.Item(), "new", new RegistryTest.Item()));
+    assertTrue(lazy.bound());
+    assertEquals(Set.of("lazy", EMPTY, "new"), this.registry.keys());
+  }
+
+  @Test
+  void testRacingUnboundTracking() throws Exception {
+    final RegistryTest.Item item = new RegistryTest.Item();
+    this.race(() -> {
+      for (int i = 0; i < 1_000; i++) {
+        this.registry.getOrCreateHolder("key" + i);
+        // Only even keys are ever bound.
+        if ((i & 1) == 0) {
+          this.registry.register("key" + i, item);
+        }
+      }
+      return null;
+    });
+    final Set<String> unbound = this.registry.unbound();
+    assertEquals(500, unbound.size());
+    for (final String key : unbound) {
+      assertEquals(1, Integer.parseInt(key.substring(3)) & 1);
+    }
+    assertThrows(IllegalStateException.class, this.registry::validate);
+  }
+
+  @Test
+  void testRacingGetHolderByValue() throws Exception {
+    final Registry<String, RegistryTest.Item> registry = Registry.<String, RegistryTest.Item>builder().concurrent(true).reverseLookup(true).build();
+    final RegistryTest.Item[] items = new RegistryTest.Item[1_000];
+    for (int i = 0; i < items.length; i++) {
+      items[i] = new RegistryTest.Item();
+    }
+    this.race(() -> {
+      for (int i = 0; i < items.length; i++) {
+        if ((i & 1) == 0) {
+          registry.getOrCreateHolder("key" + i);
+        }
+        registry.register("key" + i, items[i]);
+      }
+      return null;
+    });
+    for (int i = 0; i < items.length; i++) {
+      assertSame(registry.getHolder("key" + i), registry.getHolderByValue(items[i]));
+    }
+  }
+
+  @Test
+  void testRacingGetOrCreateObservesSameHolder() throws Exception {
+    for (int round = 0; round < ROUNDS; round++) {
+      final String key = "key" + round;
+      final List<Holder<String, RegistryTest.Item>> holders = this.race(() -> this.registry.getOrCreateHolder(key));
+      for (final Holder<String, RegistryTest.Item> holder : holders) {
+        assertSame(holders.get(0), holder);
+      }
+      assertSame(holders.get(0), this.registry.getHolder(key));
+    }
+    assertEquals(ROUNDS, this.registry.keys().size());
+  }
+
+  @Test
+  void testRacingRegistrationsOnlyOneWins() throws Exception {
+    for (int round = 0; round < ROUNDS; round++) {
+      final String key = "key" + round;
+      // Half of the rounds start with a lazy holder, so that both the immediate and the lazy paths are raced.
+      final boolean lazy = (round & 1) == 0;
+      if (lazy) {
+        this.registry.getOrCreateHolder(key);
+      }
+      final AtomicInteger winners = new AtomicInteger();
+      final AtomicInteger losers = new AtomicInteger();
+      final List<RegistryTest.Item> values = new ArrayList<>();
+      final List<Holder<String, RegistryTest.Item>> holders = this.race(() -> {
+        final RegistryTest.Item item = new RegistryTest.Item();
+        try {
+          final Holder<String, RegistryTest.Item> holder = this.registry.register(key, item);
+          winners.incrementAndGet();
+          synchronized (values) {
+            values.add(item);
+          }
+          return holder;
+        } catch (final IllegalStateException e) {
+          // alreadyBound must still be reported when losing a race.
+          losers.incrementAndGet();
+          return null;
+        }
+      });
+      assertEquals(1, winners.get());
+      assertEquals(THREADS - 1, losers.get());
+      final Holder<String, RegistryTest.Item> holder = this.registry.getHolder(key);
+      assertNotNull(holder);
+      assertSame(lazy ? Holder.Type.LAZY : Holder.Type.IMMEDIATE, holder.type());
+      assertSame(values.get(0), holder.value());
+      assertTrue(holders.contains(holder));
+    }
+  }
+
+  @Test
+  void testRacingSameValueRegistrations() throws Exception {
+    for (int round = 0; round < ROUNDS; round++) {
+      final String key = "key" + round;
+      final RegistryTest.Item item = new RegistryTest.Item();
+      final List<Holder<String, RegistryTest.Item>> holders = this.race(() -> {
+        // Re-registering the same value is always permitted, no matter who gets there first.
+        if ((Thread.currentThread().getId() & 1) == 0) {
+          this.registry.getOrCreateHolder(key);
+        }
+        return this.registry.register(key, item);
+      });
+      for (final Holder<String, RegistryTest.Item> holder : holders) {
+        assertSame(holders.get(0), holder);
+        assertSame(item, holder.value());
+      }
+    }
+  }
+
+  @Test
+  void testBoundValueVisibleToReaders() throws Exception {
+    final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      for (int round = 0; round < ROUNDS; round++) {
+        final String key = "key" + round;
+        final Holder<String, RegistryTest.Item> holder = this.registry.getOrCreateHolder(key);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<RegistryTest.Item>> readers = new ArrayList<>();
+        for (int i = 0; i < THREADS - 1; i++) {
+          readers.add(executor.submit(() -> {
+            start.await();
+            RegistryTest.Item value;
+            while ((value = holder.value()) == null) {
+              Thread.onSpinWait();
+            }
+            return value;
+          }));
+        }
+        start.countDown();
+        final RegistryTest.Item item = new RegistryTest.Item();
+        this.registry.register(key, item);
+        for (final Future<RegistryTest.Item> reader : readers) {
+          assertSame(item, reader.get(10, TimeUnit.SECONDS));
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void testRacingCreationKeepsIdsDense() throws Exception {
+    final int perThread = 1_000;
+    final RegistryTest.Item item = new RegistryTest.Item();
+    this.race(() -> {
+      for (int i = 0; i < perThread; i++) {
+        // Every thread walks the same keys, so most creations lose a race.
+        this.registry.getOrCreateHolder("key" + i);
+        this.registry.register("value" + i, item);
+      }
+      return null;
+    });
+    final int size = perThread * 2;
+    assertEquals(size, this.registry.keys().size());
+    final boolean[] seen = new boolean[size];
+    for (final String key : this.registry.keys()) {
+      final int id = this.registry.idOf(key);
+      assertFalse(seen[id]);
+      seen[id] = true;
+      assertSame(this.registry.getHolder(key), this.registry.byId(id));
+    }
+    assertNull(this.registry.byId(size));
+  }
+
+  @Test
+  void testHoldersWhileRegistering() throws Exception {
+    final int perThread = 1_000;
+    final RegistryTest.Item item = new RegistryTest.Item();
+    this.race(() -> {
+      for (int i = 0; i < perThread; i++) {
+        this.registry.getOrCreateHolder("key" + i);
+        // Whatever the holders are at this moment, they are in order and complete.
+        int expected = 0;
+        for (final Holder<String, RegistryTest.Item> holder : this.registry.holders()) {
+          assertEquals(expected++, holder.id());
+        }
+      }
+      return null;
+    });
+    assertEquals(perThread, this.registry.holders().size());
+    assertEquals(perThread, this.registry.stream().parallel().map(Holder::key).distinct().count());
+  }
+
+  @Test
+  void testHoldersPublishedOutOfOrder() {
+    final ConcurrentIdTable<String, RegistryTest.Item> table = new ConcurrentIdTable<>();
+    final Holder<String, RegistryTest.Item> first = new Holders.Lazy<>("first", "first".hashCode(), table.reserve());
+    final Holder<String, RegistryTest.Item> second = new Holders.Lazy<>("second", "second".hashCode(), table.reserve());
+    // Nothing after an id which is reserved, but not yet published, is counted - so readers never wait for it.
+    table.set(second);
+    assertEquals(0, table.size());
+    assertSame(second, table.get(1));
+    table.set(first);
+    assertEquals(2, table.size());
+  }
+
+  private <T> List<T> race(final RaceTask<T> task) throws Exception {
+    final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      final CountDownLatch ready = new CountDownLatch(THREADS);
+      final CountDownLatch start = new CountDownLatch(1);
+      final List<Future<T>> futures = new ArrayList<>();
+      for (int i = 0; i < THREADS; i++) {
+        futures.add(executor.submit(() -> {
+          ready.countDown();
+          start.await();
+          return task.run();
+        }));
+      }
+      ready.await();
+      start.countDown();
+      final List<T> results = new ArrayList<>();
+      for (final Future<T> future : futures) {
+        final T result = future.get(10, TimeUnit.SECONDS);
+        if (result != null) {
+          results.add(result);
+        }
+      }
+      return results;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @FunctionalInterface
+  private interface RaceTask<T> {
+    T run();
+  }
+}
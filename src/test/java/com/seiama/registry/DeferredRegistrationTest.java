@@ -0,0 +1,185 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.Set;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeferredRegistrationTest {
+  private final Registry<String, Value> registry = Registry.createConcurrent();
+
+  @Test
+  void testComputedOnFirstAccess() {
+    final AtomicInteger computed = new AtomicInteger();
+    final Value item = new Value(null);
+    final Holder<String, Value> holder = this.registry.registerDeferred("a", () -> {
+      computed.incrementAndGet();
+      return item;
+    });
+    assertFalse(holder.bound());
+    assertTrue(this.registry.unbound().isEmpty());
+    assertEquals(0, computed.get());
+
+    assertSame(item, holder.value());
+    assertTrue(holder.bound());
+    assertSame(item, this.registry.getHolder("a").value());
+    assertEquals(1, computed.get());
+  }
+
+  @Test
+  void testForwardReferences() {
+    final Holder<String, Value> b = this.registry.getOrCreateHolder("b");
+    assertEquals(Set.of("b"), this.registry.unbound());
+    assertEquals(1, this.registry.unbound().size());
+    final Holder<String, Value> a = this.registry.registerDeferred("a", () -> new Value(b.value()));
+    this.registry.registerDeferred("b", () -> new Value(null));
+    // Deferring a value stops tracking the key, as much as binding one does.
+    assertEquals(0, this.registry.unbound().size());
+
+    // Computing a computes b first.
+    assertSame(b.value(), a.valueOrThrow().dependency());
+    assertTrue(b.bound());
+  }
+
+  @Test
+  void testCircular() {
+    final Holder<String, Value> a = this.registry.getOrCreateHolder("a");
+    final Holder<String, Value> b = this.registry.getOrCreateHolder("b");
+    this.registry.registerDeferred("a", () -> new Value(b.value()));
+    this.registry.registerDeferred("b", () -> new Value(a.value()));
+    assertThrows(IllegalStateException.class, a::value);
+    assertFalse(a.bound());
+    assertFalse(b.bound());
+  }
+
+  @Test
+  void testConflicts() {
+    final Value item = new Value(null);
+    this.registry.register("bound", item);
+    assertThrows(IllegalStateException.class, () -> this.registry.registerDeferred("bound", () -> new Value(null)));
+
+    final Holder<String, Value> holder = this.registry.registerDeferred("deferred", () -> item);
+    assertThrows(IllegalStateException.class, () -> this.registry.registerDeferred("deferred", () -> new Value(null)));
+    // Registering a value computes the deferred one, which it must agree with.
+    assertThrows(IllegalStateException.class, () -> this.registry.register("deferred", new Value(null)));
+    assertSame(item, holder.value());
+    assertSame(holder, this.registry.register("deferred", item));
+  }
+
+  @Test
+  void testFailureIsRetried() {
+    final AtomicInteger attempts = new AtomicInteger();
+    final Holder<String, Value> holder = this.registry.registerDeferred("a", () -> {
+      if (attempts.incrementAndGet() == 1) {
+        throw new IllegalArgumentException("first attempt");
+      }
+      return new Value(null);
+    });
+    assertThrows(IllegalArgumentException.class, holder::value);
+    assertFalse(holder.bound());
+    assertTrue(holder.value() != null);
+    assertEquals(2, attempts.get());
+  }
+
+  @Test
+  void testInitializeAll() {
+    final int count = 1_000;
+    final AtomicInteger computed = new AtomicInteger();
+    for (int i = 0; i < count; i++) {
+      // Each value depends on the one before it, registered before or after it.
+      final Holder<String, Value> previous = i == 0 ? null : this.registry.getOrCreateHolder("key" + (i - 1));
+      this.registry.registerDeferred("key" + i, () -> {
+        computed.incrementAndGet();
+        return new Value(previous != null ? previous.value() : null);
+      });
+    }
+    this.registry.initializeAll(ForkJoinPool.commonPool());
+    assertEquals(count, computed.get());
+    for (int i = 1; i < count; i++) {
+      assertSame(this.registry.getHolder("key" + (i - 1)).value(), this.registry.getHolder("key" + i).valueOrThrow().dependency());
+    }
+    this.registry.validate();
+  }
+
+  @Test
+  void testInitializeAllInParallel() {
+    final int threads = 4;
+    final CyclicBarrier barrier = new CyclicBarrier(threads);
+    for (int i = 0; i < threads; i++) {
+      this.registry.registerDeferred("key" + i, () -> {
+        try {
+          // Only passes if every value is being computed at once.
+          barrier.await(10, TimeUnit.SECONDS);
+        } catch (final InterruptedException | BrokenBarrierException | TimeoutException e) {
+          throw new IllegalStateException(e);
+        }
+        return new Value(null);
+      });
+    }
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      this.registry.initializeAll(executor);
+    } finally {
+      executor.shutdownNow();
+    }
+    assertTrue(this.registry.holders().stream().allMatch(Holder::bound));
+  }
+
+  @Test
+  void testInitializeAllFailures() {
+    final Holder<String, Value> a = this.registry.getOrCreateHolder("a");
+    final Holder<String, Value> b = this.registry.getOrCreateHolder("b");
+    this.registry.registerDeferred("a", () -> new Value(b.value()));
+    this.registry.registerDeferred("b", () -> new Value(a.value()));
+    this.registry.registerDeferred("c", () -> new Value(null));
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      // However the tasks interleave, the circular values fail rather than waiting on each other forever.
+      final IllegalStateException exception = assertThrows(IllegalStateException.class, () -> this.registry.initializeAll(executor));
+      assertEquals(2, exception.getSuppressed().length);
+    } finally {
+      executor.shutdownNow();
+    }
+    assertTrue(this.registry.getHolder("c").bound());
+    assertFalse(a.bound());
+    assertFalse(b.bound());
+  }
+
+  record Value(Value dependency) {
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EvictingRegistryTest {
+  private final RegistryMetrics metrics = RegistryMetrics.create();
+
+  private Registry<String, RegistryTest.Item> create(final int maximumSize) {
+    return Registry.<String, RegistryTest.Item>builder()
+      .maximumSize(maximumSize)
+      .metrics(this.metrics)
+      .build();
+  }
+
+  @Test
+  void testMaximumSize() {
+    final Registry<String, RegistryTest.Item> registry = this.create(10);
+    for (int i = 0; i < 100; i++) {
+      registry.register("key" + i, new RegistryTest.Item());
+    }
+    assertEquals(10, registry.keys().size());
+    assertEquals(10, registry.holders().size());
+    assertEquals(90, this.metrics.evictions());
+    // Ids are never reused, so the version counts every holder ever created.
+    assertEquals(100, registry.version());
+    for (final Holder<String, RegistryTest.Item> holder : registry.holders()) {
+      assertSame(holder, registry.getHolder(holder.key()));
+      assertSame(holder, registry.byId(holder.id()));
+    }
+  }
+
+  @Test
+  void testFrequentHoldersKept() {
+    final Registry<String, RegistryTest.Item> registry = this.create(100);
+    for (int i = 0; i < 10; i++) {
+      registry.register("hot" + i, new RegistryTest.Item());
+    }
+    for (int i = 0; i < 10_000; i++) {
+      registry.register("cold" + i, new RegistryTest.Item());
+      registry.getHolder("hot" + (i % 10));
+    }
+    for (int i = 0; i < 10; i++) {
+      assertNotNull(registry.getHolder("hot" + i), "hot" + i);
+    }
+    assertTrue(this.metrics.hitRate() > 0.99);
+  }
+
+  @Test
+  void testEvictedHolderReclaimed() {
+    final Registry<String, RegistryTest.Item> registry = this.create(1);
+    final Holder<String, RegistryTest.Item> lazy = registry.getOrCreateHolder("a");
+    registry.register("b", new RegistryTest.Item());
+    assertNull(registry.getHolder("a"));
+    assertFalse(registry.keys().contains("a"));
+
+    // The holder handed out before it was evicted is bound, rather than a new one being created.
+    final RegistryTest.Item item = new RegistryTest.Item();
+    assertSame(lazy, registry.register("a", item));
+    assertSame(item, lazy.value());
+    assertEquals(0, lazy.id());
+    assertEquals(Set.of("a"), registry.keys());
+    assertSame(lazy, registry.byId(0));
+
+    // A holder evicted with a value bound keeps it, but is not taken back.
+    final Holder<String, RegistryTest.Item> b = registry.register("b", new RegistryTest.Item());
+    assertNotSame(lazy, registry.register("a", new RegistryTest.Item()));
+    assertSame(item, lazy.value());
+    assertNotSame(b, registry.register("b", new RegistryTest.Item()));
+  }
+
+  @Test
+  void testWeakReferences() throws InterruptedException {
+    final Registry<String, RegistryTest.Item> registry = Registry.<String, RegistryTest.Item>builder()
+      .references(Registry.Builder.References.WEAK)
+      .build();
+    final Holder<String, RegistryTest.Item> retained = registry.register("retained", new RegistryTest.Item());
+    registry.register("dropped", new RegistryTest.Item());
+    for (int i = 0; i < 100 && registry.keys().contains("dropped"); i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertEquals(Set.of("retained"), registry.keys());
+    assertSame(retained, registry.getHolder("retained"));
+    assertNull(registry.getHolder("dropped"));
+    assertEquals(2, registry.register("dropped", new RegistryTest.Item()).id());
+  }
+
+  @Test
+  void testTags() {
+    final Registry<String, RegistryTest.Item> registry = this.create(1);
+    final Tag<String, RegistryTest.Item> tag = registry.tags().getOrCreate("tag");
+    tag.add("a");
+    registry.register("b", new RegistryTest.Item());
+    tag.add("b");
+    assertEquals(1, tag.size());
+    assertTrue(tag.containsKey("b"));
+    final List<String> keys = new ArrayList<>();
+    tag.holders().forEach(holder -> keys.add(holder.key()));
+    assertEquals(List.of("b"), keys);
+  }
+
+  @Test
+  void testFreeze() {
+    final Registry<String, RegistryTest.Item> registry = this.create(2);
+    registry.register("a", new RegistryTest.Item());
+    registry.getOrCreateHolder("b");
+    registry.register("c", new RegistryTest.Item());
+    final Registry<String, RegistryTest.Item> frozen = registry.freeze();
+    assertEquals(registry.keys(), frozen.keys());
+    assertEquals(registry.unbound(), frozen.unbound());
+  }
+
+  @Test
+  void testUnsupported() {
+    final Registry<String, RegistryTest.Item> registry = this.create(10);
+    assertThrows(UnsupportedOperationException.class, () -> registry.getHolderByValue(new RegistryTest.Item()));
+    assertThrows(UnsupportedOperationException.class, () -> registry.writeDelta(0, KeyCodec.string()));
+    assertThrows(UnsupportedOperationException.class, () -> registry.contentHash(KeyCodec.string()));
+    assertThrows(IllegalArgumentException.class, () -> Registry.builder().maximumSize(0));
+    assertThrows(IllegalStateException.class, () -> Registry.builder().maximumSize(10).concurrent(true).build());
+    assertThrows(IllegalStateException.class, () -> Registry.builder().references(Registry.Builder.References.SOFT).reverseLookup(true).build());
+  }
+}
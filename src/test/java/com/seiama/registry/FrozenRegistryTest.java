@@ -0,0 +1,226 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FrozenRegistryTest {
+  private final Registry<String, RegistryTest.Item> registry = Registry.create();
+
+  @Test
+  void testLookup() {
+    final RegistryTest.Item item = new RegistryTest.Item();
+    final Holder<String, RegistryTest.Item> immediate = this.registry.register("immediate", item);
+    final Holder<String, RegistryTest.Item> lazy = this.registry.getOrCreateHolder("lazy");
+
+    final Registry<String, RegistryTest.Item> frozen = this.registry.freeze();
+
+    assertSame(immediate, frozen.getHolder("immediate"));
+    assertSame(lazy, frozen.getHolder("lazy"));
+    assertSame(lazy, frozen.getOrCreateHolder("lazy"));
+    assertNull(frozen.getHolder("missing"));
+    assertEquals(Set.of("immediate", "lazy"), frozen.keys());
+    assertSame(frozen, frozen.freeze());
+
+    assertSame(immediate, frozen.byId(immediate.id()));
+    assertSame(lazy, frozen.byId(lazy.id()));
+    assertNull(frozen.byId(2));
+    assertEquals(lazy.id(), frozen.idOf("lazy"));
+    assertEquals(-1, frozen.idOf("missing"));
+  }
+
+  @Test
+  void testCollidingHashes() {
+    // "Aa" and "BB" share a hash code, as do any strings built from them.
+    final Set<String> keys = new HashSet<>();
+    for (final String a : new String[]{"Aa", "BB"}) {
+      for (final String b : new String[]{"Aa", "BB"}) {
+        for (final String c : new String[]{"Aa", "BB"}) {
+          keys.add(a + b + c);
+        }
+      }
+    }
+    for (final String key : keys) {
+      this.registry.register(key, new RegistryTest.Item());
+    }
+    final Registry<String, RegistryTest.Item> frozen = this.registry.freeze();
+    for (final String key : keys) {
+      assertSame(this.registry.getHolder(key), frozen.getHolder(key));
+    }
+    assertNull(frozen.getHolder("AaAaBb"));
+    assertEquals(keys, frozen.keys());
+  }
+
+  @Test
+  void testManyKeys() {
+    for (int i = 0; i < 10_000; i++) {
+      this.registry.register(Integer.toString(i), new RegistryTest.Item());
+    }
+    final Registry<String, RegistryTest.Item> frozen = this.registry.freeze();
+    assertEquals(10_000, frozen.keys().size());
+    for (int i = 0; i < 10_000; i++) {
+      assertSame(this.registry.getHolder(Integer.toString(i)), frozen.getHolder(Integer.toString(i)));
+    }
+    assertEquals(this.registry.keys(), frozen.keys());
+    // Keys come in the order they were added, as they do from the source.
+    assertEquals(new ArrayList<>(this.registry.keys()), new ArrayList<>(frozen.keys()));
+  }
+
+  @Test
+  void testEmpty() {
+    final Registry<String, RegistryTest.Item> frozen = this.registry.freeze();
+    assertTrue(frozen.keys().isEmpty());
+    assertNull(frozen.getHolder("missing"));
+  }
+
+  @Test
+  void testUnknownKeysFailFast() {
+    final Registry<String, RegistryTest.Item> frozen = this.registry.freeze();
+    assertThrows(UnsupportedOperationException.class, () -> frozen.getOrCreateHolder("missing"));
+    assertThrows(UnsupportedOperationException.class, () -> frozen.register("missing", new RegistryTest.Item()));
+    assertFalse(frozen.keys().contains("missing"));
+  }
+
+  @Test
+  void testRegisterAllUnknownKeysRegistersNothing() {
+    final Holder<String, RegistryTest.Item> lazy = this.registry.getOrCreateHolder("lazy");
+    final Registry<String, RegistryTest.Item> frozen = this.registry.freeze();
+    final Map<String, RegistryTest.Item> entries = new LinkedHashMap<>();
+    entries.put("lazy", new RegistryTest.Item());
+    entries.put("missing", new RegistryTest.Item());
+    assertThrows(UnsupportedOperationException.class, () -> frozen.registerAll(entries));
+    assertFalse(lazy.bound());
+  }
+
+  @Test
+  void testBindLazyAfterFreezing() {
+    final Holder<String, RegistryTest.Item> lazy = this.registry.getOrCreateHolder("lazy");
+    final Registry<String, RegistryTest.Item> frozen = this.registry.freeze();
+    final RegistryTest.Item item = new RegistryTest.Item();
+    assertSame(lazy, frozen.register("lazy", item));
+    assertSame(item, lazy.value());
+    assertThrows(IllegalStateException.class, () -> frozen.register("lazy", new RegistryTest.Item()));
+  }
+
+  @Test
+  void testUnbound() {
+    this.registry.getOrCreateHolder("lazy");
+    this.registry.getOrCreateHolder("bound");
+    this.registry.register("bound", new RegistryTest.Item());
+    final Registry<String, RegistryTest.Item> frozen = this.registry.freeze();
+    assertEquals(Set.of("lazy"), frozen.unbound());
+    assertThrows(IllegalStateException.class, frozen::validate);
+
+    // Binding through the frozen registry is visible to both registries.
+    frozen.register("lazy", new RegistryTest.Item());
+    assertTrue(frozen.unbound().isEmpty());
+    assertTrue(this.registry.unbound().isEmpty());
+    frozen.validate();
+    this.registry.validate();
+  }
+
+  @Test
+  void testGetHolderByValue() {
+    final RegistryTest.Item item = new RegistryTest.Item();
+    final Holder<String, RegistryTest.Item> immediate = this.registry.register("immediate", item);
+    final Holder<String, RegistryTest.Item> lazy = this.registry.getOrCreateHolder("lazy");
+    final Registry<String, RegistryTest.Item> frozen = this.registry.freeze();
+    assertSame(immediate, frozen.getHolderByValue(item));
+
+    // Holders bound after the index was built are still indexed.
+    final RegistryTest.Item lazyItem = new RegistryTest.Item();
+    assertNull(frozen.getHolderByValue(lazyItem));
+    frozen.register("lazy", lazyItem);
+    assertSame(lazy, frozen.getHolderByValue(lazyItem));
+  }
+
+  @Test
+  void testLaterRegistrationsInvisible() {
+    final Registry<String, RegistryTest.Item> frozen = this.registry.freeze();
+    this.registry.register("later", new RegistryTest.Item());
+    assertNull(frozen.getHolder("later"));
+  }
+
+  @Test
+  void testHolders() {
+    final List<Holder<String, RegistryTest.Item>> holders = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      holders.add(this.registry.register("key" + i, new RegistryTest.Item()));
+    }
+    final Registry<String, RegistryTest.Item> frozen = this.registry.freeze();
+    this.registry.register("later", new RegistryTest.Item());
+    assertEquals(holders, new ArrayList<>(frozen.holders()));
+    assertEquals(100, frozen.stream().parallel().count());
+  }
+
+  @Test
+  void testSeal() {
+    final RegistryTest.Item item = new RegistryTest.Item();
+    final Holder<String, RegistryTest.Item> immediate = this.registry.register("immediate", item);
+    final Holder<String, RegistryTest.Item> bound = this.registry.getOrCreateHolder("bound");
+    final RegistryTest.Item boundItem = new RegistryTest.Item();
+    this.registry.register("bound", boundItem);
+    final Holder<String, RegistryTest.Item> unbound = this.registry.getOrCreateHolder("unbound");
+    this.registry.tags().getOrCreate("tag").add(immediate);
+
+    final Registry<String, RegistryTest.Item> sealed = this.registry.seal();
+    assertSame(sealed, sealed.seal());
+
+    // Bound holders are replaced, keeping their keys, ids and types.
+    final Holder<String, RegistryTest.Item> sealedImmediate = sealed.getHolder("immediate");
+    assertNotSame(immediate, sealedImmediate);
+    assertEquals(immediate.id(), sealedImmediate.id());
+    assertSame(Holder.Type.IMMEDIATE, sealedImmediate.type());
+    assertSame(item, sealedImmediate.value());
+    assertSame(sealedImmediate, sealed.byId(immediate.id()));
+    final Holder<String, RegistryTest.Item> sealedBound = sealed.getHolder("bound");
+    assertSame(Holder.Type.LAZY, sealedBound.type());
+    assertSame(boundItem, sealedBound.value());
+    assertTrue(sealed.tags().get("tag").contains(sealedImmediate));
+    assertSame(sealedBound, sealed.register("bound", boundItem));
+    assertThrows(IllegalStateException.class, () -> sealed.register("bound", new RegistryTest.Item()));
+
+    // Unbound holders are shared, and may still be bound.
+    assertSame(unbound, sealed.getHolder("unbound"));
+    assertEquals(Set.of("unbound"), sealed.unbound());
+    final RegistryTest.Item unboundItem = new RegistryTest.Item();
+    sealed.register("unbound", unboundItem);
+    assertSame(unboundItem, unbound.value());
+    assertSame(bound, this.registry.getHolder("bound"));
+  }
+}
@@ -0,0 +1,278 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class HolderTest {
+  private static final String EMPTY = "empty";
+
+  private final Registry<String, RegistryTest.Item> registry = Registry.create();
+
+  @Test
+  void testOnBoundImmediate() {
+    final RegistryTest.Item item = new RegistryTest.Item();
+    final Holder<String, RegistryTest.Item> holder = this.registry.register(EMPTY, item);
+    final List<RegistryTest.Item> seen = new ArrayList<>();
+    holder.onBound(seen::add);
+    assertEquals(List.of(item), seen);
+    final CompletableFuture<RegistryTest.Item> future = holder.asFuture();
+    assertTrue(future.isDone());
+    assertSame(item, future.join());
+  }
+
+  @Test
+  void testOnBoundLazy() {
+    final Holder<String, RegistryTest.Item> holder = this.registry.getOrCreateHolder(EMPTY);
+    final List<String> seen = new ArrayList<>();
+    holder.onBound(value -> seen.add("first"));
+    holder.onBound(value -> seen.add("second"));
+    final CompletableFuture<RegistryTest.Item> future = holder.asFuture();
+    assertFalse(future.isDone());
+    assertTrue(seen.isEmpty());
+
+    final RegistryTest.Item item = new RegistryTest.Item();
+    this.registry.register(EMPTY, item);
+
+    // Actions run in the order they were added.
+    assertEquals(List.of("first", "second"), seen);
+    assertSame(item, future.getNow(null));
+    assertSame(item, holder.value());
+
+    // Once bound, actions run immediately.
+    holder.onBound(value -> seen.add("third"));
+    assertEquals(List.of("first", "second", "third"), seen);
+  }
+
+  @Test
+  void testOnBoundNotRunForConflictingRegistration() {
+    final Holder<String, RegistryTest.Item> holder = this.registry.getOrCreateHolder(EMPTY);
+    final AtomicInteger runs = new AtomicInteger();
+    holder.onBound(value -> runs.incrementAndGet());
+    this.registry.register(EMPTY, new RegistryTest.Item());
+    assertThrows(IllegalStateException.class, () -> this.registry.register(EMPTY, new RegistryTest.Item()));
+    assertEquals(1, runs.get());
+  }
+
+  @Test
+  void testOnBoundFailingAction() {
+    final Holder<String, RegistryTest.Item> holder = this.registry.getOrCreateHolder(EMPTY);
+    final AtomicInteger runs = new AtomicInteger();
+    holder.onBound(value -> {
+      throw new IllegalArgumentException();
+    });
+    holder.onBound(value -> runs.incrementAndGet());
+    final RegistryTest.Item item = new RegistryTest.Item();
+    assertThrows(IllegalArgumentException.class, () -> this.registry.register(EMPTY, item));
+    // The value is still bound, and later actions still ran.
+    assertSame(item, holder.value());
+    assertEquals(1, runs.get());
+    assertTrue(this.registry.unbound().isEmpty());
+  }
+
+  @Test
+  void testIntHolderOnBound() {
+    final IntRegistry<RegistryTest.Item> registry = IntRegistry.create();
+    final IntHolder<RegistryTest.Item> holder = registry.getOrCreateHolder(1);
+    final CompletableFuture<RegistryTest.Item> future = holder.asFuture();
+    final RegistryTest.Item item = new RegistryTest.Item();
+    registry.register(1, item);
+    assertSame(item, future.getNow(null));
+  }
+
+  @Test
+  void testOnBoundRacingBind() throws Exception {
+    final Registry<String, RegistryTest.Item> registry = Registry.createConcurrent();
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      for (int round = 0; round < 500; round++) {
+        final Holder<String, RegistryTest.Item> holder = registry.getOrCreateHolder("key" + round);
+        final AtomicInteger runs = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+          executor.execute(() -> {
+            try {
+              start.await();
+              holder.onBound(value -> runs.incrementAndGet());
+            } catch (final InterruptedException e) {
+              Thread.currentThread().interrupt();
+            } finally {
+              done.countDown();
+            }
+          });
+        }
+        start.countDown();
+        registry.register("key" + round, new RegistryTest.Item());
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        // Every action runs exactly once, whether it was added before or after the value was bound.
+        assertEquals(3, runs.get());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void testAwaitBound() throws Exception {
+    final RegistryTest.Item item = new RegistryTest.Item();
+    assertSame(item, this.registry.register(EMPTY, item).await());
+    assertSame(item, this.registry.getHolder(EMPTY).await(Duration.ZERO));
+    final Holder<String, RegistryTest.Item> lazy = this.registry.getOrCreateHolder("lazy");
+    this.registry.register("lazy", item);
+    assertSame(item, lazy.await());
+  }
+
+  @Test
+  void testAwaitParksUntilBound() throws Exception {
+    final Holder<String, RegistryTest.Item> holder = this.registry.getOrCreateHolder(EMPTY);
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final List<Future<RegistryTest.Item>> waiters = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        waiters.add(executor.submit(() -> holder.await()));
+      }
+      waiters.add(executor.submit(() -> holder.await(Duration.ofSeconds(10))));
+      Thread.sleep(50);
+      for (final Future<RegistryTest.Item> waiter : waiters) {
+        assertFalse(waiter.isDone());
+      }
+      final RegistryTest.Item item = new RegistryTest.Item();
+      this.registry.register(EMPTY, item);
+      for (final Future<RegistryTest.Item> waiter : waiters) {
+        assertSame(item, waiter.get(10, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void testAwaitTimeout() {
+    final Holder<String, RegistryTest.Item> holder = this.registry.getOrCreateHolder(EMPTY);
+    assertThrows(TimeoutException.class, () -> holder.await(Duration.ofMillis(10)));
+    assertThrows(TimeoutException.class, () -> holder.await(Duration.ZERO));
+    // A waiter which timed out does not get in the way of binding.
+    final RegistryTest.Item item = new RegistryTest.Item();
+    this.registry.register(EMPTY, item);
+    assertSame(item, holder.value());
+  }
+
+  @Test
+  void testAwaitTimeoutUnlinksWaiter() throws ReflectiveOperationException {
+    final Holder<String, RegistryTest.Item> holder = this.registry.getOrCreateHolder(EMPTY);
+    final List<String> actions = new ArrayList<>();
+    holder.onBound(value -> actions.add("before"));
+    for (int i = 0; i < 1_000; i++) {
+      assertThrows(TimeoutException.class, () -> holder.await(Duration.ZERO));
+    }
+    holder.onBound(value -> actions.add("after"));
+    // Polling leaves nothing behind - only the two actions, and the registry tracking the key as unbound, are waiting.
+    assertEquals(3, waiters(holder));
+    this.registry.register(EMPTY, new RegistryTest.Item());
+    assertEquals(List.of("before", "after"), actions);
+  }
+
+  private static int waiters(final Holder<?, ?> holder) throws ReflectiveOperationException {
+    final Field state = Holders.Bindable.class.getDeclaredField("state");
+    state.setAccessible(true);
+    int waiters = 0;
+    for (Object waiter = state.get(holder); waiter != null; waiters++) {
+      final Field next = waiter.getClass().getDeclaredField("next");
+      next.setAccessible(true);
+      waiter = next.get(waiter);
+    }
+    return waiters;
+  }
+
+  @Test
+  void testAwaitInterrupted() {
+    final Holder<String, RegistryTest.Item> holder = this.registry.getOrCreateHolder(EMPTY);
+    Thread.currentThread().interrupt();
+    try {
+      assertThrows(InterruptedException.class, holder::await);
+    } finally {
+      Thread.interrupted();
+    }
+  }
+
+  @Test
+  void testAwaitVirtualThreads() throws Exception {
+    // Virtual threads are only available from Java 21 - look them up reflectively, as we target 17.
+    final ExecutorService executor;
+    try {
+      executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (final NoSuchMethodException e) {
+      assumeTrue(false, "Virtual threads are not available");
+      return;
+    }
+    final int waiters = 100_000;
+    final int keys = 100;
+    final Registry<String, RegistryTest.Item> registry = Registry.createConcurrent();
+    final CountDownLatch waiting = new CountDownLatch(waiters);
+    final AtomicInteger woken = new AtomicInteger();
+    try {
+      for (int i = 0; i < waiters; i++) {
+        final String key = "key" + (i % keys);
+        executor.execute(() -> {
+          final Holder<String, RegistryTest.Item> holder = registry.getOrCreateHolder(key);
+          waiting.countDown();
+          try {
+            holder.await();
+            woken.incrementAndGet();
+          } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        });
+      }
+      assertTrue(waiting.await(60, TimeUnit.SECONDS));
+      for (int i = 0; i < keys; i++) {
+        registry.register("key" + i, new RegistryTest.Item());
+      }
+    } finally {
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+    }
+    assertEquals(waiters, woken.get());
+  }
+}
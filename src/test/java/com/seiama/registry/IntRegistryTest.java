@@ -0,0 +1,115 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntRegistryTest {
+  private final IntRegistry<RegistryTest.Item> registry = IntRegistry.create();
+
+  @Test
+  void testImmediate() {
+    final RegistryTest.Item item = new RegistryTest.Item();
+    final IntHolder<RegistryTest.Item> holder = this.registry.register(42, item);
+    assertEquals(42, holder.intKey());
+    assertEquals(Integer.valueOf(42), holder.key());
+    assertSame(Holder.Type.IMMEDIATE, holder.type());
+    assertTrue(holder.bound());
+    assertSame(item, holder.value());
+    assertSame(holder, this.registry.getHolder(42));
+    assertSame(holder, this.registry.getOrCreateHolder(42));
+    assertSame(holder, this.registry.register(42, item));
+    assertThrows(IllegalStateException.class, () -> this.registry.register(42, new RegistryTest.Item()));
+  }
+
+  @Test
+  void testLazy() {
+    assertNull(this.registry.getHolder(7));
+    final IntHolder<RegistryTest.Item> holder = this.registry.getOrCreateHolder(7);
+    assertSame(Holder.Type.LAZY, holder.type());
+    assertFalse(holder.bound());
+    assertThrows(NoSuchElementException.class, holder::valueOrThrow);
+    assertSame(holder, this.registry.getHolder(7));
+
+    final RegistryTest.Item item = new RegistryTest.Item();
+    assertSame(holder, this.registry.register(7, item));
+    assertSame(Holder.Type.LAZY, holder.type());
+    assertSame(item, holder.value());
+    assertThrows(IllegalStateException.class, () -> this.registry.register(7, new RegistryTest.Item()));
+  }
+
+  @Test
+  void testManyKeys() {
+    // Spread keys across the whole key space, including negative keys and zero.
+    final int count = 10_000;
+    for (int i = 0; i < count; i++) {
+      final IntHolder<RegistryTest.Item> holder = this.registry.register(key(i), new RegistryTest.Item());
+      assertEquals(i, holder.id());
+    }
+    for (int i = 0; i < count; i++) {
+      final IntHolder<RegistryTest.Item> holder = this.registry.getHolder(key(i));
+      assertEquals(key(i), holder.intKey());
+      assertSame(holder, this.registry.byId(i));
+      assertEquals(i, this.registry.idOf(key(i)));
+    }
+    assertNull(this.registry.getHolder(1));
+    assertEquals(-1, this.registry.idOf(1));
+    assertNull(this.registry.byId(count));
+  }
+
+  @Test
+  void testKeys() {
+    final IntRegistry.Keys keys = this.registry.keys();
+    assertEquals(0, keys.size());
+    this.registry.register(3, new RegistryTest.Item());
+    this.registry.getOrCreateHolder(-1);
+    this.registry.register(0, new RegistryTest.Item());
+    assertEquals(3, keys.size());
+    assertTrue(keys.contains(-1));
+    assertFalse(keys.contains(1));
+
+    // Keys are visited in order of holder creation.
+    final PrimitiveIterator.OfInt iterator = keys.iterator();
+    assertEquals(3, iterator.nextInt());
+    assertEquals(-1, iterator.nextInt());
+    assertEquals(0, iterator.nextInt());
+    assertFalse(iterator.hasNext());
+    assertThrows(NoSuchElementException.class, iterator::nextInt);
+    assertArrayEquals(new int[]{3, -1, 0}, keys.stream().toArray());
+  }
+
+  private static int key(final int i) {
+    return (i & 1) == 0 ? i * 31 : -i * 17;
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyTest {
+  @Test
+  void testKey() {
+    final Key key = Key.key("minecraft", "stone");
+    assertEquals("minecraft", key.namespace());
+    assertEquals("stone", key.path());
+    assertEquals("minecraft:stone", key.asString());
+    assertEquals("minecraft:stone", key.toString());
+    // The hash of a key is the hash of its string form.
+    assertEquals("minecraft:stone".hashCode(), key.hashCode());
+  }
+
+  @Test
+  void testInterned() {
+    final Key key = Key.key("minecraft", "dirt");
+    assertSame(key, Key.key("minecraft", "dirt"));
+    assertSame(key, Key.key("minecraft:dirt"));
+    assertSame(key, Key.key(new StringBuilder("minecraft:dirt")));
+    assertNotSame(key, Key.key("minecraft", "grass"));
+    assertNotSame(key, Key.key("minecraf", "t:dirt"));
+  }
+
+  @Test
+  void testParse() {
+    final Key key = Key.key("a:b:c");
+    assertEquals("a", key.namespace());
+    assertEquals("b:c", key.path());
+    assertSame(key, Key.key("a", "b:c"));
+    assertThrows(IllegalArgumentException.class, () -> Key.key("missing separator"));
+    assertThrows(IllegalArgumentException.class, () -> Key.key("a:b", "c"));
+  }
+
+  @Test
+  void testCompareTo() {
+    assertTrue(Key.key("a", "b").compareTo(Key.key("a", "c")) < 0);
+    assertEquals(0, Key.key("a", "b").compareTo(Key.key("a:b")));
+  }
+
+  @Test
+  void testManyKeys() {
+    // Enough keys to force the pool to grow several times.
+    final List<Key> keys = new ArrayList<>();
+    for (int i = 0; i < 10_000; i++) {
+      keys.add(Key.key("many", "key" + i));
+    }
+    for (int i = 0; i < 10_000; i++) {
+      assertSame(keys.get(i), Key.key("many:key" + i));
+    }
+  }
+
+  @Test
+  void testRacingIntern() throws Exception {
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final List<Future<Key[]>> futures = new ArrayList<>();
+      for (int thread = 0; thread < 4; thread++) {
+        futures.add(executor.submit(() -> {
+          final Key[] keys = new Key[5_000];
+          for (int i = 0; i < keys.length; i++) {
+            keys[i] = Key.key("race:key" + i);
+          }
+          return keys;
+        }));
+      }
+      final Key[] first = futures.get(0).get();
+      for (final Future<Key[]> future : futures) {
+        final Key[] keys = future.get();
+        for (int i = 0; i < keys.length; i++) {
+          assertSame(first[i], keys[i]);
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void testRegistryWithIdentityKeys() {
+    final Registry<Key, RegistryTest.Item> registry = Registry.<Key, RegistryTest.Item>builder().identityKeys(true).build();
+    final RegistryTest.Item item = new RegistryTest.Item();
+    final Holder<Key, RegistryTest.Item> holder = registry.register(Key.key("a", "b"), item);
+    assertSame(holder, registry.getHolder(Key.key("a:b")));
+    assertSame(holder, registry.getOrCreateHolder(Key.key(new StringBuilder("a:b"))));
+    assertEquals(0, registry.idOf(Key.key("a", "b")));
+    assertTrue(registry.keys().contains(Key.key("a:b")));
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapRegistryTest {
+  private final StringRegistry<RegistryTest.Item> registry = StringRegistry.createOffHeap();
+
+  @Test
+  void testRegister() {
+    final RegistryTest.Item item = new RegistryTest.Item();
+    final Holder<String, RegistryTest.Item> holder = this.registry.register("namespace:path", item);
+    assertSame(Holder.Type.IMMEDIATE, holder.type());
+    assertEquals("namespace:path", holder.key());
+    assertSame(item, holder.value());
+    assertSame(holder, this.registry.getHolder("namespace:path"));
+    assertSame(holder, this.registry.byId(0));
+    assertSame(holder, this.registry.register("namespace:path", item));
+    assertThrows(IllegalStateException.class, () -> this.registry.register("namespace:path", new RegistryTest.Item()));
+    assertNull(this.registry.getHolder("namespace:missing"));
+    assertNull(this.registry.getHolder("namespace:pat"));
+    assertNull(this.registry.getHolder("namespace:path/"));
+  }
+
+  @Test
+  void testCharSequenceLookup() {
+    final Holder<String, RegistryTest.Item> holder = this.registry.register("namespace:path", new RegistryTest.Item());
+    assertSame(holder, this.registry.getHolder(new StringBuilder("namespace:path")));
+    assertSame(holder, this.registry.getHolder(CharBuffer.wrap("[namespace:path]").subSequence(1, 15)));
+    assertNull(this.registry.getHolder(new StringBuilder("namespace:path2")));
+  }
+
+  @Test
+  void testLazy() {
+    final Holder<String, RegistryTest.Item> holder = this.registry.getOrCreateHolder("lazy");
+    assertSame(Holder.Type.LAZY, holder.type());
+    assertFalse(holder.bound());
+    assertEquals(Set.of("lazy"), this.registry.unbound());
+    assertThrows(IllegalStateException.class, this.registry::validate);
+    final RegistryTest.Item item = new RegistryTest.Item();
+    assertSame(holder, this.registry.register("lazy", item));
+    assertSame(item, holder.value());
+    assertTrue(this.registry.unbound().isEmpty());
+  }
+
+  @Test
+  void testEncoding() {
+    final List<String> keys = List.of(
+      "",
+      "ascii",
+      "caf\u00e9",
+      "\u65e5\u672c\u8a9e",
+      "emoji \ud83d\ude00 pair",
+      "lone \ud800 high",
+      "lone \udc00 low",
+      "reversed \udc00\ud800",
+      "\u0000nul"
+    );
+    for (final String key : keys) {
+      this.registry.register(key, new RegistryTest.Item());
+    }
+    for (int id = 0; id < keys.size(); id++) {
+      final String key = keys.get(id);
+      assertEquals(key, this.registry.byId(id).key());
+      assertSame(this.registry.byId(id), this.registry.getHolder(key));
+      assertSame(this.registry.byId(id), this.registry.getHolder(new StringBuilder(key)));
+    }
+    assertEquals(keys, new ArrayList<>(this.registry.keys()));
+    // A different lone surrogate must not match.
+    assertNull(this.registry.getHolder("lone \ud801 high"));
+  }
+
+  @Test
+  void testCollidingHashes() {
+    assertEquals("Aa".hashCode(), "BB".hashCode());
+    final Holder<String, RegistryTest.Item> aa = this.registry.register("Aa", new RegistryTest.Item());
+    final Holder<String, RegistryTest.Item> bb = this.registry.register("BB", new RegistryTest.Item());
+    assertNotEquals(aa, bb);
+    assertSame(aa, this.registry.getHolder(new StringBuilder("Aa")));
+    assertSame(bb, this.registry.getHolder(new StringBuilder("BB")));
+  }
+
+  @Test
+  void testGrowth() {
+    final int size = 100_000;
+    for (int i = 0; i < size; i++) {
+      if ((i & 1) == 0) {
+        this.registry.getOrCreateHolder("namespace:path/" + i);
+      } else {
+        this.registry.register("namespace:path/" + i, new RegistryTest.Item());
+      }
+    }
+    assertEquals(size, this.registry.keys().size());
+    assertEquals(size / 2, this.registry.unbound().size());
+    for (int i = 0; i < size; i++) {
+      final Holder<String, RegistryTest.Item> holder = this.registry.getHolder("namespace:path/" + i);
+      assertEquals(i, holder.id());
+      assertEquals("namespace:path/" + i, holder.key());
+    }
+    assertEquals(size, this.registry.holders().size());
+    assertEquals(size, this.registry.stream().parallel().count());
+  }
+
+  @Test
+  void testFreeze() {
+    final Holder<String, RegistryTest.Item> lazy = this.registry.getOrCreateHolder("lazy");
+    final Registry<String, RegistryTest.Item> frozen = this.registry.freeze();
+    assertSame(lazy, frozen.getHolder("lazy"));
+    final RegistryTest.Item item = new RegistryTest.Item();
+    frozen.register("lazy", item);
+    assertSame(item, lazy.value());
+    // Bound through the frozen registry, so no longer unbound here either.
+    assertTrue(this.registry.unbound().isEmpty());
+  }
+
+  @Test
+  void testUnsupported() {
+    assertThrows(IllegalArgumentException.class, () -> StringRegistry.createOffHeap(-1));
+    assertThrows(UnsupportedOperationException.class, () -> this.registry.getHolderByValue(new RegistryTest.Item()));
+    assertThrows(UnsupportedOperationException.class, () -> this.registry.registerDeferred("deferred", RegistryTest.Item::new));
+  }
+}
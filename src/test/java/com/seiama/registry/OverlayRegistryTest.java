@@ -0,0 +1,163 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OverlayRegistryTest {
+  private final RegistryTest.Item a = new RegistryTest.Item();
+  private final RegistryTest.Item b = new RegistryTest.Item();
+  private final Registry<String, RegistryTest.Item> parent = Registry.<String, RegistryTest.Item>builder().reverseLookup(true).build();
+
+  @Test
+  void testFallback() {
+    final Holder<String, RegistryTest.Item> a = this.parent.register("a", this.a);
+    final Holder<String, RegistryTest.Item> lazy = this.parent.getOrCreateHolder("lazy");
+    final Registry<String, RegistryTest.Item> overlay = Registry.overlay(this.parent.freeze());
+
+    assertSame(a, overlay.getHolder("a"));
+    assertSame(a, overlay.getHolderByValue(this.a));
+    assertSame(lazy, overlay.getOrCreateHolder("lazy"));
+    assertSame(a, overlay.byId(a.id()));
+    assertNull(overlay.getHolder("missing"));
+    assertEquals(Set.of("a", "lazy"), overlay.keys());
+    assertEquals(Set.of("lazy"), overlay.unbound());
+  }
+
+  @Test
+  void testNewIds() {
+    this.parent.register("a", this.a);
+    final Registry<String, RegistryTest.Item> overlay = Registry.overlay(this.parent);
+    // Enough holders to grow the overlay's table of them by id.
+    for (int i = 0; i < 100; i++) {
+      final Holder<String, RegistryTest.Item> holder = overlay.getOrCreateHolder("key" + i);
+      assertEquals(1 + i, holder.id());
+      assertSame(holder, overlay.byId(holder.id()));
+    }
+    assertNull(overlay.byId(101));
+    assertNull(overlay.byId(-1));
+    assertNull(this.parent.byId(1));
+  }
+
+  @Test
+  void testOverride() {
+    final Holder<String, RegistryTest.Item> parentA = this.parent.register("a", this.a);
+    this.parent.getOrCreateHolder("lazy");
+    final Registry<String, RegistryTest.Item> overlay = Registry.overlay(this.parent);
+
+    final Holder<String, RegistryTest.Item> overlayA = overlay.register("a", this.b);
+    assertNotSame(parentA, overlayA);
+    assertEquals(parentA.id(), overlayA.id());
+    assertSame(overlayA, overlay.getHolder("a"));
+    assertSame(overlayA, overlay.byId(parentA.id()));
+    assertSame(overlayA, overlay.getHolderByValue(this.b));
+    // The parent's value is no longer reachable through the overlay, and the parent is untouched.
+    assertNull(overlay.getHolderByValue(this.a));
+    assertSame(this.a, this.parent.getHolder("a").value());
+    assertNull(this.parent.getHolderByValue(this.b));
+
+    overlay.register("lazy", new RegistryTest.Item());
+    assertTrue(overlay.unbound().isEmpty());
+    assertEquals(Set.of("lazy"), this.parent.unbound());
+    assertEquals(Set.of("a", "lazy"), overlay.keys());
+    assertEquals(2, overlay.keys().size());
+  }
+
+  @Test
+  void testAdd() {
+    this.parent.register("a", this.a);
+    final Registry<String, RegistryTest.Item> overlay = Registry.overlay(this.parent);
+
+    final Holder<String, RegistryTest.Item> lazy = overlay.getOrCreateHolder("lazy");
+    final Holder<String, RegistryTest.Item> b = overlay.register("b", this.b);
+    assertEquals(1, lazy.id());
+    assertEquals(2, b.id());
+    assertSame(lazy, overlay.getOrCreateHolder("lazy"));
+    assertNull(this.parent.getHolder("b"));
+    assertNull(this.parent.getHolder("lazy"));
+    assertEquals(Set.of("lazy"), overlay.unbound());
+    assertTrue(overlay.unbound().contains("lazy"));
+    assertFalse(overlay.unbound().contains("a"));
+
+    final List<String> keys = new ArrayList<>(overlay.keys());
+    assertEquals(List.of("a", "lazy", "b"), keys);
+    assertEquals(3, overlay.version());
+
+    overlay.register("lazy", this.a);
+    assertTrue(overlay.unbound().isEmpty());
+    assertSame(this.a, lazy.value());
+  }
+
+  @Test
+  void testGetHolderByValueDeferred() {
+    final Registry<String, RegistryTest.Item> overlay = Registry.overlay(this.parent);
+    final Holder<String, RegistryTest.Item> deferred = overlay.registerDeferred("deferred", () -> {
+      throw new AssertionError("computed by a reverse lookup");
+    });
+    final Holder<String, RegistryTest.Item> b = overlay.register("b", this.b);
+    assertSame(b, overlay.getHolderByValue(this.b));
+    assertNull(overlay.getHolderByValue(this.a));
+    assertFalse(deferred.bound());
+  }
+
+  @Test
+  void testRegisterAll() {
+    this.parent.register("a", this.a);
+    final Registry<String, RegistryTest.Item> overlay = Registry.overlay(this.parent);
+
+    // Values bound in the parent are overridden rather than conflicting.
+    overlay.registerAll(Map.of("a", this.b));
+    assertSame(this.b, overlay.getHolder("a").value());
+
+    final IllegalStateException exception = assertThrows(IllegalStateException.class, () -> overlay.registerAll(Map.of("a", this.a, "c", this.a)));
+    assertEquals(1, exception.getSuppressed().length);
+    assertNull(overlay.getHolder("c"));
+  }
+
+  @Test
+  void testFreeze() {
+    this.parent.register("a", this.a);
+    this.parent.register("b", this.a);
+    final Registry<String, RegistryTest.Item> overlay = Registry.overlay(this.parent);
+    overlay.register("b", this.b);
+    overlay.register("c", this.b);
+
+    final Registry<String, RegistryTest.Item> frozen = overlay.freeze();
+    assertEquals(Set.of("a", "b", "c"), frozen.keys());
+    assertSame(this.b, frozen.getHolder("b").value());
+    assertEquals(2, frozen.idOf("c"));
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegistryDeltaTest {
+  private final Registry<Key, RegistryTest.Item> source = Registry.create();
+  private final Registry<Key, RegistryTest.Item> target = Registry.createConcurrent();
+
+  private void populate(final int from, final int to) {
+    for (int i = from; i < to; i++) {
+      this.source.register(Key.key("test", "item_" + i), new RegistryTest.Item());
+    }
+  }
+
+  private void sync() {
+    final ByteBuffer delta = this.source.writeDelta(this.target.version(), KeyCodec.key());
+    this.target.applyDelta(delta, KeyCodec.key());
+    assertEquals(0, delta.remaining());
+  }
+
+  @Test
+  void testSync() {
+    assertEquals(this.source.contentHash(KeyCodec.key()), this.target.contentHash(KeyCodec.key()));
+    this.populate(0, 1000);
+    assertEquals(1000, this.source.version());
+    assertNotEquals(this.source.contentHash(KeyCodec.key()), this.target.contentHash(KeyCodec.key()));
+    this.sync();
+    this.populate(1000, 1500);
+    // These share a high surrogate, which must not be split from its pair.
+    this.source.getOrCreateHolder(Key.key("other", "\u00e9t\uD83D\uDE00"));
+    this.source.getOrCreateHolder(Key.key("other", "\u00e9t\uD83D\uDE01"));
+    this.sync();
+    // Nothing new - an empty delta applies cleanly.
+    this.sync();
+
+    assertEquals(this.source.version(), this.target.version());
+    assertEquals(this.source.contentHash(KeyCodec.key()), this.target.contentHash(KeyCodec.key()));
+    for (final Key key : this.source.keys()) {
+      assertEquals(this.source.idOf(key), this.target.idOf(key));
+      assertSame(key, this.target.getHolder(key).key());
+    }
+  }
+
+  @Test
+  void testCompact() {
+    this.populate(0, 1000);
+    int raw = 0;
+    for (final Key key : this.source.keys()) {
+      raw += key.asString().length();
+    }
+    // Keys share most of their prefix with the key before them.
+    assertTrue(this.source.writeDelta(0, KeyCodec.key()).remaining() < raw / 2);
+  }
+
+  @Test
+  void testWrongVersion() {
+    this.populate(0, 10);
+    this.target.applyDelta(this.source.writeDelta(0, KeyCodec.key()), KeyCodec.key());
+    this.populate(10, 20);
+    assertThrows(IllegalStateException.class, () -> this.target.applyDelta(this.source.writeDelta(5, KeyCodec.key()), KeyCodec.key()));
+    assertEquals(10, this.target.version());
+    assertThrows(IllegalArgumentException.class, () -> this.source.writeDelta(21, KeyCodec.key()));
+    assertThrows(IllegalArgumentException.class, () -> this.source.writeDelta(-1, KeyCodec.key()));
+  }
+
+  @Test
+  void testDiverged() {
+    this.populate(0, 10);
+    this.target.register(Key.key("test", "item_5"), new RegistryTest.Item());
+    assertThrows(IllegalStateException.class, () -> this.target.applyDelta(this.source.writeDelta(1, KeyCodec.key()), KeyCodec.key()));
+    assertEquals(1, this.target.version());
+    assertNotEquals(this.source.contentHash(KeyCodec.key()), this.target.contentHash(KeyCodec.key()));
+  }
+
+  @Test
+  void testContentHashDependsOnOrder() {
+    final Registry<String, RegistryTest.Item> a = Registry.create();
+    a.getOrCreateHolder("a");
+    a.getOrCreateHolder("b");
+    final Registry<String, RegistryTest.Item> b = Registry.create();
+    b.getOrCreateHolder("b");
+    b.getOrCreateHolder("a");
+    assertNotEquals(a.contentHash(KeyCodec.string()), b.contentHash(KeyCodec.string()));
+    final Registry<String, RegistryTest.Item> c = Registry.create();
+    c.getOrCreateHolder("ab");
+    final Registry<String, RegistryTest.Item> d = Registry.create();
+    d.getOrCreateHolder("a");
+    d.getOrCreateHolder("b");
+    assertNotEquals(c.contentHash(KeyCodec.string()), d.contentHash(KeyCodec.string()));
+  }
+
+  @Test
+  void testMalformed() {
+    this.populate(0, 10);
+    final ByteBuffer delta = this.source.writeDelta(0, KeyCodec.key());
+    final ByteBuffer truncated = delta.duplicate().limit(delta.limit() - 3);
+    assertThrows(IllegalArgumentException.class, () -> this.target.applyDelta(truncated, KeyCodec.key()));
+    final ByteBuffer format = ByteBuffer.allocate(delta.remaining()).put(delta.duplicate()).put(0, (byte) 99).flip();
+    assertThrows(IllegalArgumentException.class, () -> this.target.applyDelta(format, KeyCodec.key()));
+    assertThrows(IllegalArgumentException.class, () -> this.target.applyDelta(ByteBuffer.wrap(new byte[] {1, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF}), KeyCodec.key()));
+    // A count of zero, but for bits which do not fit in an int.
+    assertThrows(IllegalArgumentException.class, () -> this.target.applyDelta(ByteBuffer.wrap(new byte[] {1, 0, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x10}), KeyCodec.key()));
+    assertEquals(0, this.target.version());
+  }
+
+  @Test
+  void testDuplicateKeys() {
+    // Three keys from version 0 - "a", then "b", then "a" again - each as a shared prefix length and a suffix.
+    final ByteBuffer delta = ByteBuffer.wrap(new byte[] {1, 0, 3, 0, 1, 'a', 0, 1, 'b', 0, 1, 'a'});
+    final Registry<String, RegistryTest.Item> target = Registry.create();
+    assertThrows(IllegalArgumentException.class, () -> target.applyDelta(delta, KeyCodec.string()));
+    assertEquals(0, target.version());
+    assertTrue(target.keys().isEmpty());
+  }
+}
@@ -0,0 +1,242 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegistryMetricsTest {
+  private final RegistryMetrics metrics = RegistryMetrics.create();
+  private final Registry<String, RegistryTest.Item> registry = Registry.<String, RegistryTest.Item>builder()
+    .metrics(this.metrics)
+    .build();
+
+  @Test
+  void testLookups() {
+    this.registry.register("a", new RegistryTest.Item());
+    assertNull(this.registry.getHolder("b"));
+    this.registry.getHolder("a");
+    this.registry.getHolderOptionally("a");
+    assertEquals(2, this.metrics.hits());
+    assertEquals(1, this.metrics.misses());
+  }
+
+  @Test
+  void testHitRate() {
+    assertEquals(1.0, this.metrics.hitRate());
+    this.registry.register("a", new RegistryTest.Item());
+    this.registry.getHolder("a");
+    this.registry.getHolder("a");
+    this.registry.getHolder("a");
+    this.registry.getHolder("b");
+    assertEquals(0.75, this.metrics.hitRate());
+  }
+
+  @Test
+  void testLazyCreations() {
+    final Holder<String, RegistryTest.Item> holder = this.registry.getOrCreateHolder("a");
+    assertSame(holder, this.registry.getOrCreateHolder("a"));
+    assertEquals(1, this.metrics.lazyCreations());
+    assertEquals(1, this.metrics.hits());
+    assertEquals(1, this.metrics.misses());
+  }
+
+  @Test
+  void testBindsAndConflicts() {
+    final RegistryTest.Item item = new RegistryTest.Item();
+    this.registry.register("a", item);
+    this.registry.register("a", item);
+    assertThrows(IllegalStateException.class, () -> this.registry.register("a", new RegistryTest.Item()));
+    assertEquals(2, this.metrics.binds());
+    assertEquals(1, this.metrics.conflicts());
+
+    this.registry.registerAll(Map.of("b", new RegistryTest.Item(), "c", new RegistryTest.Item()));
+    assertEquals(4, this.metrics.binds());
+    assertThrows(IllegalStateException.class, () -> this.registry.registerAll(Map.of("a", new RegistryTest.Item(), "b", new RegistryTest.Item())));
+    assertEquals(4, this.metrics.binds());
+    assertEquals(3, this.metrics.conflicts());
+
+    this.metrics.reset();
+    assertEquals(0, this.metrics.binds());
+    assertEquals(0, this.metrics.conflicts());
+  }
+
+  @Test
+  void testFailingActionIsNotConflict() {
+    this.registry.getOrCreateHolder("a").onBound(value -> {
+      throw new IllegalStateException("action");
+    });
+    assertThrows(IllegalStateException.class, () -> this.registry.register("a", new RegistryTest.Item()));
+    assertEquals(0, this.metrics.conflicts());
+  }
+
+  @Test
+  void testCustomMetrics() {
+    final CountingMetrics metrics = new CountingMetrics();
+    final Registry<String, RegistryTest.Item> registry = Registry.<String, RegistryTest.Item>builder()
+      .metrics(metrics)
+      .build();
+    registry.getOrCreateHolder("a");
+    registry.register("a", new RegistryTest.Item());
+    registry.getHolder("a");
+    assertThrows(IllegalStateException.class, () -> registry.register("a", new RegistryTest.Item()));
+    assertEquals(1, metrics.hits());
+    assertEquals(1, metrics.misses());
+    assertEquals(1, metrics.lazyCreations());
+    assertEquals(1, metrics.binds());
+    assertEquals(1, metrics.conflicts());
+
+    final Registry<String, RegistryTest.Item> evicting = Registry.<String, RegistryTest.Item>builder()
+      .maximumSize(1)
+      .metrics(metrics)
+      .build();
+    evicting.register("a", new RegistryTest.Item());
+    evicting.register("b", new RegistryTest.Item());
+    assertEquals(1, metrics.evictions());
+  }
+
+  @Test
+  void testFrozenSharesMetrics() {
+    this.registry.register("a", new RegistryTest.Item());
+    final Registry<String, RegistryTest.Item> frozen = this.registry.freeze();
+    frozen.getHolder("a");
+    frozen.getHolder("b");
+    assertEquals(1, this.metrics.hits());
+    assertEquals(1, this.metrics.misses());
+  }
+
+  @Test
+  void testWithoutMetrics() {
+    assertTrue(Registry.builder().metrics(null).build() instanceof RegistryImpl<?, ?>);
+  }
+
+  @Test
+  void testEvents(@TempDir final Path directory) throws IOException {
+    final Path file = directory.resolve("registry.jfr");
+    try (final Recording recording = new Recording()) {
+      recording.enable("com.seiama.registry.RegistrationConflict");
+      recording.enable("com.seiama.registry.Registration").withThreshold(Duration.ZERO);
+      recording.start();
+      this.registry.register("a", new RegistryTest.Item());
+      assertThrows(IllegalStateException.class, () -> this.registry.register("a", new RegistryTest.Item()));
+      recording.stop();
+      recording.dump(file);
+    }
+    final List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+    assertEquals(1, events.stream().filter(event -> event.getEventType().getName().equals("com.seiama.registry.Registration")).count());
+    final RecordedEvent conflict = events.stream()
+      .filter(event -> event.getEventType().getName().equals("com.seiama.registry.RegistrationConflict"))
+      .findFirst()
+      .orElseThrow();
+    assertTrue(conflict.getString("message").startsWith("a is already bound"));
+  }
+
+  static final class CountingMetrics implements RegistryMetrics {
+    private long hits;
+    private long misses;
+    private long lazyCreations;
+    private long binds;
+    private long conflicts;
+    private long evictions;
+
+    @Override
+    public long hits() {
+      return this.hits;
+    }
+
+    @Override
+    public long misses() {
+      return this.misses;
+    }
+
+    @Override
+    public long lazyCreations() {
+      return this.lazyCreations;
+    }
+
+    @Override
+    public long binds() {
+      return this.binds;
+    }
+
+    @Override
+    public long conflicts() {
+      return this.conflicts;
+    }
+
+    @Override
+    public long evictions() {
+      return this.evictions;
+    }
+
+    @Override
+    public void recordHit() {
+      this.hits++;
+    }
+
+    @Override
+    public void recordMiss() {
+      this.misses++;
+    }
+
+    @Override
+    public void recordLazyCreation() {
+      this.lazyCreations++;
+    }
+
+    @Override
+    public void recordBinds(final int count) {
+      this.binds += count;
+    }
+
+    @Override
+    public void recordConflict() {
+      this.conflicts++;
+    }
+
+    @Override
+    public void recordEviction() {
+      this.evictions++;
+    }
+
+    @Override
+    public void reset() {
+      this.hits = this.misses = this.lazyCreations = this.binds = this.conflicts = this.evictions = 0;
+    }
+  }
+}
@@ -23,9 +23,16 @@
  */
 package com.seiama.registry;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Random;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
@@ -156,6 +163,218 @@ class RegistryTest {
     assertEquals(Set.of(EMPTY), keys);
   }
 
+  @Test
+  void testIds() {
+    assertNull(this.registry.byId(0));
+    assertEquals(-1, this.registry.idOf(EMPTY));
+
+    final Holder<String, Item> lazy = this.registry.getOrCreateHolder("lazy");
+    final Holder<String, Item> immediate = this.registry.register("immediate", new Item());
+    assertEquals(0, lazy.id());
+    assertEquals(1, immediate.id());
+
+    // Binding a lazy holder does not change its id.
+    assertSame(lazy, this.registry.register("lazy", new Item()));
+    assertEquals(0, lazy.id());
+
+    assertSame(lazy, this.registry.byId(0));
+    assertSame(immediate, this.registry.byId(1));
+    assertNull(this.registry.byId(2));
+    assertNull(this.registry.byId(-1));
+    assertEquals(0, this.registry.idOf("lazy"));
+    assertEquals(1, this.registry.idOf("immediate"));
+
+    // Growing past the initial capacity keeps ids dense.
+    for (int i = 0; i < 100; i++) {
+      assertEquals(i + 2, this.registry.register("key" + i, new Item()).id());
+    }
+    for (int i = 0; i < 102; i++) {
+      assertEquals(i, this.registry.byId(i).id());
+    }
+  }
+
+  @Test
+  void testIterationOrder() {
+    // Enough keys for the index to widen twice, with keys whose hash codes are scattered.
+    final List<String> keys = new ArrayList<>();
+    final Random random = new Random(42);
+    for (int i = 0; i < 100_000; i++) {
+      final String key = Long.toHexString(random.nextLong());
+      keys.add(key);
+      if ((i & 1) == 0) {
+        this.registry.getOrCreateHolder(key);
+      } else {
+        this.registry.register(key, new Item());
+      }
+      if (i == 100 || i == 1_000) {
+        // Keys are iterated in the order they were added, however wide the index is.
+        assertEquals(keys, new ArrayList<>(this.registry.keys()));
+      }
+    }
+    assertEquals(keys, new ArrayList<>(this.registry.keys()));
+    for (int i = 0; i < keys.size(); i++) {
+      assertEquals(i, this.registry.idOf(keys.get(i)));
+    }
+    assertNull(this.registry.getHolder("missing"));
+  }
+
+  @Test
+  void testRegisterAll() {
+    final Holder<String, Item> lazy = this.registry.getOrCreateHolder("lazy");
+    final Item existing = new Item();
+    final Holder<String, Item> immediate = this.registry.register("immediate", existing);
+
+    final Map<String, Item> entries = new LinkedHashMap<>();
+    entries.put("lazy", new Item());
+    entries.put("immediate", existing);
+    for (int i = 0; i < 100; i++) {
+      entries.put("key" + i, new Item());
+    }
+    this.registry.registerAll(entries);
+
+    assertEquals(entries.keySet(), this.registry.keys());
+    assertSame(entries.get("lazy"), lazy.value());
+    assertSame(immediate, this.registry.getHolder("immediate"));
+    for (final Map.Entry<String, Item> entry : entries.entrySet()) {
+      assertSame(entry.getValue(), this.registry.getHolder(entry.getKey()).value());
+    }
+  }
+
+  @Test
+  void testRegisterAllConflicts() {
+    final Holder<String, Item> lazy = this.registry.getOrCreateHolder("lazy");
+    this.registry.register("a", new Item());
+    this.registry.register("b", new Item());
+
+    final Map<String, Item> entries = new LinkedHashMap<>();
+    entries.put("lazy", new Item());
+    entries.put("a", new Item());
+    entries.put("new", new Item());
+    entries.put("b", new Item());
+    final IllegalStateException exception = assertThrows(IllegalStateException.class, () -> this.registry.registerAll(entries));
+
+    // Every conflict is reported...
+    assertEquals(2, exception.getSuppressed().length);
+    // ...and nothing has been registered.
+    assertFalse(lazy.bound());
+    assertNull(this.registry.getHolder("new"));
+    assertEquals(Set.of("lazy", "a", "b"), this.registry.keys());
+  }
+
+  @Test
+  void testCreateWithExpectedSize() {
+    final Registry<String, Item> registry = Registry.create(1_000);
+    for (int i = 0; i < 2_000; i++) {
+      assertEquals(i, registry.register("key" + i, new Item()).id());
+    }
+    assertEquals(2_000, registry.keys().size());
+    assertThrows(IllegalArgumentException.class, () -> Registry.create(-1));
+  }
+
+  @Test
+  void testBuilder() {
+    final Registry<String, Item> registry = Registry.<String, Item>builder().expectedSize(10).build();
+    assertEquals(RegistryImpl.class, registry.getClass());
+    final Registry<String, Item> concurrent = Registry.<String, Item>builder().concurrent(true).build();
+    assertEquals(ConcurrentRegistryImpl.class, concurrent.getClass());
+    assertThrows(IllegalArgumentException.class, () -> Registry.builder().expectedSize(-1));
+  }
+
+  @Test
+  void testUnbound() {
+    final Set<String> unbound = this.registry.unbound();
+    assertTrue(unbound.isEmpty());
+    assertDoesNotThrow(this.registry::validate);
+
+    this.registry.register("immediate", new Item());
+    this.registry.getOrCreateHolder("a");
+    this.registry.getOrCreateHolder("b");
+    this.registry.getOrCreateHolder("c");
+    assertEquals(Set.of("a", "b", "c"), unbound);
+    assertTrue(unbound.contains("b"));
+    assertFalse(unbound.contains("immediate"));
+
+    this.registry.register("b", new Item());
+    assertEquals(Set.of("a", "c"), unbound);
+    assertFalse(unbound.contains("b"));
+
+    // Every unbound key is reported at once.
+    final IllegalStateException exception = assertThrows(IllegalStateException.class, this.registry::validate);
+    assertTrue(exception.getMessage().contains("[a, c]"), exception.getMessage());
+
+    this.registry.registerAll(Map.of("a", new Item(), "c", new Item()));
+    assertTrue(unbound.isEmpty());
+    assertDoesNotThrow(this.registry::validate);
+  }
+
+  @Test
+  void testGetHolderByValue() {
+    final Registry<String, Item> registry = Registry.<String, Item>builder().reverseLookup(true).build();
+    final Item item = new Item();
+    final Holder<String, Item> immediate = registry.register("immediate", item);
+    assertSame(immediate, registry.getHolderByValue(item));
+    // The first holder a value is bound to wins.
+    registry.register("again", item);
+    assertSame(immediate, registry.getHolderByValue(item));
+
+    final Holder<String, Item> lazy = registry.getOrCreateHolder("lazy");
+    final Item lazyItem = new Item();
+    assertNull(registry.getHolderByValue(lazyItem));
+    registry.register("lazy", lazyItem);
+    assertSame(lazy, registry.getHolderByValue(lazyItem));
+  }
+
+  @Test
+  @SuppressWarnings("StringOperationCanBeSimplified")
+  void testGetHolderByValueComparesIdentity() {
+    final Registry<String, String> registry = Registry.<String, String>builder().reverseLookup(true).build();
+    final String value = "value";
+    final Holder<String, String> holder = registry.register("key", value);
+    assertSame(holder, registry.getHolderByValue(value));
+    assertNull(registry.getHolderByValue(new String(value)));
+  }
+
+  @Test
+  void testGetHolderByValueNotEnabled() {
+    assertThrows(UnsupportedOperationException.class, () -> this.registry.getHolderByValue(new Item()));
+  }
+
+  @Test
+  void testHolders() {
+    final Holder<String, Item> a = this.registry.register("a", new Item());
+    final Holder<String, Item> b = this.registry.getOrCreateHolder("b");
+    final Holder<String, Item> c = this.registry.register("c", new Item());
+    assertEquals(List.of(a, b, c), new ArrayList<>(this.registry.holders()));
+    assertEquals(List.of("a", "b", "c"), this.registry.stream().map(Holder::key).collect(Collectors.toList()));
+    assertEquals(3, this.registry.holders().size());
+    assertTrue(this.registry.holders().contains(b));
+    assertFalse(this.registry.holders().contains(Registry.<String, Item>create().register("a", new Item())));
+
+    // Only holders with a value bound are passed to forEach.
+    final Map<String, Item> entries = new LinkedHashMap<>();
+    this.registry.forEach(entries::put);
+    assertEquals(Map.of("a", a.value(), "c", c.value()), entries);
+    assertEquals(List.of("a", "c"), List.copyOf(entries.keySet()));
+  }
+
+  @Test
+  void testHoldersSpliterator() {
+    for (int i = 0; i < 1000; i++) {
+      this.registry.register("key" + i, new Item());
+    }
+    final Spliterator<Holder<String, Item>> spliterator = this.registry.holders().spliterator();
+    assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL | Spliterator.ORDERED));
+    assertEquals(1000, spliterator.getExactSizeIfKnown());
+    final Spliterator<Holder<String, Item>> prefix = spliterator.trySplit();
+    assertEquals(500, prefix.getExactSizeIfKnown());
+    assertEquals(500, spliterator.getExactSizeIfKnown());
+    assertTrue(prefix.tryAdvance(holder -> assertEquals(0, holder.id())));
+    assertTrue(spliterator.tryAdvance(holder -> assertEquals(500, holder.id())));
+
+    assertEquals(1000, this.registry.stream().parallel().mapToInt(Holder::id).distinct().count());
+    assertEquals(999 * 1000 / 2, this.registry.stream().parallel().mapToInt(Holder::id).sum());
+  }
+
   static final class Item {
     @Override
     public boolean equals(final Object that) {
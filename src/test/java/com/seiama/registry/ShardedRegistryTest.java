@@ -0,0 +1,193 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardedRegistryTest {
+  private static final int THREADS = 8;
+  private static final String EMPTY = "empty";
+
+  private final Registry<String, RegistryTest.Item> registry = Registry.<String, RegistryTest.Item>builder().shards(THREADS).build();
+
+  @Test
+  void testImmediate() {
+    final RegistryTest.Item item = new RegistryTest.Item();
+    final Holder<String, RegistryTest.Item> holder = this.registry.register(EMPTY, item);
+    assertSame(Holder.Type.IMMEDIATE, holder.type());
+    assertSame(item, holder.value());
+    assertSame(holder, this.registry.getHolder(EMPTY));
+    assertEquals(Set.of(EMPTY), this.registry.keys());
+    assertSame(holder, this.registry.register(EMPTY, item));
+    assertThrows(IllegalStateException.class, () -> this.registry.register(EMPTY, new RegistryTest.Item()));
+  }
+
+  @Test
+  void testLazy() {
+    assertNull(this.registry.getHolder(EMPTY));
+    final Holder<String, RegistryTest.Item> holder = this.registry.getOrCreateHolder(EMPTY);
+    assertSame(Holder.Type.LAZY, holder.type());
+    assertEquals(Set.of(EMPTY), this.registry.unbound());
+    final RegistryTest.Item item = new RegistryTest.Item();
+    assertSame(holder, this.registry.register(EMPTY, item));
+    assertSame(item, holder.value());
+    assertTrue(this.registry.unbound().isEmpty());
+  }
+
+  @Test
+  void testKeysAcrossShards() {
+    final Set<String> expected = new HashSet<>();
+    for (int i = 0; i < 1_000; i++) {
+      this.registry.getOrCreateHolder("key" + i);
+      expected.add("key" + i);
+    }
+    final Set<String> keys = this.registry.keys();
+    assertEquals(expected.size(), keys.size());
+    assertEquals(expected, keys);
+    assertEquals(expected, new HashSet<>(keys));
+    assertTrue(keys.contains("key500"));
+    assertFalse(keys.contains("key1000"));
+    for (int i = 0; i < 1_000; i++) {
+      assertEquals(i, this.registry.idOf("key" + i));
+    }
+  }
+
+  @Test
+  void testGetHolderByValue() {
+    final Registry<String, RegistryTest.Item> registry = Registry.<String, RegistryTest.Item>builder().shards(THREADS).reverseLookup(true).build();
+    final RegistryTest.Item item = new RegistryTest.Item();
+    assertSame(registry.register(EMPTY, item), registry.getHolderByValue(item));
+    assertThrows(UnsupportedOperationException.class, () -> this.registry.getHolderByValue(item));
+  }
+
+  @Test
+  void testBuilder() {
+    assertThrows(IllegalArgumentException.class, () -> Registry.builder().shards(0));
+    assertThrows(IllegalStateException.class, () -> Registry.builder().shards(4).versioned(true).build());
+    assertThrows(IllegalStateException.class, () -> Registry.builder().shards(4).maximumSize(10).build());
+  }
+
+  @Test
+  void testRacingCreationKeepsIdsDense() throws Exception {
+    final int perThread = 1_000;
+    final RegistryTest.Item item = new RegistryTest.Item();
+    final AtomicInteger winners = new AtomicInteger();
+    this.race(() -> {
+      for (int i = 0; i < perThread; i++) {
+        // Every thread walks the same keys, so most creations lose a race.
+        this.registry.getOrCreateHolder("key" + i);
+        try {
+          this.registry.register("value" + i, new RegistryTest.Item());
+          winners.incrementAndGet();
+        } catch (final IllegalStateException e) {
+          // Another thread registered first.
+        }
+        this.registry.register("same" + i, item);
+      }
+      return null;
+    });
+    final int size = perThread * 3;
+    assertEquals(perThread, winners.get());
+    assertEquals(size, this.registry.keys().size());
+    assertEquals(perThread, this.registry.unbound().size());
+    final boolean[] seen = new boolean[size];
+    for (final String key : this.registry.keys()) {
+      final int id = this.registry.idOf(key);
+      assertFalse(seen[id]);
+      seen[id] = true;
+      assertSame(this.registry.getHolder(key), this.registry.byId(id));
+    }
+    assertNull(this.registry.byId(size));
+  }
+
+  @Test
+  void testReadersWhileGrowing() throws Exception {
+    final int perThread = 2_000;
+    this.race(() -> {
+      final String prefix = Thread.currentThread().getName();
+      for (int i = 0; i < perThread; i++) {
+        final Holder<String, RegistryTest.Item> holder = this.registry.getOrCreateHolder(prefix + i);
+        // Whatever a thread has added stays visible to it, however often other threads grow the shards.
+        for (int j = Math.max(0, i - 16); j <= i; j++) {
+          assertNotNull(this.registry.getHolder(prefix + j));
+        }
+        assertSame(holder, this.registry.getHolder(prefix + i));
+      }
+      return null;
+    });
+    assertEquals(perThread * THREADS, this.registry.keys().size());
+    assertEquals(perThread * THREADS, this.registry.holders().size());
+  }
+
+  private <T> List<T> race(final RaceTask<T> task) throws Exception {
+    final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      final CountDownLatch ready = new CountDownLatch(THREADS);
+      final CountDownLatch start = new CountDownLatch(1);
+      final List<Future<T>> futures = new ArrayList<>();
+      for (int i = 0; i < THREADS; i++) {
+        futures.add(executor.submit(() -> {
+          ready.countDown();
+          start.await();
+          return task.run();
+        }));
+      }
+      ready.await();
+      start.countDown();
+      final List<T> results = new ArrayList<>();
+      for (final Future<T> future : futures) {
+        final T result = future.get(10, TimeUnit.SECONDS);
+        if (result != null) {
+          results.add(result);
+        }
+      }
+      return results;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @FunctionalInterface
+  private interface RaceTask<T> {
+    T run();
+  }
+}
@@ -0,0 +1,199 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotTest {
+  private static final long FINGERPRINT = 0x5EED;
+  private static final int SIZE = 1000;
+
+  private static Registry<Key, RegistryTest.Item> populate() {
+    final Registry<Key, RegistryTest.Item> registry = Registry.create();
+    for (int i = 0; i < SIZE; i++) {
+      registry.register(Key.key("test", "item_" + i), new RegistryTest.Item());
+    }
+    // Keys which are not ASCII take the slow path when compared.
+    registry.register(Key.key("test", "\u00e9t\u00e9"), new RegistryTest.Item());
+    registry.getOrCreateHolder(Key.key("test", "\uD83D\uDE00"));
+    return registry;
+  }
+
+  @Test
+  void testRoundTrip(@TempDir final Path directory) throws IOException {
+    final Path path = directory.resolve("registry.snapshot");
+    final Registry<Key, RegistryTest.Item> source = populate();
+    source.writeSnapshot(path, KeyCodec.key(), FINGERPRINT);
+
+    final Registry<Key, RegistryTest.Item> loaded = Registry.loadSnapshot(path, KeyCodec.key(), FINGERPRINT);
+    assertEquals(source.keys().size(), loaded.keys().size());
+    // Keys are loaded in order of their ids.
+    final List<Key> ordered = new ArrayList<>();
+    for (int id = 0; id < source.keys().size(); id++) {
+      ordered.add(source.byId(id).key());
+    }
+    assertIterableEquals(ordered, new ArrayList<>(loaded.keys()));
+    for (final Key key : source.keys()) {
+      final Holder<Key, RegistryTest.Item> holder = loaded.getHolder(key);
+      assertSame(key, holder.key());
+      assertEquals(source.idOf(key), holder.id());
+      assertSame(holder, loaded.byId(holder.id()));
+      assertFalse(holder.bound());
+      assertTrue(loaded.keys().contains(key));
+    }
+    assertNull(loaded.getHolder(Key.key("test", "missing")));
+    assertNull(loaded.byId(source.keys().size()));
+    assertNull(loaded.byId(-1));
+    assertThrows(UnsupportedOperationException.class, () -> loaded.getHolderByValue(new RegistryTest.Item()));
+  }
+
+  @Test
+  void testRegister(@TempDir final Path directory) throws IOException {
+    final Path path = directory.resolve("registry.snapshot");
+    populate().writeSnapshot(path, KeyCodec.key(), FINGERPRINT);
+    final Registry<Key, RegistryTest.Item> loaded = Registry.loadSnapshot(path, KeyCodec.key(), FINGERPRINT);
+    assertEquals(SIZE + 2, loaded.unbound().size());
+
+    final Key first = Key.key("test", "item_0");
+    final Holder<Key, RegistryTest.Item> holder = loaded.getOrCreateHolder(first);
+    final RegistryTest.Item item = new RegistryTest.Item();
+    assertSame(holder, loaded.register(first, item));
+    assertSame(item, holder.value());
+    assertFalse(loaded.unbound().contains(first));
+    assertEquals(SIZE + 1, loaded.unbound().size());
+    assertThrows(IllegalStateException.class, () -> loaded.register(first, new RegistryTest.Item()));
+
+    final Key unknown = Key.key("test", "unknown");
+    assertThrows(UnsupportedOperationException.class, () -> loaded.register(unknown, new RegistryTest.Item()));
+    assertThrows(UnsupportedOperationException.class, () -> loaded.getOrCreateHolder(unknown));
+    // Unknown keys are rejected before anything is bound.
+    final Key second = Key.key("test", "item_1");
+    assertThrows(UnsupportedOperationException.class, () -> loaded.registerAll(Map.of(second, new RegistryTest.Item(), unknown, new RegistryTest.Item())));
+    assertFalse(loaded.getHolder(second).bound());
+
+    final List<Key> unbound = new ArrayList<>(loaded.unbound());
+    assertEquals(SIZE + 1, unbound.size());
+    final Map<Key, RegistryTest.Item> entries = new HashMap<>();
+    for (final Key key : unbound) {
+      entries.put(key, new RegistryTest.Item());
+    }
+    loaded.registerAll(entries);
+    loaded.validate();
+  }
+
+  @Test
+  void testStringKeys(@TempDir final Path directory) throws IOException {
+    final Path path = directory.resolve("registry.snapshot");
+    final Registry<String, RegistryTest.Item> source = Registry.create();
+    source.register("a", new RegistryTest.Item());
+    source.register("ab", new RegistryTest.Item());
+    source.writeSnapshot(path, KeyCodec.string(), FINGERPRINT);
+    final Registry<String, RegistryTest.Item> loaded = Registry.loadSnapshot(path, KeyCodec.string(), FINGERPRINT);
+    assertEquals(0, loaded.idOf("a"));
+    assertEquals(1, loaded.idOf("ab"));
+    assertEquals(-1, loaded.idOf("abc"));
+    assertEquals(-1, loaded.idOf(""));
+  }
+
+  @Test
+  void testEmpty(@TempDir final Path directory) throws IOException {
+    final Path path = directory.resolve("registry.snapshot");
+    Registry.<String, RegistryTest.Item>create().writeSnapshot(path, KeyCodec.string(), FINGERPRINT);
+    final Registry<String, RegistryTest.Item> loaded = Registry.loadSnapshot(path, KeyCodec.string(), FINGERPRINT);
+    assertTrue(loaded.keys().isEmpty());
+    assertNull(loaded.getHolder("a"));
+  }
+
+  @Test
+  void testStale(@TempDir final Path directory) throws IOException {
+    final Path path = directory.resolve("registry.snapshot");
+    populate().writeSnapshot(path, KeyCodec.key(), FINGERPRINT);
+    final IOException exception = assertThrows(IOException.class, () -> Registry.loadSnapshot(path, KeyCodec.key(), FINGERPRINT + 1));
+    assertTrue(exception.getMessage().contains("stale"));
+  }
+
+  @Test
+  void testCorrupt(@TempDir final Path directory) throws IOException {
+    final Path path = directory.resolve("registry.snapshot");
+    populate().writeSnapshot(path, KeyCodec.key(), FINGERPRINT);
+    final long length = Files.size(path);
+    try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      final ByteBuffer b = ByteBuffer.allocate(1);
+      channel.read(b, length - 3);
+      b.put(0, (byte) (b.get(0) ^ 1)).position(0);
+      channel.write(b, length - 3);
+    }
+    assertTrue(assertThrows(IOException.class, () -> Registry.loadSnapshot(path, KeyCodec.key(), FINGERPRINT, true)).getMessage().contains("checksum"));
+    // Damage which leaves the structure intact is only found by verifying.
+    Registry.loadSnapshot(path, KeyCodec.key(), FINGERPRINT);
+
+    try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      channel.truncate(length / 2);
+    }
+    assertTrue(assertThrows(IOException.class, () -> Registry.loadSnapshot(path, KeyCodec.key(), FINGERPRINT)).getMessage().contains("corrupt"));
+
+    Files.write(path, new byte[] {1, 2, 3});
+    assertTrue(assertThrows(IOException.class, () -> Registry.loadSnapshot(path, KeyCodec.key(), FINGERPRINT)).getMessage().contains("corrupt"));
+  }
+
+  @Test
+  void testCorruptStructure(@TempDir final Path directory) throws IOException {
+    final Path path = directory.resolve("registry.snapshot");
+    populate().writeSnapshot(path, KeyCodec.key(), FINGERPRINT);
+    final byte[] original = Files.readAllBytes(path);
+    final int size = ByteBuffer.wrap(original).getInt(16);
+    // The header is 36 bytes, followed by size + 1 offsets, size hashes and then the table.
+    final int offsets = 36;
+    final int table = offsets + (2 * size + 1) * Integer.BYTES;
+
+    final byte[] offset = original.clone();
+    offset[offsets + Integer.BYTES] ^= 0x40;
+    Files.write(path, offset);
+    assertTrue(assertThrows(IOException.class, () -> Registry.loadSnapshot(path, KeyCodec.key(), FINGERPRINT)).getMessage().contains("offsets"));
+
+    final byte[] slot = original.clone();
+    ByteBuffer.wrap(slot).putInt(table, size + 1);
+    Files.write(path, slot);
+    assertTrue(assertThrows(IOException.class, () -> Registry.loadSnapshot(path, KeyCodec.key(), FINGERPRINT)).getMessage().contains("table"));
+  }
+}
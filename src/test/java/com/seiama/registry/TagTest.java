@@ -0,0 +1,169 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TagTest {
+  private final Registry<String, RegistryTest.Item> registry = Registry.create();
+
+  @Test
+  void testTags() {
+    final Tags<String, RegistryTest.Item> tags = this.registry.tags();
+    assertNull(tags.get("fluids"));
+    final Tag<String, RegistryTest.Item> fluids = tags.getOrCreate("fluids");
+    assertSame(fluids, tags.get("fluids"));
+    assertSame(fluids, tags.getOrCreate("fluids"));
+    assertEquals("fluids", fluids.name());
+    assertEquals(Set.of("fluids"), tags.names());
+  }
+
+  @Test
+  void testMembership() {
+    final Tag<String, RegistryTest.Item> fluids = this.registry.tags().getOrCreate("fluids");
+    final Holder<String, RegistryTest.Item> water = this.registry.register("water", new RegistryTest.Item());
+    final Holder<String, RegistryTest.Item> stone = this.registry.register("stone", new RegistryTest.Item());
+
+    assertTrue(fluids.add(water));
+    assertFalse(fluids.add(water));
+    assertTrue(fluids.contains(water));
+    assertFalse(fluids.contains(stone));
+    assertTrue(fluids.containsKey("water"));
+    assertFalse(fluids.containsKey("stone"));
+    assertFalse(fluids.containsKey("missing"));
+    assertEquals(1, fluids.size());
+    assertEquals(Set.of(water), fluids.holders());
+
+    assertTrue(fluids.remove(water));
+    assertFalse(fluids.remove(water));
+    assertFalse(fluids.remove(stone));
+    assertEquals(0, fluids.size());
+  }
+
+  @Test
+  void testForwardReference() {
+    final Tag<String, RegistryTest.Item> fluids = this.registry.tags().getOrCreate("fluids");
+    final Holder<String, RegistryTest.Item> lava = fluids.add("lava");
+    assertSame(Holder.Type.LAZY, lava.type());
+    assertTrue(fluids.containsKey("lava"));
+
+    final RegistryTest.Item item = new RegistryTest.Item();
+    assertSame(lava, this.registry.register("lava", item));
+    assertTrue(fluids.contains(this.registry.getHolder("lava")));
+    assertSame(item, fluids.holders().iterator().next().value());
+  }
+
+  @Test
+  void testForeignHolder() {
+    final Tag<String, RegistryTest.Item> tag = this.registry.tags().getOrCreate("tag");
+    this.registry.register("a", new RegistryTest.Item());
+    final Registry<String, RegistryTest.Item> other = Registry.create();
+    final Holder<String, RegistryTest.Item> foreign = other.register("a", new RegistryTest.Item());
+    assertThrows(IllegalArgumentException.class, () -> tag.add(foreign));
+    assertThrows(IllegalArgumentException.class, () -> tag.addAll(other.tags().getOrCreate("tag")));
+  }
+
+  @Test
+  void testSetOperations() {
+    final Tags<String, RegistryTest.Item> tags = this.registry.tags();
+    final Tag<String, RegistryTest.Item> even = tags.getOrCreate("even");
+    final Tag<String, RegistryTest.Item> thirds = tags.getOrCreate("thirds");
+    for (int i = 0; i < 200; i++) {
+      final Holder<String, RegistryTest.Item> holder = this.registry.register("key" + i, new RegistryTest.Item());
+      if (i % 2 == 0) {
+        even.add(holder);
+      }
+      if (i % 3 == 0) {
+        thirds.add(holder);
+      }
+    }
+
+    final Tag<String, RegistryTest.Item> union = tags.getOrCreate("union");
+    union.addAll(even);
+    union.addAll(thirds);
+    final Tag<String, RegistryTest.Item> intersection = tags.getOrCreate("intersection");
+    intersection.addAll(even);
+    intersection.retainAll(thirds);
+    final Tag<String, RegistryTest.Item> difference = tags.getOrCreate("difference");
+    difference.addAll(even);
+    difference.removeAll(thirds);
+
+    for (int i = 0; i < 200; i++) {
+      final Holder<String, RegistryTest.Item> holder = this.registry.getHolder("key" + i);
+      assertEquals(i % 2 == 0 || i % 3 == 0, union.contains(holder));
+      assertEquals(i % 6 == 0, intersection.contains(holder));
+      assertEquals(i % 2 == 0 && i % 3 != 0, difference.contains(holder));
+    }
+    assertEquals(34, intersection.size());
+
+    // Retaining against a shorter tag clears the rest.
+    final Tag<String, RegistryTest.Item> first = tags.getOrCreate("first");
+    first.add(this.registry.getHolder("key0"));
+    union.retainAll(first);
+    assertIterableEquals(List.of(this.registry.getHolder("key0")), union.holders());
+  }
+
+  @Test
+  void testHoldersInIdOrder() {
+    final Tag<String, RegistryTest.Item> tag = this.registry.tags().getOrCreate("tag");
+    final Holder<String, RegistryTest.Item> a = this.registry.register("a", new RegistryTest.Item());
+    final Holder<String, RegistryTest.Item> b = this.registry.getOrCreateHolder("b");
+    final Holder<String, RegistryTest.Item> c = this.registry.register("c", new RegistryTest.Item());
+    for (int i = 0; i < 100; i++) {
+      this.registry.register("filler" + i, new RegistryTest.Item());
+    }
+    final Holder<String, RegistryTest.Item> d = this.registry.register("d", new RegistryTest.Item());
+    tag.add(d);
+    tag.add(a);
+    tag.add(c);
+    tag.add(b);
+    assertIterableEquals(List.of(a, b, c, d), tag.holders());
+    assertTrue(tag.holders().contains(d));
+    assertFalse(tag.holders().contains(Registry.<String, RegistryTest.Item>create().register("a", new RegistryTest.Item())));
+  }
+
+  @Test
+  void testFrozenTagsAreCopied() {
+    final Tag<String, RegistryTest.Item> tag = this.registry.tags().getOrCreate("tag");
+    final Holder<String, RegistryTest.Item> a = this.registry.register("a", new RegistryTest.Item());
+    final Holder<String, RegistryTest.Item> b = this.registry.register("b", new RegistryTest.Item());
+    tag.add(a);
+    final Registry<String, RegistryTest.Item> frozen = this.registry.freeze();
+    final Tag<String, RegistryTest.Item> frozenTag = frozen.tags().get("tag");
+    assertTrue(frozenTag.contains(a));
+    tag.add(b);
+    assertFalse(frozenTag.contains(b));
+    assertThrows(UnsupportedOperationException.class, () -> frozenTag.add("missing"));
+  }
+}
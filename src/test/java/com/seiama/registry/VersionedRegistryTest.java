@@ -0,0 +1,209 @@
+/*
+ * This file is part of registry, licensed under the MIT License.
+ *
+ * Copyright (c) 2021-2023 Seiama
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.seiama.registry;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VersionedRegistryTest {
+  private final Registry<String, RegistryTest.Item> registry = Registry.createVersioned();
+
+  @Test
+  void testLookup() {
+    final RegistryTest.Item item = new RegistryTest.Item();
+    final Holder<String, RegistryTest.Item> immediate = this.registry.register("immediate", item);
+    final Holder<String, RegistryTest.Item> lazy = this.registry.getOrCreateHolder("lazy");
+
+    assertSame(immediate, this.registry.getHolder("immediate"));
+    assertSame(lazy, this.registry.getOrCreateHolder("lazy"));
+    assertSame(immediate, this.registry.register("immediate", item));
+    assertNull(this.registry.getHolder("missing"));
+    assertSame(lazy, this.registry.byId(1));
+    assertNull(this.registry.byId(2));
+    assertEquals(List.of("immediate", "lazy"), new ArrayList<>(this.registry.keys()));
+    assertEquals(Set.of("lazy"), this.registry.unbound());
+    assertThrows(IllegalStateException.class, () -> this.registry.register("immediate", new RegistryTest.Item()));
+
+    this.registry.register("lazy", item);
+    assertSame(item, lazy.value());
+    assertTrue(this.registry.unbound().isEmpty());
+  }
+
+  @Test
+  void testManyKeys() {
+    // "Aa" and "BB" share a hash code, as do any strings built from them - so some holders share every bit of a hash.
+    final List<String> keys = new ArrayList<>();
+    for (int i = 0; i < 10_000; i++) {
+      keys.add("key" + i);
+    }
+    for (final String a : new String[]{"Aa", "BB"}) {
+      for (final String b : new String[]{"Aa", "BB"}) {
+        keys.add(a + b);
+      }
+    }
+    for (final String key : keys) {
+      this.registry.register(key, new RegistryTest.Item());
+    }
+    for (int i = 0; i < keys.size(); i++) {
+      assertEquals(i, this.registry.idOf(keys.get(i)));
+    }
+    assertEquals(keys, new ArrayList<>(this.registry.keys()));
+    assertEquals(keys.size(), this.registry.version());
+  }
+
+  @Test
+  void testSnapshot() {
+    final Holder<String, RegistryTest.Item> lazy = this.registry.getOrCreateHolder("lazy");
+    this.registry.register("a", new RegistryTest.Item());
+    this.registry.tags().getOrCreate("tag").add("a");
+
+    final Registry<String, RegistryTest.Item> snapshot = this.registry.snapshot();
+    this.registry.register("b", new RegistryTest.Item());
+    this.registry.tags().getOrCreate("tag").add("b");
+
+    assertEquals(Set.of("lazy", "a"), snapshot.keys());
+    assertEquals(2, snapshot.version());
+    assertNull(snapshot.getHolder("b"));
+    assertNull(snapshot.byId(2));
+    assertEquals(1, snapshot.tags().getOrCreate("tag").size());
+    snapshot.tags().getOrCreate("tag").add("lazy");
+    assertEquals(2, snapshot.tags().getOrCreate("tag").size());
+    assertEquals(2, this.registry.tags().getOrCreate("tag").size());
+    assertFalse(this.registry.tags().getOrCreate("tag").containsKey("lazy"));
+    assertSame(snapshot, snapshot.snapshot());
+    assertThrows(UnsupportedOperationException.class, () -> snapshot.getOrCreateHolder("c"));
+    assertThrows(UnsupportedOperationException.class, () -> snapshot.register("c", new RegistryTest.Item()));
+
+    // Holders are shared, so binding through the snapshot binds the registry's holder.
+    final RegistryTest.Item item = new RegistryTest.Item();
+    assertSame(lazy, snapshot.register("lazy", item));
+    assertSame(item, this.registry.getHolder("lazy").value());
+    assertTrue(this.registry.unbound().isEmpty());
+  }
+
+  @Test
+  void testSnapshotUnbound() {
+    this.registry.getOrCreateHolder("a");
+    final Registry<String, RegistryTest.Item> snapshot = this.registry.snapshot();
+    this.registry.getOrCreateHolder("b");
+    assertEquals(Set.of("a"), snapshot.unbound());
+    assertEquals(Set.of("a", "b"), this.registry.unbound());
+    assertFalse(snapshot.unbound().contains("b"));
+
+    // Values bound after the snapshot was taken are visible through it.
+    this.registry.register("a", new RegistryTest.Item());
+    assertTrue(snapshot.unbound().isEmpty());
+    assertEquals(Set.of("b"), this.registry.unbound());
+  }
+
+  @Test
+  void testRegisterAllComputesDeferredUnlocked() throws Exception {
+    final RegistryTest.Item item = new RegistryTest.Item();
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      // The supplier waits on another thread registering, which must not need a lock held by registerAll.
+      this.registry.registerDeferred("deferred", () -> {
+        try {
+          executor.submit(() -> this.registry.register("other", new RegistryTest.Item())).get(10, TimeUnit.SECONDS);
+        } catch (final Exception e) {
+          throw new IllegalStateException(e);
+        }
+        return item;
+      });
+      this.registry.registerAll(Map.of("deferred", item, "a", new RegistryTest.Item()));
+    } finally {
+      executor.shutdownNow();
+    }
+    assertSame(item, this.registry.getHolder("deferred").value());
+    assertEquals(Set.of("deferred", "other", "a"), this.registry.keys());
+  }
+
+  @Test
+  void testRegisterAll() {
+    final Holder<String, RegistryTest.Item> lazy = this.registry.getOrCreateHolder("lazy");
+    final Map<String, RegistryTest.Item> entries = new LinkedHashMap<>();
+    entries.put("lazy", new RegistryTest.Item());
+    entries.put("a", new RegistryTest.Item());
+    entries.put("b", new RegistryTest.Item());
+    this.registry.registerAll(entries);
+    assertSame(entries.get("lazy"), lazy.value());
+    assertEquals(List.of("lazy", "a", "b"), new ArrayList<>(this.registry.keys()));
+
+    final IllegalStateException exception = assertThrows(IllegalStateException.class, () -> this.registry.registerAll(Map.of("a", new RegistryTest.Item(), "c", new RegistryTest.Item())));
+    assertEquals(1, exception.getSuppressed().length);
+    assertNull(this.registry.getHolder("c"));
+    assertEquals(3, this.registry.version());
+  }
+
+  @Test
+  void testSnapshotsWhileRegistering() throws Exception {
+    final int keys = 20_000;
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      final Future<?> writer = executor.submit(() -> {
+        for (int i = 0; i < keys; i++) {
+          this.registry.register("key" + i, new RegistryTest.Item());
+        }
+      });
+      while (!writer.isDone()) {
+        // Whatever version is current, a snapshot of it - and an iterator over the live keys - is complete and in order.
+        final Registry<String, RegistryTest.Item> snapshot = this.registry.snapshot();
+        final int version = snapshot.version();
+        int id = 0;
+        for (final String key : snapshot.keys()) {
+          assertEquals("key" + id++, key);
+        }
+        assertEquals(version, id);
+        assertEquals(version, snapshot.keys().size());
+        id = 0;
+        for (final String key : this.registry.keys()) {
+          assertEquals("key" + id++, key);
+        }
+      }
+      writer.get(10, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(keys, this.registry.keys().size());
+    final Set<String> seen = new HashSet<>();
+    this.registry.holders().forEach(holder -> assertTrue(seen.add(holder.key())));
+    assertFalse(seen.isEmpty());
+  }
+}